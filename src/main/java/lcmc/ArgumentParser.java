@@ -108,6 +108,13 @@ public class ArgumentParser {
     /** The --cmd-log. /var/log/lcmc.log on the servers. */
     private static final String CMD_LOG_OP = "cmd-log";
     private static final String CHECK_SWING_OP = "check-swing";
+    private static final String NO_INCREMENTAL_CIB_OP = "no-incremental-cib";
+    private static final String STAX_CIB_OP = "stax-cib";
+    private static final String NO_CIB_PATCH_OP = "no-cib-patch";
+    private static final String NO_HW_INFO_FRAMES_OP = "no-hw-info-frames";
+    private static final String ASYNC_LOG_OP = "async-log";
+    private static final String CONNECT_THREADS_OP = "connect-threads";
+    private static final String ASYNC_EVENTS_OP = "async-events";
     @Inject
     private UserConfig userConfig;
     @Inject
@@ -122,6 +129,10 @@ public class ArgumentParser {
     private Access access;
     @Inject
     private MainData mainData;
+    @Inject
+    private HwEventBus hwEventBus;
+    @Inject
+    private ClusterEventBus clusterEventBus;
 
     public void parseOptionsAndReturnAutoArguments(String[] args) {
         final Options options = new Options();
@@ -174,6 +185,15 @@ public class ArgumentParser {
         options.addOption(null, NO_EMBED_OP, false, "don't embed applet in the browser");
         options.addOption(null, CMD_LOG_OP, false, "Log executed commands to the lcmc.log on the servers");
         options.addOption(null, CHECK_SWING_OP, false, "ADVANCED USE: for testing");
+        options.addOption(null, NO_INCREMENTAL_CIB_OP, false, "always parse the whole cib, not just the changed parts");
+        options.addOption(null, STAX_CIB_OP, false, "parse the cib with the streaming parser");
+        options.addOption(null, NO_CIB_PATCH_OP, false, "get the whole cib on every change, not just the changed parts");
+        options.addOption(null, NO_HW_INFO_FRAMES_OP, false, "get the hardware info with start and end markers");
+        options.addOption(null, ASYNC_LOG_OP, false, "print the log messages from a background thread");
+        options.addOption(null, CONNECT_THREADS_OP, true, "how many hosts are connected at the same time ("
+                                                          + Application.DEFAULT_CONNECT_THREADS + ')');
+        options.addOption(null, ASYNC_EVENTS_OP, false,
+                          "deliver only the latest hardware and cluster events, from background threads");
         final CommandLineParser parser = new PosixParser();
         String autoArgs = null;
         try {
@@ -218,6 +238,10 @@ public class ArgumentParser {
             application.setStagingDrbd(cmd.hasOption(STAGING_DRBD_OP));
             application.setStagingPacemaker(cmd.hasOption(STAGING_PACEMAKER_OP));
             application.setHideLRM(cmd.hasOption(NOLRM_OP));
+            application.setIncrementalCibParsing(!cmd.hasOption(NO_INCREMENTAL_CIB_OP));
+            application.setStaxCibParsing(cmd.hasOption(STAX_CIB_OP));
+            application.setCibPatches(!cmd.hasOption(NO_CIB_PATCH_OP));
+            application.setHwInfoFrames(!cmd.hasOption(NO_HW_INFO_FRAMES_OP));
             application.setKeepHelper(cmd.hasOption(KEEP_HELPER_OP));
             application.setOneHostCluster(cmd.hasOption(ONE_HOST_CLUSTER_OP));
             application.setNoPassphrase(cmd.hasOption(NO_PASSPHRASE_OP));
@@ -233,6 +257,13 @@ public class ArgumentParser {
             if (cmd.hasOption(CHECK_SWING_OP)) {
                 swingUtils.setCheckSwing(true);
             }
+            if (cmd.hasOption(ASYNC_LOG_OP)) {
+                LoggerFactory.setAsyncLogging(true);
+            }
+            if (cmd.hasOption(ASYNC_EVENTS_OP)) {
+                hwEventBus.setAsyncDispatch(true);
+                clusterEventBus.setAsyncDispatch(true);
+            }
             final String pwd = System.getProperty("user.home");
             final String scaleOp = cmd.getOptionValue(SCALE_OP, "100");
             try {
@@ -287,6 +318,15 @@ public class ArgumentParser {
             if (vncPortOffsetString != null && lcmc.common.domain.util.Tools.isNumber(vncPortOffsetString)) {
                 application.setVncPortOffset(Integer.parseInt(vncPortOffsetString));
             }
+            final String connectThreadsString = cmd.getOptionValue(CONNECT_THREADS_OP);
+            if (connectThreadsString != null) {
+                if (lcmc.common.domain.util.Tools.isNumber(connectThreadsString)
+                    && Integer.parseInt(connectThreadsString) > 0) {
+                    application.setConnectThreads(Integer.parseInt(connectThreadsString));
+                } else {
+                    LOG.appWarning("initApp: cannot parse connect threads: " + connectThreadsString);
+                }
+            }
             mainData.setAnimFPS(fps);
             if (cmd.hasOption(CLUSTER_OP) || cmd.hasOption(HOST_OP)) {
                 parseClusterOptionsAndCreateClusterButton(cmd);
@@ -20,12 +20,13 @@
 
 package lcmc;
 
-import com.google.common.eventbus.EventBus;
-
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 @Named
 @Singleton
-public class ClusterEventBus extends EventBus {
+public class ClusterEventBus extends CoalescingEventBus {
+    public ClusterEventBus() {
+        super("cluster-event-bus");
+    }
 }
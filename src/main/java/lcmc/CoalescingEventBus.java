@@ -0,0 +1,287 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.eventbus.EventBus;
+import lcmc.event.ClusterEvent;
+import lcmc.event.HostEvent;
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * Event bus, that delivers the events in the posting thread, or, in the
+ * asynchronous mode, in its own threads. In the asynchronous mode every
+ * host or cluster has a queue of the pending events. If an event of the
+ * same type is already pending, it is replaced with the new one, so that
+ * only the latest state is delivered. The events of one host or cluster
+ * are delivered one after another, in the order their types were posted.
+ * The events, that are not for a host or cluster, share one queue and are
+ * never replaced. The callers, that need the events to be handled, before
+ * they go on, wait for them with awaitDelivery.
+ */
+public class CoalescingEventBus extends EventBus {
+    private static final Logger LOG = LoggerFactory.getLogger(CoalescingEventBus.class);
+    private static final int DISPATCH_THREADS = 2;
+    /** Events delivered from one queue, before other queues get a chance. */
+    private static final int EVENTS_PER_TURN = 16;
+    private static final long SLOW_HANDLER_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /** How long to wait for the pending events of a host or cluster, in case a handler hangs. */
+    private static final long AWAIT_DELIVERY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private final String name;
+    private volatile boolean asyncDispatch = false;
+    private Executor dispatchExecutor = null;
+    /** Queues of the hosts and clusters, that have pending events. */
+    private final Map<Object, EventQueue> eventQueues = new HashMap<Object, EventQueue>();
+    private final AtomicInteger queueDepth = new AtomicInteger(0);
+    private final AtomicInteger maxQueueDepth = new AtomicInteger(0);
+    private final AtomicLong postedEvents = new AtomicLong(0);
+    private final AtomicLong coalescedEvents = new AtomicLong(0);
+    private final AtomicLong deliveredEvents = new AtomicLong(0);
+    private final AtomicLong handlerNanos = new AtomicLong(0);
+    private final AtomicLong maxHandlerNanos = new AtomicLong(0);
+
+    public CoalescingEventBus(final String name) {
+        super(name);
+        this.name = name;
+    }
+
+    /** Delivers the events from now on in the bus threads. */
+    public synchronized void setAsyncDispatch(final boolean asyncDispatch) {
+        if (asyncDispatch && dispatchExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(DISPATCH_THREADS,
+                                                                       DISPATCH_THREADS,
+                                                                       60,
+                                                                       TimeUnit.SECONDS,
+                                                                       new LinkedBlockingQueue<Runnable>(),
+                                                                       new DispatchThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+            dispatchExecutor = executor;
+        }
+        this.asyncDispatch = asyncDispatch;
+        LOG.debug1("setAsyncDispatch: " + name + ": " + asyncDispatch);
+    }
+
+    public boolean isAsyncDispatch() {
+        return asyncDispatch;
+    }
+
+    @Override
+    public void post(final Object event) {
+        if (!asyncDispatch) {
+            super.post(event);
+            return;
+        }
+        postedEvents.incrementAndGet();
+        final Object source = getSource(event);
+        final EventQueue eventQueue;
+        synchronized (eventQueues) {
+            final EventQueue existingQueue = eventQueues.get(source);
+            if (existingQueue == null) {
+                eventQueue = new EventQueue(source);
+                eventQueues.put(source, eventQueue);
+            } else {
+                eventQueue = existingQueue;
+            }
+            if (!eventQueue.add(event)) {
+                coalescedEvents.incrementAndGet();
+                return;
+            }
+            final int depth = queueDepth.incrementAndGet();
+            if (depth > maxQueueDepth.get()) {
+                maxQueueDepth.set(depth);
+            }
+            if (eventQueue.isScheduled()) {
+                return;
+            }
+            eventQueue.setScheduled(true);
+        }
+        getDispatchExecutor().execute(eventQueue);
+    }
+
+    /** Returns the number of the events, that are waiting to be delivered. */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getPostedEvents() {
+        return postedEvents.get();
+    }
+
+    /** Returns the number of the events, that were replaced by newer ones. */
+    public long getCoalescedEvents() {
+        return coalescedEvents.get();
+    }
+
+    /**
+     * In the asynchronous mode waits, till the events of the host or cluster,
+     * that were posted so far, are delivered. Does not wait in the bus
+     * threads, because the events can't be delivered, while a handler waits.
+     */
+    public void awaitDelivery(final Object source) {
+        if (!asyncDispatch || source == null || Thread.currentThread() instanceof DispatchThread) {
+            return;
+        }
+        final long deadline = System.nanoTime() + AWAIT_DELIVERY_NANOS;
+        synchronized (eventQueues) {
+            while (eventQueues.containsKey(source)) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    LOG.appWarning("awaitDelivery: " + name + ": timeout, " + getMetrics());
+                    return;
+                }
+                try {
+                    eventQueues.wait(TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+                } catch (final InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    String getMetrics() {
+        final long delivered = deliveredEvents.get();
+        final long avgHandlerNanos = delivered == 0 ? 0 : handlerNanos.get() / delivered;
+        return "queue: " + queueDepth.get()
+               + ", max queue: " + maxQueueDepth.get()
+               + ", posted: " + postedEvents.get()
+               + ", coalesced: " + coalescedEvents.get()
+               + ", delivered: " + delivered
+               + ", avg handler: " + String.format("%.1f", avgHandlerNanos / 1000000.0) + " ms"
+               + ", max handler: " + TimeUnit.NANOSECONDS.toMillis(maxHandlerNanos.get()) + " ms";
+    }
+
+    private synchronized Executor getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    /** Returns the host or the cluster of the event or this bus, if it has none. */
+    private Object getSource(final Object event) {
+        if (event instanceof HostEvent) {
+            final Object host = ((HostEvent) event).getHost();
+            if (host != null) {
+                return host;
+            }
+        } else if (event instanceof ClusterEvent) {
+            final Object cluster = ((ClusterEvent) event).getCluster();
+            if (cluster != null) {
+                return cluster;
+            }
+        }
+        return this;
+    }
+
+    private void deliver(final Object event) {
+        final long start = System.nanoTime();
+        super.post(event);
+        final long nanos = System.nanoTime() - start;
+        deliveredEvents.incrementAndGet();
+        handlerNanos.addAndGet(nanos);
+        if (nanos > maxHandlerNanos.get()) {
+            maxHandlerNanos.set(nanos);
+        }
+        if (nanos > SLOW_HANDLER_NANOS) {
+            LOG.debug1("deliver: " + name + ": " + event.getClass().getSimpleName() + " took "
+                       + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, " + getMetrics());
+        }
+    }
+
+    /** Pending events of one host or cluster. */
+    private final class EventQueue implements Runnable {
+        private final Object source;
+        /** Events by their type, or by themselves, if they are not replaced. */
+        private final Map<Object, Object> pendingEvents = new LinkedHashMap<Object, Object>();
+        private boolean scheduled = false;
+
+        EventQueue(final Object source) {
+            this.source = source;
+        }
+
+        /** Returns false, if the event replaced a pending one. Must be called with the queues lock. */
+        boolean add(final Object event) {
+            if (source == CoalescingEventBus.this) {
+                pendingEvents.put(new Object(), event);
+                return true;
+            }
+            return pendingEvents.put(event.getClass(), event) == null;
+        }
+
+        boolean isScheduled() {
+            return scheduled;
+        }
+
+        void setScheduled(final boolean scheduled) {
+            this.scheduled = scheduled;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < EVENTS_PER_TURN; i++) {
+                final Object event;
+                synchronized (eventQueues) {
+                    final Iterator<Object> it = pendingEvents.values().iterator();
+                    if (!it.hasNext()) {
+                        scheduled = false;
+                        eventQueues.remove(source);
+                        eventQueues.notifyAll();
+                        return;
+                    }
+                    event = it.next();
+                    it.remove();
+                    queueDepth.decrementAndGet();
+                }
+                deliver(event);
+            }
+            /* let the other queues deliver their events */
+            getDispatchExecutor().execute(this);
+        }
+    }
+
+    /** Daemon threads, so that the pending events don't keep the application running. */
+    private final class DispatchThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new DispatchThread(runnable, name + '-' + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static final class DispatchThread extends Thread {
+        DispatchThread(final Runnable runnable, final String name) {
+            super(runnable, name);
+        }
+    }
+}
@@ -20,12 +20,13 @@
 
 package lcmc;
 
-import com.google.common.eventbus.EventBus;
-
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 @Named
 @Singleton
-public class HwEventBus extends EventBus {
+public class HwEventBus extends CoalescingEventBus {
+    public HwEventBus() {
+        super("hw-event-bus");
+    }
 }
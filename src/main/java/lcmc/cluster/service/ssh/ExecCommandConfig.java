@@ -30,6 +30,7 @@ import lcmc.common.domain.ExecCallback;
 import lcmc.logger.Logger;
 import lcmc.logger.LoggerFactory;
 import lcmc.common.domain.NewOutputCallback;
+import lcmc.common.domain.NewRawOutputCallback;
 import lcmc.common.domain.util.Tools;
 
 public class ExecCommandConfig {
@@ -42,9 +43,11 @@ public class ExecCommandConfig {
     private String commandString = null;
     private ExecCallback execCallback = null;
     private NewOutputCallback newOutputCallback = null;
+    private NewRawOutputCallback newRawOutputCallback = null;
     private boolean commandVisible = true;
     private boolean outputVisible = true;
     private int sshCommandTimeout = Ssh.DEFAULT_COMMAND_TIMEOUT;
+    private boolean eventStream = false;
 
     private ConvertCmdCallback convertCmdCallback = null;
     private boolean inBash;
@@ -85,6 +88,11 @@ public class ExecCommandConfig {
         return this;
     }
 
+    public ExecCommandConfig newRawOutputCallback(final NewRawOutputCallback newRawOutputCallback) {
+        this.newRawOutputCallback = newRawOutputCallback;
+        return this;
+    }
+
     public ExecCommandConfig silentCommand() {
         this.commandVisible = false;
         return this;
@@ -100,6 +108,15 @@ public class ExecCommandConfig {
         return this;
     }
 
+    /**
+     * The command runs as long as the connection and sends events, its
+     * session doesn't take a place in the session pool.
+     */
+    public ExecCommandConfig eventStream() {
+        this.eventStream = true;
+        return this;
+    }
+
     public ExecCommandConfig convertCmdCallback(final ConvertCmdCallback convertCmdCallback) {
         this.convertCmdCallback = convertCmdCallback;
         return this;
@@ -188,6 +205,10 @@ public class ExecCommandConfig {
         return newOutputCallback;
     }
 
+    public NewRawOutputCallback getNewRawOutputCallback() {
+        return newRawOutputCallback;
+    }
+
     public boolean isCommandVisible() {
         return commandVisible;
     }
@@ -200,6 +221,10 @@ public class ExecCommandConfig {
         return sshCommandTimeout;
     }
 
+    public boolean isEventStream() {
+        return eventStream;
+    }
+
     public ExecCommandConfig outputVisible(boolean outputVisible) {
         this.outputVisible = outputVisible;
         return this;
@@ -25,6 +25,11 @@ import ch.ethz.ssh2.Session;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -37,10 +42,12 @@ import lcmc.common.domain.ExecCallback;
 import lcmc.logger.Logger;
 import lcmc.logger.LoggerFactory;
 import lcmc.common.domain.NewOutputCallback;
+import lcmc.common.domain.NewRawOutputCallback;
+import lcmc.common.domain.util.SharedTimer;
 import lcmc.common.domain.util.Tools;
 
 /** This class is a thread that executes commands. */
-public final class ExecCommandThread extends Thread {
+public final class ExecCommandThread implements Runnable {
     private static final Logger LOG = LoggerFactory.getLogger(ExecCommandThread.class);
 
     private final Host host;
@@ -49,6 +56,7 @@ public final class ExecCommandThread extends Thread {
     private final String command;
     private final ExecCallback execCallback;
     private final NewOutputCallback newOutputCallback;
+    private final NewRawOutputCallback newRawOutputCallback;
     private final boolean outputVisible;
     private final boolean commandVisible;
     private final MainPanel mainPanel;
@@ -57,12 +65,27 @@ public final class ExecCommandThread extends Thread {
     private volatile boolean cancelIt = false;
     private final Lock mSessionLock = new ReentrantLock();
     private Session sess = null;
+    /** Pool of the connection, that the session was opened on. */
+    private SessionPool sessionPool = null;
+    private final CountDownLatch finished = new CountDownLatch(1);
     private final int sshCommandTimeout;
+    /** Whether the session is opened without the session pool. */
+    private final boolean eventStream;
 
     private static final int ERROR_EXIT_CODE = 255;
     private static final int EXEC_OUTPUT_BUFFER_SIZE = 8192;
     private static final int DEFAULT_EXIT_CODE = 100;
     private static final String ENCODING = "UTF-8";
+    /** The commands are executed in threads, that are reused. */
+    private static final ExecutorService COMMAND_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "ssh-command-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     ExecCommandThread(final MainPanel mainPanel,
                       final ProgressIndicator progressIndicator,
@@ -76,8 +99,10 @@ public final class ExecCommandThread extends Thread {
 
         this.execCallback = execCommandConfig.getExecCallback();
         this.newOutputCallback = execCommandConfig.getNewOutputCallback();
+        this.newRawOutputCallback = execCommandConfig.getNewRawOutputCallback();
         this.commandVisible = execCommandConfig.isCommandVisible();
         this.sshCommandTimeout = execCommandConfig.getSshCommandTimeout();
+        this.eventStream = execCommandConfig.isEventStream();
 
         if (execCommandConfig.getCommand().length() > 9
             && "NOOUTPUT:".equals(execCommandConfig.getCommand().substring(0, 9))) {
@@ -100,38 +125,66 @@ public final class ExecCommandThread extends Thread {
      */
     @Override
     public void run() {
-        if (!connectionThread.isConnectionEstablished()) {
-            if (execCallback != null) {
-                execCallback.doneError("not connected", 139);
-            }
-        } else {
-            if (commandVisible || outputVisible) {
-                mainPanel.expandTerminalSplitPane(MainPanel.TerminalSize.EXPAND);
-            }
-            exec();
-            if (commandVisible || outputVisible) {
-                mainPanel.expandTerminalSplitPane(MainPanel.TerminalSize.COLLAPSE);
+        try {
+            if (!connectionThread.isConnectionEstablished()) {
+                if (execCallback != null) {
+                    execCallback.doneError("not connected", 139);
+                }
+            } else {
+                if (commandVisible || outputVisible) {
+                    mainPanel.expandTerminalSplitPane(MainPanel.TerminalSize.EXPAND);
+                }
+                exec();
+                if (commandVisible || outputVisible) {
+                    mainPanel.expandTerminalSplitPane(MainPanel.TerminalSize.COLLAPSE);
+                }
             }
+        } finally {
+            finished.countDown();
         }
     }
 
+    /** Starts the command in one of the command threads. */
+    public void start() {
+        COMMAND_EXECUTOR.execute(this);
+    }
+
+    /** Waits till the command is finished. */
+    public void join() throws InterruptedException {
+        finished.await();
+    }
+
     public void cancelTheSession() {
         cancelIt = true;
+        closeSession();
+    }
+
+    /** Closes the session and gives it back to the pool. */
+    private void closeSession() {
         mSessionLock.lock();
         final Session thisSession;
+        final SessionPool thisSessionPool;
         try {
             thisSession = sess;
+            thisSessionPool = sessionPool;
             sess = null;
+            sessionPool = null;
         } finally {
             mSessionLock.unlock();
         }
-        if (thisSession != null) {
+        if (thisSession == null) {
+            return;
+        }
+        if (thisSessionPool == null) {
             thisSession.close();
+        } else {
+            thisSessionPool.closeSession(thisSession);
         }
     }
 
     static private class ConnectionTimeout {
-        private boolean timeout = false;
+        private volatile boolean timeout = false;
+        private SharedTimer.Task timeoutTask = null;
 
         private void setTimeout() {
             timeout = true;
@@ -140,6 +193,14 @@ public final class ExecCommandThread extends Thread {
         private boolean wasTimeout() {
             return timeout;
         }
+
+        /** The session was opened or it failed, the timeout is not needed. */
+        private void cancel() {
+            setTimeout();
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+            }
+        }
     }
 
     public ExecCommandThread block() {
@@ -157,16 +218,30 @@ public final class ExecCommandThread extends Thread {
         final String[] commands = command.split(";;;");
         final StringBuilder ans = new StringBuilder("");
         for (final String command1 : commands) {
+            final SshConnection sshConnection;
+            try {
+                sshConnection = connectionThread.getConnection();
+                if (!eventStream && !sshConnection.getSessionPool().acquire(getSessionWaitTimeout())) {
+                    handleNoFreeSession(sshConnection);
+                    return;
+                }
+            } catch (final IOException e) {
+                handleSshSessionFailure();
+                break;
+            }
             final ConnectionTimeout connectionTimeout = setupConnectionTimeout();
             try {
-                openSshSession(connectionTimeout);
+                openSshSession(sshConnection, connectionTimeout);
             } catch (final IOException e) {
+                connectionTimeout.cancel();
+                closeSession();
                 handleSshSessionFailure();
                 break;
             }
             final String cmd = command1.trim();
             writeCommandToTerminal(cmd);
             final SshOutput ret = execOneCommand(cmd);
+            closeSession();
             ans.append(ret.getOutput());
             final int exitCode = ret.getExitCode();
             if (exitCode != 0) {
@@ -204,29 +279,61 @@ public final class ExecCommandThread extends Thread {
         }
     }
 
-    private void openSshSession(final ConnectionTimeout connectionTimeout)
+    /**
+     * The command waited for a free session longer than its timeout, the
+     * connection is still fine, so it is not closed.
+     */
+    private void handleNoFreeSession(final SshConnection sshConnection) {
+        LOG.appWarning("handleNoFreeSession: " + host.getName() + ": no free ssh session for: " + command
+                       + ", " + sshConnection.getSessionPool().getMetrics());
+        if (execCallback != null) {
+            execCallback.doneError("no free session", 45);
+        }
+    }
+
+    /** Returns how long to wait for a free session, the command timeout or the default one, if it has none. */
+    private long getSessionWaitTimeout() {
+        if (sshCommandTimeout > 0) {
+            return sshCommandTimeout;
+        }
+        return Ssh.DEFAULT_COMMAND_TIMEOUT;
+    }
+
+    private void openSshSession(final SshConnection sshConnection, final ConnectionTimeout connectionTimeout)
             throws IOException {
         /* it may hang here if we lost connection, so it will be
          * interrupted after a timeout. */
-        final Session newSession = connectionThread.getConnection().openSession();
+        final SessionPool newSessionPool;
+        final Session newSession;
+        if (eventStream) {
+            newSessionPool = null;
+            newSession = sshConnection.openSession();
+        } else {
+            newSessionPool = sshConnection.getSessionPool();
+            newSession = newSessionPool.openSession(sshConnection);
+        }
         mSessionLock.lock();
         try {
             sess = newSession;
+            sessionPool = newSessionPool;
         } finally {
             mSessionLock.unlock();
         }
         if (connectionTimeout.wasTimeout()) {
             throw new IOException("open session failed");
         }
-        connectionTimeout.setTimeout();
+        connectionTimeout.cancel();
     }
 
     private ConnectionTimeout setupConnectionTimeout() {
         final ConnectionTimeout connectionTimeout = new ConnectionTimeout();
-        final Thread thread = new Thread(new Runnable() {
+        final int timeout = Tools.getDefaultInt("SSH.ConnectTimeout");
+        if (timeout <= 0) {
+            return connectionTimeout;
+        }
+        connectionTimeout.timeoutTask = SharedTimer.schedule(new Runnable() {
             @Override
             public void run() {
-                Tools.sleep(Tools.getDefaultInt("SSH.ConnectTimeout"));
                 if (!connectionTimeout.wasTimeout()) {
                     LOG.debug1("run: " + host.getName() + ": open ssh session: timeout");
                     connectionTimeout.setTimeout();
@@ -240,8 +347,7 @@ public final class ExecCommandThread extends Thread {
                     }
                 }
             }
-        });
-        thread.start();
+        }, timeout);
         return connectionTimeout;
     }
 
@@ -292,8 +398,7 @@ public final class ExecCommandThread extends Thread {
             if (ec != null) {
                 exitCode = ec;
             }
-            thisSession.close();
-            sess = null;
+            closeSession();
         } catch (final IOException e) {
             LOG.appWarning("execOneCommand: " + host.getName() + ':' + e.getMessage() + ':' + oneCommand);
             exitCode = ERROR_EXIT_CODE;
@@ -386,7 +491,7 @@ public final class ExecCommandThread extends Thread {
             if (cancelIt) {
                 return res.toString();
             }
-            if (newOutputCallback == null) {
+            if (newOutputCallback == null && newRawOutputCallback == null) {
                 res.append(output);
             }
         }
@@ -405,6 +510,9 @@ public final class ExecCommandThread extends Thread {
         while (stdout.available() > 0 && !cancelIt) {
             final int len = stdout.read(buff);
             if (len > 0) {
+                if (newRawOutputCallback != null) {
+                    newRawOutputCallback.output(buff, 0, len);
+                }
                 final String buffString = new String(buff, 0, len, ENCODING);
                 output.append(buffString);
                 if (outputVisible) {
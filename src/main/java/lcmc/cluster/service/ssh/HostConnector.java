@@ -0,0 +1,194 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.cluster.service.ssh;
+
+import java.awt.Window;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import lcmc.cluster.ui.SSHGui;
+import lcmc.common.domain.Application;
+import lcmc.host.domain.Host;
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * Connects the hosts of the clusters. The first host of a cluster is
+ * connected alone and the other hosts are connected at the same time with
+ * its key or password. The hosts of all clusters share one pool of threads,
+ * so that not more than the configured number of hosts are connected at the
+ * same time. The first hosts of the clusters are connected one after
+ * another, so that the others can use their password. The other hosts,
+ * that still need a password, wait for each other's dialogs in SSHGui.
+ */
+@Named
+@Singleton
+public class HostConnector {
+    private static final Logger LOG = LoggerFactory.getLogger(HostConnector.class);
+    @Inject
+    private Application application;
+    private final Lock mAuthenticationLock = new ReentrantLock(true);
+    private ExecutorService connectExecutor = null;
+
+    /**
+     * Connects the hosts and waits till they are connected or failed.
+     * Returns false, if the connection to the first host was canceled.
+     */
+    public boolean connectHosts(final Collection<Host> hosts,
+                                final Window rootPane,
+                                final boolean progressIndicator,
+                                final int index) {
+        final List<Host> notConnectedHosts = new ArrayList<Host>();
+        for (final Host host : hosts) {
+            host.setIsLoading();
+            if (host.isConnected()) {
+                host.setLoadingDone();
+            } else {
+                notConnectedHosts.add(host);
+            }
+        }
+        if (notConnectedHosts.isEmpty()) {
+            return true;
+        }
+        final long start = System.currentTimeMillis();
+        final Map<Host, Long> connectTimes = new LinkedHashMap<Host, Long>();
+        final Host firstHost = notConnectedHosts.remove(0);
+        mAuthenticationLock.lock();
+        try {
+            connectTimes.put(firstHost, connectHost(firstHost, rootPane, progressIndicator, index));
+        } finally {
+            mAuthenticationLock.unlock();
+        }
+        if (firstHost.getSSH().isConnectionCanceled()) {
+            return false;
+        }
+        if (firstHost.isConnected()) {
+            /* try the others with the same password/key. */
+            final String dsaKey = firstHost.getSSH().getLastSuccessfulDsaKey();
+            final String rsaKey = firstHost.getSSH().getLastSuccessfulRsaKey();
+            final String pwd = firstHost.getSSH().getLastSuccessfulPassword();
+            for (final Host host : notConnectedHosts) {
+                host.getSSH().setPasswords(dsaKey, rsaKey, pwd);
+            }
+        }
+        final Map<Host, Future<Long>> futures = new LinkedHashMap<Host, Future<Long>>();
+        for (final Host host : notConnectedHosts) {
+            futures.put(host, getConnectExecutor().submit(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return connectHost(host, rootPane, progressIndicator, index);
+                }
+            }));
+        }
+        for (final Map.Entry<Host, Future<Long>> hostFuture : futures.entrySet()) {
+            try {
+                connectTimes.put(hostFuture.getKey(), hostFuture.getValue().get());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            } catch (final ExecutionException e) {
+                LOG.appWarning("connectHosts: " + hostFuture.getKey().getName() + ": " + e.getCause(), e);
+            }
+        }
+        LOG.info("connectHosts: " + connectTimes.size() + " host(s) connected in "
+                 + (System.currentTimeMillis() - start) + " ms: " + formatConnectTimes(connectTimes));
+        return true;
+    }
+
+    /** Connects the host and returns how long it took in milliseconds. */
+    private long connectHost(final Host host,
+                             final Window rootPane,
+                             final boolean progressIndicator,
+                             final int index) {
+        final long start = System.currentTimeMillis();
+        if (rootPane == null) {
+            host.connect(null, progressIndicator, index);
+        } else {
+            host.connect(new SSHGui(rootPane, host, null), progressIndicator, index);
+        }
+        host.getSSH().waitForConnection();
+        final long connectTime = System.currentTimeMillis() - start;
+        LOG.debug1("connectHost: " + host.getName() + (host.isConnected() ? " connected" : " failed")
+                   + " in " + connectTime + " ms");
+        return connectTime;
+    }
+
+    private String formatConnectTimes(final Map<Host, Long> connectTimes) {
+        final StringBuilder text = new StringBuilder();
+        for (final Map.Entry<Host, Long> hostTime : connectTimes.entrySet()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            final Host host = hostTime.getKey();
+            text.append(host.getName()).append(' ').append(hostTime.getValue()).append(" ms");
+            if (!host.isConnected()) {
+                text.append(" (failed)");
+            }
+        }
+        return text.toString();
+    }
+
+    private synchronized ExecutorService getConnectExecutor() {
+        if (connectExecutor == null) {
+            final int connectThreads = application.getConnectThreads();
+            LOG.debug1("getConnectExecutor: connect " + connectThreads + " hosts at the same time");
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(connectThreads,
+                                                                       connectThreads,
+                                                                       60,
+                                                                       TimeUnit.SECONDS,
+                                                                       new LinkedBlockingQueue<Runnable>(),
+                                                                       new ConnectThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+            connectExecutor = executor;
+        }
+        return connectExecutor;
+    }
+
+    /** Daemon threads, so that a hanging connection doesn't keep the application running. */
+    private static final class ConnectThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "host-connect-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.cluster.service.ssh;
+
+import ch.ethz.ssh2.Session;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * Limits the number of sessions, that are open at the same time on one ssh
+ * connection. The sshd closes the sessions above its MaxSessions limit, so
+ * the commands, that don't get a session, wait for one in a fifo queue, but
+ * not longer than their timeout. An ssh session can execute only one
+ * command, so the sessions are not reused, only their number is limited.
+ * The event streams, that run as long as the connection, are not in the
+ * pool, so that they can't take all the sessions.
+ */
+final class SessionPool {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionPool.class);
+    private final int maxSessions;
+    private final Semaphore sessionPermits;
+    private final AtomicInteger openSessions = new AtomicInteger(0);
+    private final AtomicInteger maxQueueLength = new AtomicInteger(0);
+    private final AtomicLong acquiredSessions = new AtomicLong(0);
+    private final AtomicLong timedOutSessions = new AtomicLong(0);
+    private final AtomicLong waitNanos = new AtomicLong(0);
+    private final AtomicLong openedSessions = new AtomicLong(0);
+    private final AtomicLong openLatencyNanos = new AtomicLong(0);
+    private final AtomicLong maxOpenLatencyNanos = new AtomicLong(0);
+
+    SessionPool(final int maxSessions) {
+        this.maxSessions = maxSessions;
+        sessionPermits = new Semaphore(maxSessions, true);
+    }
+
+    /**
+     * Waits in the queue till a session is free and returns true, or
+     * returns false after the timeout in milliseconds. After that the
+     * session must be opened with the openSession method or given back with
+     * the release method.
+     */
+    boolean acquire(final long timeout) throws IOException {
+        final long start = System.nanoTime();
+        final int queueLength = sessionPermits.getQueueLength() + 1;
+        if (queueLength > maxQueueLength.get()) {
+            maxQueueLength.set(queueLength);
+        }
+        try {
+            if (!sessionPermits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                timedOutSessions.incrementAndGet();
+                return false;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("acquire: interrupted while waiting for a session");
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+        acquiredSessions.incrementAndGet();
+        return true;
+    }
+
+    void release() {
+        sessionPermits.release();
+    }
+
+    /**
+     * Opens the acquired session, that must be closed with the closeSession
+     * method. If it fails the session is released.
+     */
+    Session openSession(final SshConnection sshConnection) throws IOException {
+        final long start = System.nanoTime();
+        final Session session;
+        try {
+            session = sshConnection.openSession();
+        } catch (final IOException e) {
+            release();
+            throw e;
+        } catch (final RuntimeException e) {
+            release();
+            throw e;
+        }
+        final long latency = System.nanoTime() - start;
+        openSessions.incrementAndGet();
+        openedSessions.incrementAndGet();
+        openLatencyNanos.addAndGet(latency);
+        if (latency > maxOpenLatencyNanos.get()) {
+            maxOpenLatencyNanos.set(latency);
+        }
+        LOG.debug2("openSession: " + TimeUnit.NANOSECONDS.toMillis(latency) + " ms, " + getMetrics());
+        return session;
+    }
+
+    void closeSession(final Session session) {
+        session.close();
+        openSessions.decrementAndGet();
+        release();
+    }
+
+    /** Returns how many commands wait for a session. */
+    int getQueueLength() {
+        return sessionPermits.getQueueLength();
+    }
+
+    int getOpenSessions() {
+        return openSessions.get();
+    }
+
+    /** Returns average time in milliseconds of waiting in the queue. */
+    double getAverageWaitTime() {
+        final long acquired = acquiredSessions.get();
+        if (acquired == 0) {
+            return 0;
+        }
+        return waitNanos.get() / 1000000.0 / acquired;
+    }
+
+    /** Returns average time in milliseconds of opening a session. */
+    double getAverageOpenLatency() {
+        final long opened = openedSessions.get();
+        if (opened == 0) {
+            return 0;
+        }
+        return openLatencyNanos.get() / 1000000.0 / opened;
+    }
+
+    String getMetrics() {
+        return "sessions: " + openSessions.get() + '/' + maxSessions
+               + ", queue: " + getQueueLength()
+               + ", max queue: " + maxQueueLength.get()
+               + ", avg wait: " + String.format("%.1f", getAverageWaitTime()) + " ms"
+               + ", timed out: " + timedOutSessions.get()
+               + ", opened: " + openedSessions.get()
+               + ", avg open: " + String.format("%.1f", getAverageOpenLatency()) + " ms"
+               + ", max open: " + TimeUnit.NANOSECONDS.toMillis(maxOpenLatencyNanos.get()) + " ms";
+    }
+}
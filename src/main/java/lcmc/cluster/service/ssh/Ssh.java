@@ -24,9 +24,17 @@ package lcmc.cluster.service.ssh;
 
 import ch.ethz.ssh2.LocalPortForwarder;
 import ch.ethz.ssh2.SCPClient;
+import ch.ethz.ssh2.SCPOutputStream;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
 
 import lcmc.common.ui.main.MainData;
 import lcmc.common.ui.MainPanel;
@@ -61,6 +69,11 @@ public class Ssh {
     private static final String MESSAGE_CANCELED = "canceled";
     private static final String LOGOUT_COMMAND = "logout";
     private static final SshOutput NOT_CONNECTED_ERROR = new SshOutput("", 112);
+    private static final String GUI_HELPER_FILE = "/help-progs/lcmc-gui-helper";
+    private static final String GUI_HELPER_TMP_DIR = "/tmp";
+    /** The gui helper from the jar and its digest, they are the same for all hosts. */
+    private static volatile byte[] cachedGuiHelper = null;
+    private static volatile String cachedGuiHelperDigest = null;
     /** SSHGui object for enter password dialogs etc. */
     private SSHGui sshGui;
     /** Callback when connection is failed or properly closed. */
@@ -354,15 +367,113 @@ public class Ssh {
                                 .capture(mainPanel, progressIndicator);
     }
 
-    /** Installs gui-helper on the remote host. */
+    /**
+     * Installs gui-helper on the remote host, if the sha256 digest of the
+     * installed one differs. It is copied gzipped with scp into a temporary
+     * file and unpacked on the host.
+     */
     public void installGuiHelper() {
-        if (!application.getKeepHelper()) {
-            final String fileName = "/help-progs/lcmc-gui-helper";
-            final String file = Tools.getFile(fileName);
-            if (file != null) {
-                scp(file, "@GUI-HELPER-PROG@", "0700", false, null, null, null);
+        if (application.getKeepHelper()) {
+            return;
+        }
+        final byte[] guiHelper = getGuiHelper();
+        if (guiHelper == null) {
+            return;
+        }
+        final String digest = getGuiHelperDigest(guiHelper);
+        final SshOutput remoteDigest = execCommandAndWait(new ExecCommandConfig()
+                                                              .command(DistResource.SUDO
+                                                                       + "sha256sum @GUI-HELPER-PROG@ 2>/dev/null")
+                                                              .silentCommand()
+                                                              .silentOutput()
+                                                              .sshCommandTimeout(10000));
+        if (remoteDigest.isSuccess() && remoteDigest.getOutput().trim().startsWith(digest + ' ')) {
+            LOG.debug1("installGuiHelper: " + host.getName() + ": gui helper is up to date");
+            return;
+        }
+        if (!copyGuiHelper(guiHelper)) {
+            LOG.debug1("installGuiHelper: " + host.getName() + ": scp failed, install with echo");
+            scp(new String(guiHelper, StandardCharsets.UTF_8), "@GUI-HELPER-PROG@", "0700", false, null, null, null);
+        }
+    }
+
+    /** Returns false, if the gui helper could not be copied. */
+    private boolean copyGuiHelper(final byte[] guiHelper) {
+        final ConnectionThread ct = connectionThread;
+        if (ct == null || !ct.isConnectionEstablished()) {
+            return false;
+        }
+        final byte[] compressed;
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(guiHelper.length / 3);
+            final GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+            gzip.write(guiHelper);
+            gzip.close();
+            compressed = bytes.toByteArray();
+        } catch (final IOException e) {
+            LOG.appWarning("copyGuiHelper: cannot compress the gui helper: " + e.getMessage());
+            return false;
+        }
+        final String tmpName = "lcmc-gui-helper-" + UUID.randomUUID() + ".gz";
+        try {
+            final SCPOutputStream out = new SCPClient(ct.getConnection()).put(tmpName,
+                                                                              compressed.length,
+                                                                              GUI_HELPER_TMP_DIR,
+                                                                              "0600");
+            try {
+                out.write(compressed);
+            } finally {
+                out.close();
+            }
+        } catch (final IOException e) {
+            LOG.appWarning("copyGuiHelper: " + host.getName() + ": could not copy: " + e.getMessage());
+            return false;
+        }
+        final String tmpFile = GUI_HELPER_TMP_DIR + '/' + tmpName;
+        final SshOutput ret = execCommandAndWait(new ExecCommandConfig()
+                .command(DistResource.SUDO + "bash -c '"
+                         + "mkdir -p /usr/local/bin"
+                         + " && gunzip -c " + tmpFile + " > @GUI-HELPER-PROG@.new"
+                         + " && chmod 0700 @GUI-HELPER-PROG@.new"
+                         + " && mv @GUI-HELPER-PROG@.new @GUI-HELPER-PROG@;"
+                         + " ret=$?; rm -f " + tmpFile + "; exit $ret'")
+                .silentCommand()
+                .silentOutput()
+                .sshCommandTimeout(10000));
+        if (!ret.isSuccess()) {
+            LOG.appWarning("copyGuiHelper: " + host.getName() + ": could not install: " + ret.getExitCode());
+            return false;
+        }
+        LOG.debug1("copyGuiHelper: " + host.getName() + ": copied " + compressed.length + " of "
+                   + guiHelper.length + " bytes");
+        return true;
+    }
+
+    private static byte[] getGuiHelper() {
+        byte[] guiHelper = cachedGuiHelper;
+        if (guiHelper == null) {
+            final URL url = Ssh.class.getResource(GUI_HELPER_FILE);
+            if (url == null) {
+                return null;
+            }
+            try {
+                guiHelper = Resources.toByteArray(url);
+            } catch (final IOException e) {
+                LOG.appError("getGuiHelper: could not read: " + GUI_HELPER_FILE, "", e);
+                return null;
             }
+            cachedGuiHelper = guiHelper;
+        }
+        return guiHelper;
+    }
+
+    private static String getGuiHelperDigest(final byte[] guiHelper) {
+        String digest = cachedGuiHelperDigest;
+        if (digest == null) {
+            digest = Hashing.sha256().hashBytes(guiHelper).toString();
+            cachedGuiHelperDigest = digest;
         }
+        return digest;
     }
 
     /** Installs test suite on the remote host. */
@@ -21,11 +21,13 @@ package lcmc.cluster.service.ssh;
 
 import ch.ethz.ssh2.Connection;
 import ch.ethz.ssh2.channel.ChannelManager;
+import lcmc.common.domain.util.Tools;
 
 /** Connection class that can cancel it's connection during openSession. */
 public class SshConnection extends Connection {
     private boolean canceled = false;
     private boolean disconnectForGood = false;
+    private final SessionPool sessionPool = new SessionPool(Tools.getDefaultInt("SSH.MaxSessions"));
 
     SshConnection(final String hostname, final int port) {
         super(hostname, port);
@@ -57,4 +59,8 @@ public class SshConnection extends Connection {
     boolean isDisconnectedForGood() {
         return disconnectForGood;
     }
+
+    SessionPool getSessionPool() {
+        return sessionPool;
+    }
 }
\ No newline at end of file
@@ -33,6 +33,7 @@ import lcmc.cluster.ui.network.NetworkPresenter;
 import lcmc.common.domain.Application;
 import lcmc.common.domain.ExecCallback;
 import lcmc.common.domain.NewOutputCallback;
+import lcmc.common.domain.util.SharedTimer;
 import lcmc.common.domain.util.Tools;
 import lcmc.common.ui.*;
 import lcmc.common.ui.main.MainData;
@@ -80,7 +81,9 @@ import java.awt.*;
 import java.awt.geom.Point2D;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -159,6 +162,10 @@ public class ClusterBrowser extends Browser {
                                    new ArrayList<String>(Arrays.asList(CRM_TIMEOUT_PARAMETER, CRM_INTERVAL_PARAMETER));
     private static final String RESET_STRING = "---reset---\r\n";
     private static final int RESET_STRING_LEN = RESET_STRING.length();
+    /** Interval of the pings and of the hw info daemon restarts. */
+    private static final long SERVER_STATUS_INTERVAL = 10000;
+    /** At most one refresh after the drbd events in this many milliseconds. */
+    private static final long DRBD_REFRESH_INTERVAL = 100;
     /** Match ...by-res/r0 or by-res/r0/0 from DRBD 8.4. */
     private static final Pattern DEV_DRBD_BY_RES_PATTERN = Pattern.compile("^/dev/drbd/by-res/([^/]+)(?:/(\\d+))?$");
     /** Hash that holds all hb classes with descriptions that appear in the
@@ -239,6 +246,8 @@ public class ClusterBrowser extends Browser {
     private final Map<String, Map<String, ServiceInfo>> nameToServiceInfoHash =
                                 new TreeMap<String, Map<String, ServiceInfo>>(String.CASE_INSENSITIVE_ORDER);
     private final Lock mNameToServiceLock = new ReentrantLock();
+    /** Incremented, when the combo boxes with the services have to be reloaded. */
+    private final AtomicLong servicesVersion = new AtomicLong(0);
     private final Lock mDrbdResHashLock = new ReentrantLock();
     private final Map<String, ResourceInfo> drbdResourceNameHash = new HashMap<String, ResourceInfo>();
     private final Lock mDrbdDevHashLock = new ReentrantLock();
@@ -262,13 +271,34 @@ public class ClusterBrowser extends Browser {
     private final Lock mVmsWriteLock = mVmsLock.writeLock();
     private final Lock mVmsUpdateLock = new ReentrantLock();
     private final Map<Host, VmsXml> vmsXML = new HashMap<Host, VmsXml>();
+    /** Domain name -> domain info in the vms node, sorted by the name. */
+    private final NavigableMap<String, DomainInfo> domainInfoIndex = new TreeMap<String, DomainInfo>();
+    /** Vms xmls, that were shown in the last updateVms. */
+    private final Map<Host, VmsXml> shownVmsXmls = new HashMap<Host, VmsXml>();
     private DRBDtestData drbdtestData;
     private boolean drbdStatusCanceledByUser = false;
     /** Whether hb status was canceled by user. */
     private boolean crmStatusCanceledByUser = false;
+    /** Whether the crm status was stopped to get the whole cib again. */
+    private volatile boolean crmStatusStoppedForResync = false;
     private final Lock mPtestLock = new ReentrantLock();
     private final Lock mDrbdTestDataLock = new ReentrantLock();
     private volatile boolean serverStatusCanceled = false;
+    /** Refreshes the drbd graph and the tables after the drbd events. */
+    private final DrbdRefreshCoalescer drbdRefreshCoalescer = new DrbdRefreshCoalescer(
+            DRBD_REFRESH_INTERVAL,
+            new Runnable() {
+                @Override
+                public void run() {
+                    drbdGraph.repaint();
+                    clusterHostsInfo.updateTable(ClusterHostsInfo.MAIN_TABLE);
+                    repaintSplitPane();
+                    drbdGraph.updatePopupMenus();
+                    clusterTreeMenu.repaintMenuTree();
+                }
+            });
+    /** Periodic pings and restarts of the hw info daemons. */
+    private final Collection<SharedTimer.Task> serverStatusTasks = new CopyOnWriteArrayList<SharedTimer.Task>();
     private Host lastDcHostDetected = null;
     /** dc host as reported by crm. */
     private Host dcHostReportedByCrm = null;
@@ -647,45 +677,43 @@ public class ClusterBrowser extends Browser {
     void startServerStatus() {
         final Host[] hosts = cluster.getHostsArray();
         for (final Host host : hosts) {
-            final Thread thread = new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    startServerStatus(host);
-                }
-            });
-            thread.start();
+            startServerStatus(host);
         }
     }
 
     private void startPing(final Host host) {
-        while (true) {
-            host.startPing();
-            Tools.sleep(10000);
-            if (serverStatusCanceled) {
-                break;
+        serverStatusTasks.add(SharedTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if (!serverStatusCanceled) {
+                    host.startPing();
+                }
             }
-        }
+        }, 0, SERVER_STATUS_INTERVAL));
     }
 
-    /** Start polling of the server status on one host. */
+    /**
+     * Start polling of the server status on one host. The hw info daemon
+     * runs till it's stopped or till it fails, then it is started again.
+     */
     void startServerStatus(final Host host) {
         final String hostName = host.getName();
         final CategoryInfo[] infosToUpdate = new CategoryInfo[]{clusterHostsInfo};
-        while (true) {
-            if (host.getHostParser().getWaitForServerStatusLatch()) {
-                progressIndicator.startProgressIndicator(hostName, Tools.getString("ClusterBrowser.UpdatingServerInfo"));
-            }
+        serverStatusTasks.add(SharedTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if (serverStatusCanceled) {
+                    return;
+                }
+                if (host.getHostParser().getWaitForServerStatusLatch()) {
+                    progressIndicator.startProgressIndicator(hostName,
+                                                             Tools.getString("ClusterBrowser.UpdatingServerInfo"));
+                }
 
-            host.setIsLoading();
-            host.getHostParser().startHWInfoDaemon(infosToUpdate, new ResourceGraph[]{drbdGraph, crmGraph});
-            if (serverStatusCanceled) {
-                break;
-            }
-            Tools.sleep(10000);
-            if (serverStatusCanceled) {
-                break;
+                host.setIsLoading();
+                host.getHostParser().startHWInfoDaemon(infosToUpdate, new ResourceGraph[]{drbdGraph, crmGraph});
             }
-        }
+        }, 0, SERVER_STATUS_INTERVAL));
     }
 
     public void updateServerStatus(final Host host) {
@@ -718,7 +746,7 @@ public class ClusterBrowser extends Browser {
     public void periodicalVmsUpdate(final Host host) {
         final VmsXml newVmsXml = vmsXmlProvider.get();
         newVmsXml.init(host);
-        if (newVmsXml.parseXml()) {
+        if (newVmsXml.parseXml(getVmsXml(host))) {
             vmsXmlPut(host, newVmsXml);
             updateVms();
         }
@@ -735,7 +763,7 @@ public class ClusterBrowser extends Browser {
         for (final Host host : hosts) {
             final VmsXml newVmsXml = vmsXmlProvider.get();
             newVmsXml.init(host);
-            if (newVmsXml.parseXml()) {
+            if (newVmsXml.parseXml(getVmsXml(host))) {
                 vmsXmlPut(host, newVmsXml);
                 updated = true;
             }
@@ -762,13 +790,7 @@ public class ClusterBrowser extends Browser {
     void startConnectionStatusOnAllHosts() {
         final Host[] hosts = cluster.getHostsArray();
         for (final Host host : hosts) {
-            final Thread pingThread = new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    startPing(host);
-                }
-            });
-            pingThread.start();
+            startPing(host);
             host.startConnectionStatus();
         }
     }
@@ -888,7 +910,9 @@ public class ClusterBrowser extends Browser {
                            outputBuffer.append(output);
                            String drbdConfig, event;
                            boolean drbdUpdate = false;
-                           boolean eventUpdate = false;
+                           int events = 0;
+                           boolean drbdChanged = false;
+                           final Collection<BlockDevInfo> changedBlockDevInfos = new ArrayList<BlockDevInfo>();
                            do {
                                host.drbdStatusLock();
                                drbdConfig = host.getHostParser().getOutput("drbd", outputBuffer);
@@ -902,9 +926,15 @@ public class ClusterBrowser extends Browser {
                                }
                                host.drbdStatusUnlock();
                                event = host.getHostParser().getOutput("event", outputBuffer);
-                               if (event != null && drbdXml.parseDrbdEvent(host.getName(), drbdGraph, event)) {
-                                   host.setDrbdStatusOk(true);
-                                   eventUpdate = true;
+                               if (event != null) {
+                                   events++;
+                                   if (drbdXml.parseDrbdEvent(host.getName(),
+                                                              drbdGraph,
+                                                              event,
+                                                              changedBlockDevInfos)) {
+                                       host.setDrbdStatusOk(true);
+                                       drbdChanged = true;
+                                   }
                                }
                            } while (event != null || drbdConfig != null);
                            Tools.chomp(outputBuffer);
@@ -917,21 +947,11 @@ public class ClusterBrowser extends Browser {
                                    }
                                });
                            }
-                           if (eventUpdate) {
-                               drbdGraph.repaint();
+                           drbdRefreshCoalescer.eventsReceived(events);
+                           if (drbdChanged) {
                                LOG.debug1("drbd status update: " + host.getName());
-                               clusterHostsInfo.updateTable(ClusterHostsInfo.MAIN_TABLE);
                                firstTime.countDown();
-                               final Thread thread = new Thread(
-                                   new Runnable() {
-                                       @Override
-                                       public void run() {
-                                           repaintSplitPane();
-                                           drbdGraph.updatePopupMenus();
-                                           clusterTreeMenu.repaintMenuTree();
-                                       }
-                                   });
-                               thread.start();
+                               drbdRefreshCoalescer.blockDevicesChanged(changedBlockDevInfos);
                            }
                        }
                    });
@@ -953,6 +973,10 @@ public class ClusterBrowser extends Browser {
 
     public void stopServerStatus() {
         serverStatusCanceled = true;
+        for (final SharedTimer.Task task : serverStatusTasks) {
+            task.cancel();
+        }
+        serverStatusTasks.clear();
         final Host[] hosts = cluster.getHostsArray();
         for (final Host host : hosts) {
             host.getHostParser().stopServerStatus();
@@ -1063,6 +1087,12 @@ public class ClusterBrowser extends Browser {
                                 } else {
                                     setCrmStatus(host, false);
                                 }
+                                if (clusterStatus0.isCibResyncNeeded() && !crmStatusStoppedForResync) {
+                                    /* the cluster events are restarted
+                                     * and send the whole cib. */
+                                    crmStatusStoppedForResync = true;
+                                    host.stopCrmStatus();
+                                }
                             }
                         }
                         firstTime.countDown();
@@ -1113,6 +1143,9 @@ public class ClusterBrowser extends Browser {
                 continue;
             }
             //clStatusCanceled = false;
+            /* the restarted command sends the whole cib first */
+            crmStatusStoppedForResync = false;
+            clusterStatus.clearCibResyncNeeded();
             host.execCrmStatusCommand(
                     new ExecCallback() {
                         @Override
@@ -1127,6 +1160,11 @@ public class ClusterBrowser extends Browser {
                             if (firstTime.getCount() == 1) {
                                 LOG.debug2("startClStatus: status failed: " + host.getName() + ", ec: " + exitCode);
                             }
+                            if (crmStatusStoppedForResync) {
+                                /* stopped to get the whole cib again */
+                                firstTime.countDown();
+                                return;
+                            }
                             clStatusLock();
                             clusterStatus.setOnlineNode(host.getName(), "no");
                             setCrmStatus(host, false);
@@ -1155,6 +1193,11 @@ public class ClusterBrowser extends Browser {
             if (crmStatusCanceledByUser) {
                 break;
             }
+            if (crmStatusStoppedForResync) {
+                /* restart right away, the events were stopped only to get
+                 * the whole cib. */
+                continue;
+            }
             try {
                 Thread.sleep(5000);
             } catch (final InterruptedException ex) {
@@ -1190,32 +1233,45 @@ public class ClusterBrowser extends Browser {
     public void updateVms() {
         LOG.debug1("updateVMS: status update");
         final Collection<String> domainNames = new TreeSet<String>();
+        final Collection<String> changedDomainNames = new HashSet<String>();
+        final Collection<DefaultMutableTreeNode> nodesToRemove = new ArrayList<DefaultMutableTreeNode>();
+        final Collection<DomainInfo> currentVMSVDIs = new ArrayList<DomainInfo>();
+
+        mVmsUpdateLock.lock();
         for (final Host host : getClusterHosts()) {
             final VmsXml vmsXml = getVmsXml(host);
-            if (vmsXml != null) {
+            if (vmsXml == null) {
+                final VmsXml shownVmsXml = shownVmsXmls.remove(host);
+                if (shownVmsXml != null) {
+                    changedDomainNames.addAll(shownVmsXml.getDomainNames());
+                }
+            } else {
                 domainNames.addAll(vmsXml.getDomainNames());
+                changedDomainNames.addAll(vmsXml.getChangedDomainNames(shownVmsXmls.put(host, vmsXml)));
             }
         }
-        final Collection<DefaultMutableTreeNode> nodesToRemove = new ArrayList<DefaultMutableTreeNode>();
-        final Collection<DomainInfo> currentVMSVDIs = new ArrayList<DomainInfo>();
-
-        mVmsUpdateLock.lock();
         boolean nodeChanged = false;
         if (vmsNode != null) {
-            for (final Object info : clusterTreeMenu.nodesToInfos(vmsNode.children())) {
-                final DomainInfo domainInfo = (DomainInfo) info;
-                if (domainNames.contains(domainInfo.toString())) {
+            final Iterator<Map.Entry<String, DomainInfo>> it = domainInfoIndex.entrySet().iterator();
+            while (it.hasNext()) {
+                final Map.Entry<String, DomainInfo> entry = it.next();
+                final DomainInfo domainInfo = entry.getValue();
+                if (domainInfo.getNode() == null) {
+                    /* removed from the tree */
+                    it.remove();
+                } else if (domainNames.contains(entry.getKey())) {
                     /* keeping */
                     currentVMSVDIs.add(domainInfo);
-                    domainNames.remove(domainInfo.toString());
-                    domainInfo.updateParameters(); /* update old */
-                } else {
-                    if (!domainInfo.getResource().isNew()) {
-                        /* remove not existing vms */
-                        nodesToRemove.add(domainInfo.getNode());
-                        domainInfo.setNode(null);
-                        nodeChanged = true;
+                    domainNames.remove(entry.getKey());
+                    if (changedDomainNames.contains(entry.getKey())) {
+                        domainInfo.updateParameters(); /* update old */
                     }
+                } else if (!domainInfo.getResource().isNew()) {
+                    /* remove not existing vms */
+                    nodesToRemove.add(domainInfo.getNode());
+                    domainInfo.setNode(null);
+                    it.remove();
+                    nodeChanged = true;
                 }
             }
         }
@@ -1225,19 +1281,31 @@ public class ClusterBrowser extends Browser {
             mVmsUpdateLock.unlock();
             return;
         }
+        Map<String, DomainInfo> notIndexedDomainInfos = null;
         for (final String domainName : domainNames) {
-            int i = 0;
-            for (final Object info : clusterTreeMenu.nodesToInfos(vmsNode.children())) {
-                final DomainInfo domainInfo = (DomainInfo) info;
-                final String name = domainInfo.getName();
-                if (domainName != null && name != null && domainName.compareTo(domainInfo.getName()) < 0) {
-                    break;
-                }
-                i++;
+            if (notIndexedDomainInfos == null) {
+                notIndexedDomainInfos = getNotIndexedDomainInfos();
+            }
+            final DomainInfo newDomainInfo = notIndexedDomainInfos.get(domainName);
+            if (newDomainInfo != null) {
+                /* new vm that was created in the gui */
+                domainInfoIndex.put(domainName, newDomainInfo);
+                currentVMSVDIs.add(newDomainInfo);
+                newDomainInfo.updateParameters();
+                continue;
+            }
+            /* add new vms nodes before the next one in the index */
+            final Map.Entry<String, DomainInfo> next = domainInfoIndex.higherEntry(domainName);
+            int i = -1;
+            if (next != null) {
+                i = vmsNode.getIndex(next.getValue().getNode());
+            }
+            if (i < 0) {
+                i = vmsNode.getChildCount();
             }
-            /* add new vms nodes */
             final DomainInfo domainInfo = domainInfoProvider.get();
             domainInfo.einit(domainName, this);
+            domainInfoIndex.put(domainName, domainInfo);
             currentVMSVDIs.add(domainInfo);
             clusterTreeMenu.createMenuItem(vmsNode, domainInfo, i);
             domainInfo.updateParameters();
@@ -1263,6 +1331,19 @@ public class ClusterBrowser extends Browser {
         }
     }
 
+    /** Returns domain infos in the vms node, that are not in the index yet. */
+    private Map<String, DomainInfo> getNotIndexedDomainInfos() {
+        final Map<String, DomainInfo> domainInfos = new HashMap<String, DomainInfo>();
+        for (final Object info : clusterTreeMenu.nodesToInfos(vmsNode.children())) {
+            final DomainInfo domainInfo = (DomainInfo) info;
+            final String name = domainInfo.toString();
+            if (domainInfoIndex.get(name) != domainInfo) {
+                domainInfos.put(name, domainInfo);
+            }
+        }
+        return domainInfos;
+    }
+
     public VMListInfo getVmsInfo() {
         return (VMListInfo) vmsNode.getUserObject();
     }
@@ -1912,25 +1993,42 @@ public class ClusterBrowser extends Browser {
         return values;
     }
 
+    /**
+     * Reloads the combo boxes with the other services in the panels, that
+     * are shown now. The hidden panels reload them, when they are shown
+     * again.
+     */
     public void reloadAllComboBoxes(final ServiceInfo exceptThisOne) {
+        final long version = servicesVersion.incrementAndGet();
+        if (exceptThisOne != null) {
+            exceptThisOne.skipComboBoxesReload(version);
+        }
+        final Collection<ServiceInfo> serviceInfos = new ArrayList<ServiceInfo>();
+        lockNameToServiceInfo();
+        try {
+            for (final Map<String, ServiceInfo> idToInfoHash : nameToServiceInfoHash.values()) {
+                serviceInfos.addAll(idToInfoHash.values());
+            }
+        } finally {
+            unlockNameToServiceInfo();
+        }
         swingUtils.invokeInEdt(new Runnable() {
             @Override
             public void run() {
-                lockNameToServiceInfo();
-                for (final String name : nameToServiceInfoHash.keySet()) {
-                    final Map<String, ServiceInfo> idToInfoHash = nameToServiceInfoHash.get(name);
-                    for (final Map.Entry<String, ServiceInfo> serviceEntry : idToInfoHash.entrySet()) {
-                        final ServiceInfo si = serviceEntry.getValue();
-                        if (si != exceptThisOne) {
-                            si.reloadComboBoxes();
-                        }
+                for (final ServiceInfo si : serviceInfos) {
+                    if (si.isInfoPanelShowing()) {
+                        si.reloadComboBoxesIfChanged();
                     }
                 }
-                unlockNameToServiceInfo();
             }
         });
     }
 
+    /** Returns the version of the services, that changes, when a service is added, removed or renamed. */
+    public long getServicesVersion() {
+        return servicesVersion.get();
+    }
+
     /** Returns object that holds data of all VMs. */
     public VmsXml getVmsXml(final Host host) {
         mVmsReadLock.lock();
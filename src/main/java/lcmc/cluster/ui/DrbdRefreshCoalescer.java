@@ -0,0 +1,106 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.cluster.ui;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lcmc.common.domain.util.SharedTimer;
+import lcmc.drbd.ui.resource.BlockDevInfo;
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * Collects the block devices, that were changed by the drbd events, and
+ * refreshes them and the drbd graph at most once per frame interval, so
+ * that during the resync there is not a refresh for every event.
+ */
+final class DrbdRefreshCoalescer {
+    private static final Logger LOG = LoggerFactory.getLogger(DrbdRefreshCoalescer.class);
+    private final long frameInterval;
+    /** Refreshes the graph, the tables and the menus. */
+    private final Runnable refresh;
+    private final Collection<BlockDevInfo> dirtyBlockDevInfos = new LinkedHashSet<BlockDevInfo>();
+    private boolean refreshScheduled = false;
+    private long lastRefresh = 0;
+    private final AtomicLong eventsReceived = new AtomicLong(0);
+    private final AtomicLong refreshesPerformed = new AtomicLong(0);
+
+    /** The frame interval is in milliseconds. */
+    DrbdRefreshCoalescer(final long frameInterval, final Runnable refresh) {
+        this.frameInterval = frameInterval;
+        this.refresh = refresh;
+    }
+
+    /** Counts the events, also the ones, that didn't change anything. */
+    void eventsReceived(final int events) {
+        eventsReceived.addAndGet(events);
+    }
+
+    /** Marks the block devices as changed by the events and schedules the refresh. */
+    void blockDevicesChanged(final Collection<BlockDevInfo> changedBlockDevInfos) {
+        final long delay;
+        synchronized (this) {
+            dirtyBlockDevInfos.addAll(changedBlockDevInfos);
+            if (refreshScheduled) {
+                return;
+            }
+            refreshScheduled = true;
+            delay = Math.max(0, lastRefresh + frameInterval - System.currentTimeMillis());
+        }
+        SharedTimer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, delay);
+    }
+
+    long getEventsReceived() {
+        return eventsReceived.get();
+    }
+
+    long getRefreshesPerformed() {
+        return refreshesPerformed.get();
+    }
+
+    private void refresh() {
+        final List<BlockDevInfo> blockDevInfos;
+        synchronized (this) {
+            blockDevInfos = new ArrayList<BlockDevInfo>(dirtyBlockDevInfos);
+            dirtyBlockDevInfos.clear();
+            refreshScheduled = false;
+            lastRefresh = System.currentTimeMillis();
+        }
+        for (final BlockDevInfo bdi : blockDevInfos) {
+            bdi.updateInfo();
+        }
+        refresh.run();
+        refreshesPerformed.incrementAndGet();
+        LOG.debug2("refresh: block devices: {}, events: {}, refreshes: {}",
+                   blockDevInfos.size(),
+                   eventsReceived.get(),
+                   refreshesPerformed.get());
+    }
+}
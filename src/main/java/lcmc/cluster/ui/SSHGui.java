@@ -31,6 +31,8 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.swing.BoxLayout;
 import javax.swing.JApplet;
 import javax.swing.JDialog;
@@ -55,6 +57,8 @@ import lcmc.common.domain.util.Tools;
 public final class SSHGui {
     private static final Logger LOG = LoggerFactory.getLogger(SSHGui.class);
     private static final int DEFAULT_FIELD_LENGTH = 20;
+    /** Only one dialog is shown at a time, also if the hosts are connected at the same time. */
+    private static final Lock DIALOG_LOCK = new ReentrantLock(true);
     /** Root pane on which the dialogs are comming to. */
     private final Container rootPane;
     private final Host host;
@@ -70,7 +74,12 @@ public final class SSHGui {
     /** Displays Confirm Dialog whith Yes, No, Cancel options. */
     public int getConfirmDialogChoice(final String message) {
         LOG.debug("getConfirmDialogChoice: start");
-        return JOptionPane.showConfirmDialog(rootPane, message);
+        DIALOG_LOCK.lock();
+        try {
+            return JOptionPane.showConfirmDialog(rootPane, message);
+        } finally {
+            DIALOG_LOCK.unlock();
+        }
     }
 
     /** Checks if choice is yes option. */
@@ -89,18 +98,23 @@ public final class SSHGui {
                                        final String underText,
                                        final String defaultValue,
                                        final boolean isPassword) {
-        final EnterSomethingDialog esd;
-        if (rootPane instanceof JDialog) {
-            esd = new EnterSomethingDialog((JDialog) rootPane, title, content, underText, defaultValue, isPassword);
-        } else if (rootPane instanceof JApplet) {
-            esd = new EnterSomethingDialog((JApplet) rootPane, title, content, underText, defaultValue, isPassword);
-        } else {
-            esd = new EnterSomethingDialog((Frame) rootPane, title, content, underText, defaultValue, isPassword);
-        }
+        DIALOG_LOCK.lock();
+        try {
+            final EnterSomethingDialog esd;
+            if (rootPane instanceof JDialog) {
+                esd = new EnterSomethingDialog((JDialog) rootPane, title, content, underText, defaultValue, isPassword);
+            } else if (rootPane instanceof JApplet) {
+                esd = new EnterSomethingDialog((JApplet) rootPane, title, content, underText, defaultValue, isPassword);
+            } else {
+                esd = new EnterSomethingDialog((Frame) rootPane, title, content, underText, defaultValue, isPassword);
+            }
 
-        esd.setVisible(true);
+            esd.setVisible(true);
 
-        return esd.answer;
+            return esd.answer;
+        } finally {
+            DIALOG_LOCK.unlock();
+        }
     }
 
     /**
@@ -67,6 +67,7 @@ public class Application {
     public static final String PM_CLONE_SET_NAME = "Clone Set";
     public static final String PM_MASTER_SLAVE_SET_NAME = "Master/Slave Set";
     public static final String PACEMAKER_GROUP_NAME = "Group";
+    public static final int DEFAULT_CONNECT_THREADS = 8;
     public static boolean isLive(final RunMode runMode) {
         return RunMode.LIVE == runMode;
     }
@@ -98,12 +99,22 @@ public class Application {
     /** Auto options, that make automatic actions in the gui. */
     private final Table<String, String, String> autoOptions = HashBasedTable.create();
     private int vncPortOffset = 0;
+    /** How many hosts are connected at the same time. */
+    private int connectThreads = DEFAULT_CONNECT_THREADS;
     private boolean useTightvnc = false;
     private boolean useUltravnc = false;
     private boolean useRealvnc = false;
     private boolean stagingDrbd = false;
     private boolean stagingPacemaker = false;
     private boolean hideLRM = false;
+    /** Whether only the changed parts of the cib should be parsed. */
+    private boolean incrementalCibParsing = true;
+    /** Whether the cib should be parsed with the streaming parser. */
+    private boolean staxCibParsing = false;
+    /** Whether only the changed parts of the cib should be sent from the cluster. */
+    private boolean cibPatches = true;
+    /** Whether the hw info daemon should send its output in frames. */
+    private boolean hwInfoFrames = true;
     private boolean upgradeCheckEnabled = true;
     private boolean bigDRBDConf = false;
     private boolean oneHostCluster = false;
@@ -391,6 +402,14 @@ public class Application {
         this.vncPortOffset = vncPortOffset;
     }
 
+    public int getConnectThreads() {
+        return connectThreads;
+    }
+
+    public void setConnectThreads(final int connectThreads) {
+        this.connectThreads = connectThreads;
+    }
+
     public void setUseTightvnc(final boolean useTightvnc) {
         this.useTightvnc = useTightvnc;
     }
@@ -415,6 +434,38 @@ public class Application {
         return hideLRM;
     }
 
+    public void setIncrementalCibParsing(final boolean incrementalCibParsing) {
+        this.incrementalCibParsing = incrementalCibParsing;
+    }
+
+    public boolean isIncrementalCibParsing() {
+        return incrementalCibParsing;
+    }
+
+    public void setStaxCibParsing(final boolean staxCibParsing) {
+        this.staxCibParsing = staxCibParsing;
+    }
+
+    public boolean isStaxCibParsing() {
+        return staxCibParsing;
+    }
+
+    public void setCibPatches(final boolean cibPatches) {
+        this.cibPatches = cibPatches;
+    }
+
+    public boolean isCibPatches() {
+        return cibPatches;
+    }
+
+    public void setHwInfoFrames(final boolean hwInfoFrames) {
+        this.hwInfoFrames = hwInfoFrames;
+    }
+
+    public boolean isHwInfoFrames() {
+        return hwInfoFrames;
+    }
+
     /**
      * Sets whether the drbd packages should be downloaded from staging
      * directory for testing.
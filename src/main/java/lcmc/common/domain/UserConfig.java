@@ -210,6 +210,7 @@ public final class UserConfig extends XMLTools {
 
     /**
      * Starts specified clusters and connects to the hosts of this clusters.
+     * The clusters are connected at the same time.
      */
     public void startClusters(final Collection<Cluster> selectedClusters) {
         final Set<Cluster> clusters = allClusters.getClusterSet();
@@ -228,19 +229,19 @@ public final class UserConfig extends XMLTools {
                 if (cluster.getHosts().isEmpty()) {
                     continue;
                 }
-                final boolean ok = cluster.connect(null, true, 1);
-                if (!ok) {
-                    swingUtils.invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
-                            clustersPanel.removeTabWithCluster(cluster);
-                        }
-                    });
-                    continue;
-                }
                 final Runnable runnable = new Runnable() {
                     @Override
                     public void run() {
+                        final boolean ok = cluster.connect(null, true, 1);
+                        if (!ok) {
+                            swingUtils.invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    clustersPanel.removeTabWithCluster(cluster);
+                                }
+                            });
+                            return;
+                        }
                         for (final Host host : cluster.getHosts()) {
                             host.waitOnLoading();
                         }
@@ -0,0 +1,151 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.common.domain.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * One timer for all the timeouts, pings and periodic status tasks, instead
+ * of a sleeping thread for every one of them. The timer thread only starts
+ * the tasks, they run in worker threads, that are reused, so that a task,
+ * that blocks, doesn't delay the other ones.
+ */
+public final class SharedTimer {
+    private static final Logger LOG = LoggerFactory.getLogger(SharedTimer.class);
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1,
+                                                                                            daemonThreads("timer"));
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(daemonThreads("timer-task"));
+
+    static {
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private SharedTimer() {
+    }
+
+    /** Runs the task once after the delay in milliseconds. */
+    public static Task schedule(final Runnable runnable, final long delay) {
+        final Task task = new Task(runnable, -1);
+        task.scheduleNext(delay);
+        return task;
+    }
+
+    /**
+     * Runs the task after the initial delay and then again and again, always
+     * the delay in milliseconds after the previous run finished.
+     */
+    public static Task scheduleWithFixedDelay(final Runnable runnable, final long initialDelay, final long delay) {
+        final Task task = new Task(runnable, delay);
+        task.scheduleNext(initialDelay);
+        return task;
+    }
+
+    /** Returns the number of the tasks, that wait for their time. */
+    public static int getScheduledTasks() {
+        return TIMER.getQueue().size();
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, name + '-' + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /** Handle of the scheduled task, that can be cancelled. */
+    public static final class Task {
+        private final Runnable runnable;
+        /** Delay between the runs or -1 if it runs only once. */
+        private final long delay;
+        private volatile boolean cancelled = false;
+        private ScheduledFuture<?> scheduledFuture = null;
+
+        private Task(final Runnable runnable, final long delay) {
+            this.runnable = runnable;
+            this.delay = delay;
+        }
+
+        /**
+         * Cancels the task. It won't be started anymore, but it is not
+         * interrupted, if it is running now.
+         */
+        public void cancel() {
+            cancelled = true;
+            final ScheduledFuture<?> future;
+            synchronized (this) {
+                future = scheduledFuture;
+            }
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private synchronized void scheduleNext(final long nextDelay) {
+            if (cancelled) {
+                return;
+            }
+            scheduledFuture = TIMER.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    WORKERS.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            runTask();
+                        }
+                    });
+                }
+            }, nextDelay, TimeUnit.MILLISECONDS);
+        }
+
+        private void runTask() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                runnable.run();
+            } catch (final RuntimeException e) {
+                LOG.appError("runTask: task failed", e);
+            } finally {
+                if (delay >= 0) {
+                    scheduleNext(delay);
+                }
+            }
+        }
+    }
+}
@@ -170,7 +170,7 @@ public final class EditConfig extends ConfigDialog {
         }
         for (final ExecCommandThread t : threads) {
             try {
-                t.join(0);
+                t.join();
             } catch (final InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
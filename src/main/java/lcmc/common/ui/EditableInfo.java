@@ -33,6 +33,7 @@ import lcmc.common.domain.Application;
 import lcmc.common.domain.ResourceValue;
 import lcmc.common.domain.Unit;
 import lcmc.common.domain.Value;
+import lcmc.common.domain.util.SharedTimer;
 import lcmc.common.domain.util.Tools;
 import lcmc.common.ui.utils.ButtonCallback;
 import lcmc.common.ui.utils.MyButton;
@@ -49,9 +50,13 @@ import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -68,8 +73,14 @@ public abstract class EditableInfo extends Info {
     private static final Logger LOG = LoggerFactory.getLogger(EditableInfo.class);
     /** Whether is's a wizard element. */
     public static final boolean WIZARD = true;
+    /** After the last change, the parameters are checked with this delay in milliseconds. */
+    private static final long CHECK_PARAMETERS_DELAY = 200;
+    /** Compiled regexps of the parameters. */
+    private static final Map<String, Pattern> REGEXP_PATTERNS = new ConcurrentHashMap<String, Pattern>();
     /** Hash from parameter to boolean value if the last entered value was correct. */
     private final Map<String, Boolean> paramCorrectValueMap = new ConcurrentHashMap<String, Boolean>();
+    /** Apply button of the panel -> changes, that wait for the check. */
+    private final Map<MyButton, PendingCheck> pendingChecks = new HashMap<MyButton, PendingCheck>();
     private final Table<String, String, JPanel> sectionPanels = HashBasedTable.create();
     /** Old apply button, is used for wizards. */
     private MyButton oldApplyButton = null;
@@ -423,63 +434,88 @@ public abstract class EditableInfo extends Info {
         return moreOptionsPanel;
     }
 
-    /** Checks ands sets paramter fields. */
+    /**
+     * Checks ands sets paramter fields. The changes in one panel are
+     * collected and checked together, after there were no other changes for
+     * the check delay, so that not every key stroke is checked.
+     */
     public void checkParameterFields(final Widget paramWi,
                                      final Widget realParamWi,
                                      final String param,
                                      final String[] params,
                                      final MyButton thisApplyButton) {
-        final Thread thread = new Thread(new Runnable() {
+        if (realParamWi != null) {
+            swingUtils.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (paramWi.getValue() == null || paramWi.getValue().isNothingSelected()) {
+                        realParamWi.setValueAndWait(null);
+                    } else {
+                        final Value value = paramWi.getValue();
+                        realParamWi.setValueAndWait(value);
+                    }
+                }
+            });
+        }
+        synchronized (pendingChecks) {
+            PendingCheck pendingCheck = pendingChecks.get(thisApplyButton);
+            if (pendingCheck == null) {
+                pendingCheck = new PendingCheck();
+                pendingChecks.put(thisApplyButton, pendingCheck);
+            } else {
+                pendingCheck.task.cancel();
+            }
+            pendingCheck.add(paramWi, realParamWi, param, params);
+            pendingCheck.task = SharedTimer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    checkPendingParameterFields(thisApplyButton);
+                }
+            }, CHECK_PARAMETERS_DELAY);
+        }
+    }
+
+    /** Checks the changes in the panel of the apply button. */
+    private void checkPendingParameterFields(final MyButton thisApplyButton) {
+        final PendingCheck pendingCheck;
+        synchronized (pendingChecks) {
+            pendingCheck = pendingChecks.remove(thisApplyButton);
+        }
+        if (pendingCheck == null) {
+            return;
+        }
+        swingUtils.waitForSwing();
+        final Check check = checkResourceFields(pendingCheck.getParam(), pendingCheck.getParams());
+        swingUtils.invokeLater(new Runnable() {
             @Override
             public void run() {
-                final Check check;
-                if (realParamWi == null) {
-                    swingUtils.waitForSwing();
-                    check = checkResourceFields(param, params);
+                if (resource.get().isNew()) {
+                    check.addChanged("new resource");
+                }
+                if (thisApplyButton == applyButton) {
+                    /* not a wizard button */
+                    if (isDialogStarted()) {
+                        check.addIncorrect("dialog started");
+                    }
+                    thisApplyButton.setEnabled(check);
                 } else {
-                    swingUtils.invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (paramWi.getValue() == null || paramWi.getValue().isNothingSelected()) {
-                                realParamWi.setValueAndWait(null);
-                            } else {
-                                final Value value = paramWi.getValue();
-                                realParamWi.setValueAndWait(value);
-                            }
-                        }
-                    });
-                    swingUtils.waitForSwing();
-                    check = checkResourceFields(param, params);
+                    /* wizard button */
+                    thisApplyButton.setEnabledCorrect(check);
                 }
-                swingUtils.invokeLater(new Runnable() {
-                    @Override
-                    public void run() {
-                        if (resource.get().isNew()) {
-                            check.addChanged("new resource");
-                        }
-                        if (thisApplyButton == applyButton) {
-                            /* not a wizard button */
-                            if (isDialogStarted()) {
-                                check.addIncorrect("dialog started");
-                            }
-                            thisApplyButton.setEnabled(check);
-                        } else {
-                            /* wizard button */
-                            thisApplyButton.setEnabledCorrect(check);
-                        }
-                        if (revertButton != null) {
-                            revertButton.setEnabledChanged(check);
-                        }
-                        final String toolTip = getToolTipText(param, paramWi);
-                        paramWi.setToolTipText(toolTip);
-                        if (realParamWi != null) {
-                            realParamWi.setToolTipText(toolTip);
-                        }
+                if (revertButton != null) {
+                    revertButton.setEnabledChanged(check);
+                }
+                for (final Map.Entry<Widget, String> changedWidget : pendingCheck.changedWidgets.entrySet()) {
+                    final Widget paramWi = changedWidget.getKey();
+                    final String toolTip = getToolTipText(changedWidget.getValue(), paramWi);
+                    paramWi.setToolTipText(toolTip);
+                    final Widget realParamWi = pendingCheck.realWidgets.get(paramWi);
+                    if (realParamWi != null) {
+                        realParamWi.setToolTipText(toolTip);
                     }
-                });
+                }
             }
         });
-        thread.start();
     }
 
     /** Get stored value in the combo box. */
@@ -571,6 +607,15 @@ public abstract class EditableInfo extends Info {
      */
     protected abstract boolean checkParam(String param, Value newValue);
 
+    /**
+     * Returns the parameters, whose correctness or enabled state depends on
+     * the value of the param, they are checked again with the param, the
+     * others are taken from the cache.
+     */
+    protected Collection<String> getParamsDependentOn(final String param) {
+        return Collections.emptySet();
+    }
+
     /** Checks whether this value matches the regexp of this field. */
     protected final boolean checkRegexp(final String param, final Value newValue) {
         String regexp = getParamRegexp(param);
@@ -581,7 +626,11 @@ public abstract class EditableInfo extends Info {
             }
         }
         if (regexp != null) {
-            final Pattern p = Pattern.compile(regexp);
+            Pattern p = REGEXP_PATTERNS.get(regexp);
+            if (p == null) {
+                p = Pattern.compile(regexp);
+                REGEXP_PATTERNS.put(regexp, p);
+            }
             if (newValue == null || newValue.isNothingSelected()) {
                 return true;
             }
@@ -717,6 +766,7 @@ public abstract class EditableInfo extends Info {
      * one value is changed and we don't want to check everything.
      */
     public Check checkResourceFields(final String param, final String[] params) {
+        final Collection<String> dependentParams = param == null ? null : getParamsDependentOn(param);
         /* check if values are correct */
         final List<String> incorrect = new ArrayList<String>();
         final List<String> changed = new ArrayList<String>();
@@ -739,7 +789,10 @@ public abstract class EditableInfo extends Info {
 
                 /* check correctness */
                 final Boolean correctValueCache = (otherParam == null) ? null : paramCorrectValueMap.get(otherParam);
-                if (param == null || param.equals(otherParam) || correctValueCache == null) {
+                if (param == null
+                    || param.equals(otherParam)
+                    || correctValueCache == null
+                    || dependentParams.contains(otherParam)) {
                     final Widget wizardWi = getWidget(otherParam, Widget.WIZARD_PREFIX);
                     final String enable = isEnabled(otherParam);
                     if (wizardWi != null) {
@@ -1013,4 +1066,48 @@ public abstract class EditableInfo extends Info {
         }
     }
 
+
+    /** Changes in one panel, that are checked together. */
+    private static final class PendingCheck {
+        private final Collection<String> changedParams = new LinkedHashSet<String>();
+        private boolean allParams = false;
+        /** All the parameters of the panel or null. */
+        private Collection<String> params = null;
+        /** Changed widget -> its parameter. */
+        private final Map<Widget, String> changedWidgets = new LinkedHashMap<Widget, String>();
+        /** Changed wizard widget -> the widget, that gets the same value. */
+        private final Map<Widget, Widget> realWidgets = new HashMap<Widget, Widget>();
+        private SharedTimer.Task task;
+
+        void add(final Widget paramWi, final Widget realParamWi, final String param, final String[] params) {
+            if (param == null) {
+                allParams = true;
+            } else {
+                changedParams.add(param);
+            }
+            if (params != null) {
+                if (this.params == null) {
+                    this.params = new LinkedHashSet<String>();
+                }
+                this.params.addAll(Arrays.asList(params));
+            }
+            changedWidgets.put(paramWi, param);
+            realWidgets.put(paramWi, realParamWi);
+        }
+
+        /** Returns the changed parameter or null, if all have to be checked. */
+        String getParam() {
+            if (allParams || changedParams.size() != 1) {
+                return null;
+            }
+            return changedParams.iterator().next();
+        }
+
+        String[] getParams() {
+            if (params == null) {
+                return null;
+            }
+            return params.toArray(new String[params.size()]);
+        }
+    }
 }
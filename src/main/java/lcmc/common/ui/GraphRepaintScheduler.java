@@ -0,0 +1,82 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.common.ui;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import lcmc.common.domain.util.SharedTimer;
+import lcmc.common.ui.main.MainData;
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * Shows the animation frames of all the graphs, the crm, drbd and vm graphs
+ * of all clusters, from one task on the shared timer. The task runs only
+ * while there is a graph, that is shown and has something to animate.
+ */
+@Named
+@Singleton
+public class GraphRepaintScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(GraphRepaintScheduler.class);
+    @Inject
+    private MainData mainData;
+    private final Collection<ResourceGraph> animatedGraphs = new LinkedHashSet<ResourceGraph>();
+    private SharedTimer.Task frameTask = null;
+
+    /**
+     * Shows the animation frames of the graph, until it has nothing to
+     * animate or it is not visible anymore. The graph locks must not be
+     * held, when this is called.
+     */
+    synchronized void animate(final ResourceGraph graph) {
+        animatedGraphs.add(graph);
+        if (frameTask == null) {
+            final long frameInterval = (long) (1000 / mainData.getAnimFPS());
+            LOG.debug2("animate: start frames every " + frameInterval + " ms");
+            frameTask = SharedTimer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    nextFrame();
+                }
+            }, frameInterval, frameInterval);
+        }
+    }
+
+    private synchronized void nextFrame() {
+        final Iterator<ResourceGraph> it = animatedGraphs.iterator();
+        while (it.hasNext()) {
+            if (!it.next().nextAnimationFrame()) {
+                it.remove();
+            }
+        }
+        if (animatedGraphs.isEmpty() && frameTask != null) {
+            LOG.debug2("nextFrame: nothing to animate, stop");
+            frameTask.cancel();
+            frameTask = null;
+        }
+    }
+}
@@ -66,6 +66,7 @@ import lcmc.logger.LoggerFactory;
 import lcmc.common.ui.utils.MyButton;
 import lcmc.common.domain.util.Tools;
 import lcmc.cluster.service.ssh.ExecCommandConfig;
+import lcmc.cluster.service.ssh.ExecCommandThread;
 
 /**
  * An implementation of an dialog with log files from many hosts.
@@ -165,7 +166,7 @@ public class Logs extends ConfigDialog {
     protected final void refreshLogs() {
         enableAllComponents(false);
         final Host[] hosts = getHosts();
-        final Thread[] threads = new Thread[hosts.length];
+        final ExecCommandThread[] threads = new ExecCommandThread[hosts.length];
         final String[] texts = new String[hosts.length];
 
         final Map<String, String> replaceHash = getOptionsHash();
@@ -196,7 +197,7 @@ public class Logs extends ConfigDialog {
         }
         i = 0;
         final StringBuilder ans = new StringBuilder("");
-        for (final Thread t : threads) {
+        for (final ExecCommandThread t : threads) {
             try {
                 t.join();
             } catch (final InterruptedException e) {
@@ -307,8 +308,9 @@ public class Logs extends ConfigDialog {
         return "";
     }
 
-    protected final String wordBoundary(final String w) {
-        return "\\\\<" + w + "\\\\>";
+    /** Returns the grep pattern, that matches the whole word. */
+    protected static String wordBoundary(final String w) {
+        return "\\<" + w + "\\>";
     }
 
     /** Returns a map from pattern name to its pattern. */
@@ -23,6 +23,7 @@
 package lcmc.common.ui;
 
 import edu.uci.ics.jung.algorithms.layout.GraphElementAccessor;
+import edu.uci.ics.jung.algorithms.layout.Layout;
 import edu.uci.ics.jung.algorithms.layout.StaticLayout;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.util.Context;
@@ -50,6 +51,7 @@ import edu.uci.ics.jung.visualization.decorators.ToStringLabeller;
 import edu.uci.ics.jung.visualization.picking.PickedInfo;
 import edu.uci.ics.jung.visualization.picking.PickedState;
 import edu.uci.ics.jung.visualization.picking.ShapePickSupport;
+import edu.uci.ics.jung.visualization.renderers.BasicRenderer;
 import edu.uci.ics.jung.visualization.renderers.BasicVertexRenderer;
 import edu.uci.ics.jung.visualization.renderers.Renderer;
 import edu.uci.ics.jung.visualization.util.VertexShapeFactory;
@@ -57,13 +59,20 @@ import edu.uci.ics.jung.visualization.util.VertexShapeFactory;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Frame;
 import java.awt.GradientPaint;
 import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.Rectangle;
 import java.awt.Shape;
+import java.awt.Window;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowStateListener;
 import java.awt.font.FontRenderContext;
 import java.awt.font.TextLayout;
 import java.awt.geom.Area;
@@ -80,6 +89,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -90,6 +100,7 @@ import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollBar;
+import javax.swing.SwingUtilities;
 
 import lcmc.common.domain.Application;
 import lcmc.common.domain.ColorText;
@@ -121,6 +132,13 @@ public abstract class ResourceGraph {
     private static final Path2D HOLLOW_INSTANCE = new Path2D.Float();
     private static final Paint EDGE_DRAW_PAINT = Tools.getDefaultColor("ResourceGraph.EdgeDrawPaint");
     private static final Paint EDGE_PICKED_PAINT = Tools.getDefaultColor("ResourceGraph.EdgePickedPaint");
+    /** Below this zoom the icons and the small texts are not drawn. */
+    private static final double LEVEL_OF_DETAIL_SCALE = 0.6;
+    /** Space around the vertices and edges, for the outlines, arrows and labels. */
+    private static final int CULLING_MARGIN = 50;
+    private static final int TEXT_LAYOUT_CACHE_SIZE = 2000;
+    /** Space around the vertex, that is repainted with the animation. */
+    private static final int VERTEX_REPAINT_MARGIN = 5;
     static {
         final float d = 0.05f;
         for (float i = 0; i < 1.0f; i += d) {
@@ -150,8 +168,6 @@ public abstract class ResourceGraph {
     private final Collection<JComponent> testAnimationList = new ArrayList<JComponent>();
     /** This mutex is for protecting the test animation list. */
     private final Lock mTestAnimationListLock = new ReentrantLock();
-    private volatile Thread animationThread = null;
-    private final Lock mAnimationThreadLock = new ReentrantLock();
     private final Map<Vertex, Integer> vertexWidth = new HashMap<Vertex, Integer>();
     private final Map<Vertex, Integer> vertexHeight = new HashMap<Vertex, Integer>();
     /** Whether something in the graph changed that requires visualizationViewer to restart. */
@@ -160,8 +176,10 @@ public abstract class ResourceGraph {
     /** Whether only test or real thing should show. */
     private volatile Application.RunMode runModeFlag = Application.RunMode.LIVE;
     private final Lock mRunModeFlag = new ReentrantLock();
-    private volatile Thread testAnimationThread = null;
-    private final Lock mTestAnimationThreadLock = new ReentrantLock();
+    /** The test animation starts, after this latch is released. */
+    private CountDownLatch startTestLatch = null;
+    /** When the run mode is inverted next time during the test animation. */
+    private volatile long nextRunModeSwitch = 0;
     /** List of edges that are made only during test. */
     private volatile Edge testEdge = null;
     /** List of edges that are being tested during test. */
@@ -171,153 +189,77 @@ public abstract class ResourceGraph {
     private Application application;
     @Inject
     private SwingUtils swingUtils;
-    private final Map<String, TextLayout> textLayoutCache = new HashMap<String, TextLayout>();
+    private final TextLayoutCache textLayoutCache = new TextLayoutCache(TEXT_LAYOUT_CACHE_SIZE);
     private double scaledSoFar = 1.0;
+    /** How long the last rendering of the graph took in nanoseconds. */
+    private volatile long lastFrameTime = 0;
+    private final AtomicLong framesRendered = new AtomicLong(0);
+    private final AtomicLong totalFrameTime = new AtomicLong(0);
 
     private ClusterBrowser clusterBrowser;
     @Inject
     private MainData mainData;
     @Inject
     private ProgressIndicator progressIndicator;
+    @Inject
+    private GraphRepaintScheduler graphRepaintScheduler;
+    /** The window, whose deiconifying resumes the animation. */
+    private Window listenedWindow = null;
+    private final WindowStateListener windowStateListener = new WindowStateListener() {
+        @Override
+        public void windowStateChanged(final WindowEvent e) {
+            if ((e.getNewState() & Frame.ICONIFIED) == 0) {
+                resumeAnimation();
+            }
+        }
+    };
 
     /** Starts the animation if vertex is being updated. */
     public final void startAnimation(final Info info) {
-        final int animInterval = (int) (1000 / mainData.getAnimFPS());
         mAnimationListLock.lock();
-        if (animationList.isEmpty()) {
-            /* start animation thread */
-            mAnimationThreadLock.lock();
-            if (animationThread == null) {
-                animationThread = new Thread(new Runnable() {
-                    @Override
-                    public void run() {
-                        while (true) {
-                            try {
-                                Thread.sleep(animInterval);
-                            } catch (final InterruptedException ex) {
-                                Thread.currentThread().interrupt();
-                            }
-
-                            mAnimationListLock.lock();
-                            if (animationList.isEmpty()) {
-                                mAnimationListLock.unlock();
-                                repaint();
-                                mAnimationThreadLock.lock();
-                                animationThread = null;
-                                mAnimationThreadLock.unlock();
-                                break;
-                            }
-                            for (final Info animation : animationList) {
-                                animation.incAnimationIndex();
-                            }
-                            mAnimationListLock.unlock();
-                            repaint();
-                        }
-                    }
-                });
-                animationThread.start();
-            }
-            mAnimationThreadLock.unlock();
+        try {
+            animationList.add(info);
+        } finally {
+            mAnimationListLock.unlock();
         }
-        animationList.add(info);
-        mAnimationListLock.unlock();
+        graphRepaintScheduler.animate(this);
     }
 
     public final void stopAnimation(final Info info) {
+        final boolean removed;
         mAnimationListLock.lock();
         try {
-            animationList.remove(info);
+            removed = animationList.remove(info);
         } finally {
             mAnimationListLock.unlock();
         }
+        if (removed) {
+            repaintVertex(infoToVertexMap.get(info));
+        }
     }
 
     /** Starts the animation if vertex is being tested. */
     public final void startTestAnimation(final JComponent component, final CountDownLatch startTestLatch) {
-        final int animInterval = (int) (1000 / mainData.getAnimFPS());
         mTestAnimationListLock.lock();
-        mRunModeFlag.lock();
-        runModeFlag = Application.RunMode.LIVE;
-        mRunModeFlag.unlock();
-        swingUtils.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                Tools.setMenuOpaque(component, false);
-            }
-        });
-        if (testAnimationList.isEmpty()) {
-            mTestAnimationThreadLock.lock();
-            if (testAnimationThread == null) {
-                /* start test animation thread */
-                testAnimationThread = new Thread(new Runnable() {
-                    @Override
-                    public void run() {
-                        FOREVER: while (true) {
-                            try {
-                                startTestLatch.await();
-                            } catch (final InterruptedException ignored) {
-                                Thread.currentThread().interrupt();
-                            }
-                            mRunModeFlag.lock();
-                            final Application.RunMode runModeFlagLast;
-                            try {
-                                /* invert run mode */
-                                if (Application.isTest(runModeFlag)) {
-                                    runModeFlag = Application.RunMode.LIVE;
-                                } else {
-                                    runModeFlag = Application.RunMode.TEST;
-                                }
-                                runModeFlagLast = runModeFlag;
-                            } finally {
-                                mRunModeFlag.unlock();
-                            }
-                            repaint();
-                            int sleep = 300;
-                            if (Application.isTest(runModeFlag)) {
-                                sleep = 1200;
-                            }
-                            for (int s = 0; s < sleep; s += animInterval) {
-                                mRunModeFlag.lock();
-                                if (runModeFlag == runModeFlagLast) {
-                                    mRunModeFlag.unlock();
-                                } else {
-                                    mRunModeFlag.unlock();
-                                    repaint();
-                                }
-                                if (!component.isShowing()) {
-                                    stopTestAnimation(component);
-                                }
-                                mTestAnimationListLock.lock();
-
-                                if (testAnimationList.isEmpty()) {
-                                    mTestAnimationListLock.unlock();
-                                    mRunModeFlag.lock();
-                                    try {
-                                        runModeFlag = Application.RunMode.LIVE;
-                                    } finally {
-                                        mRunModeFlag.unlock();
-                                    }
-                                    repaint();
-                                    mTestAnimationThreadLock.lock();
-                                    try {
-                                        testAnimationThread = null;
-                                    } finally {
-                                        mTestAnimationThreadLock.unlock();
-                                    }
-                                    break FOREVER;
-                                }
-                                mTestAnimationListLock.unlock();
-                                Tools.sleep(animInterval);
-                            }
-                        }
-                    }
-                });
-                testAnimationThread.start();
+        try {
+            mRunModeFlag.lock();
+            runModeFlag = Application.RunMode.LIVE;
+            mRunModeFlag.unlock();
+            swingUtils.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    Tools.setMenuOpaque(component, false);
+                }
+            });
+            if (testAnimationList.isEmpty()) {
+                this.startTestLatch = startTestLatch;
+                nextRunModeSwitch = 0;
             }
-            mTestAnimationThreadLock.unlock();
+            testAnimationList.add(component);
+        } finally {
+            mTestAnimationListLock.unlock();
         }
-        testAnimationList.add(component);
-        mTestAnimationListLock.unlock();
+        graphRepaintScheduler.animate(this);
     }
 
     public final void stopTestAnimation(final JComponent component) {
@@ -332,6 +274,145 @@ public abstract class ResourceGraph {
         Tools.setMenuOpaque(component, true);
     }
 
+    /**
+     * Shows the next frame of the animations. Returns false if there is
+     * nothing to animate or if the graph can't be seen, then the animation
+     * is resumed, when the graph is shown again.
+     */
+    final boolean nextAnimationFrame() {
+        if (!isGraphVisible()) {
+            return false;
+        }
+        final boolean animating = nextUpdateAnimationFrame();
+        final boolean testAnimating = nextTestAnimationFrame();
+        return animating || testAnimating;
+    }
+
+    /** Moves the progress bars of the vertices, that are being updated. */
+    private boolean nextUpdateAnimationFrame() {
+        final Collection<Info> animations;
+        mAnimationListLock.lock();
+        try {
+            for (final Info animation : animationList) {
+                animation.incAnimationIndex();
+            }
+            animations = new ArrayList<Info>(animationList);
+        } finally {
+            mAnimationListLock.unlock();
+        }
+        for (final Info animation : animations) {
+            repaintVertex(infoToVertexMap.get(animation));
+        }
+        return !animations.isEmpty();
+    }
+
+    /**
+     * Switches between the test and the live view of the whole graph, after
+     * the start test latch was released.
+     */
+    private boolean nextTestAnimationFrame() {
+        final Collection<JComponent> components;
+        final CountDownLatch latch;
+        mTestAnimationListLock.lock();
+        try {
+            components = new ArrayList<JComponent>(testAnimationList);
+            latch = startTestLatch;
+        } finally {
+            mTestAnimationListLock.unlock();
+        }
+        for (final JComponent component : components) {
+            if (!component.isShowing()) {
+                stopTestAnimation(component);
+            }
+        }
+        if (!isTestAnimation()) {
+            if (Application.isTest(getRunMode())) {
+                mRunModeFlag.lock();
+                try {
+                    runModeFlag = Application.RunMode.LIVE;
+                } finally {
+                    mRunModeFlag.unlock();
+                }
+                repaint();
+            }
+            return false;
+        }
+        if (latch != null && latch.getCount() > 0) {
+            return true;
+        }
+        final long now = System.currentTimeMillis();
+        if (now >= nextRunModeSwitch) {
+            final boolean test;
+            mRunModeFlag.lock();
+            try {
+                /* invert run mode */
+                if (Application.isTest(runModeFlag)) {
+                    runModeFlag = Application.RunMode.LIVE;
+                } else {
+                    runModeFlag = Application.RunMode.TEST;
+                }
+                test = Application.isTest(runModeFlag);
+            } finally {
+                mRunModeFlag.unlock();
+            }
+            repaint();
+            nextRunModeSwitch = now + (test ? 1200 : 300);
+        }
+        return true;
+    }
+
+    /** Repaints only the area of the vertex. */
+    private void repaintVertex(final Vertex v) {
+        if (v == null || visualizationViewer == null) {
+            return;
+        }
+        final Point2D p = layout.transform(v);
+        if (p == null) {
+            return;
+        }
+        final int width = getVertexWidth(v) + 2 * VERTEX_REPAINT_MARGIN;
+        final int height = getVertexHeight(v) + 2 * VERTEX_REPAINT_MARGIN;
+        final Shape area = visualizationViewer.getRenderContext().getMultiLayerTransformer().transform(
+                new Rectangle2D.Double(p.getX() - width / 2, p.getY() - height / 2, width, height));
+        visualizationViewer.repaint(area.getBounds());
+    }
+
+    /** Whether the graph is shown and the window is not minimized. */
+    private boolean isGraphVisible() {
+        if (visualizationViewer == null || !visualizationViewer.isShowing()) {
+            return false;
+        }
+        final Window window = SwingUtilities.getWindowAncestor(visualizationViewer);
+        return !(window instanceof Frame) || (((Frame) window).getExtendedState() & Frame.ICONIFIED) == 0;
+    }
+
+    /**
+     * Moves the window state listener to the window, that the graph is in
+     * now. If the graph was removed, the listener is removed from its old
+     * window, so that the window doesn't keep the closed graph.
+     */
+    private void updateWindowStateListener() {
+        final Window window =
+                visualizationViewer.isDisplayable() ? SwingUtilities.getWindowAncestor(visualizationViewer) : null;
+        if (window == listenedWindow) {
+            return;
+        }
+        if (listenedWindow != null) {
+            listenedWindow.removeWindowStateListener(windowStateListener);
+        }
+        if (window != null) {
+            window.addWindowStateListener(windowStateListener);
+        }
+        listenedWindow = window;
+    }
+
+    /** Resumes the paused animation, when the graph is shown again. */
+    private void resumeAnimation() {
+        if (isGraphVisible()) {
+            graphRepaintScheduler.animate(this);
+        }
+    }
+
     final boolean isTestAnimation() {
         mTestAnimationListLock.lock();
         boolean running;
@@ -367,6 +448,20 @@ public abstract class ResourceGraph {
         visualizationViewer = new VisualizationViewer<Vertex, Edge>(layout);
         visualizationViewer.setVertexToolTipTransformer(new MyVertexToolTipFunction<Vertex>());
         visualizationViewer.setEdgeToolTipTransformer(new MyEdgeToolTipFunction<Edge>());
+        visualizationViewer.addHierarchyListener(new HierarchyListener() {
+            @Override
+            public void hierarchyChanged(final HierarchyEvent e) {
+                final long windowChangeFlags = HierarchyEvent.PARENT_CHANGED
+                                               | HierarchyEvent.DISPLAYABILITY_CHANGED
+                                               | HierarchyEvent.SHOWING_CHANGED;
+                if ((e.getChangeFlags() & windowChangeFlags) != 0) {
+                    updateWindowStateListener();
+                }
+                if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                    resumeAnimation();
+                }
+            }
+        });
         initializeRendering(visualizationViewer);
 
         /* scaling */
@@ -421,7 +516,9 @@ public abstract class ResourceGraph {
                 new MyPickableVertexPaintFunction<Vertex>(visualizationViewer.getPickedVertexState(), false));
         renderContext.setVertexDrawPaintTransformer(
                 new MyPickableVertexPaintFunction<Vertex>(visualizationViewer.getPickedVertexState(), true));
-        visualizationServer.getRenderer().setVertexRenderer(pluggableRenderer);
+        final Renderer<Vertex, Edge> renderer = new MyCullingRenderer();
+        renderer.setVertexRenderer(pluggableRenderer);
+        visualizationServer.setRenderer(renderer);
 
         renderContext.setEdgeLabelTransformer(new ToStringLabeller<Edge>());
         visualizationServer.setBackground(Tools.getDefaultColor("ResourceGraph.Background"));
@@ -450,6 +547,24 @@ public abstract class ResourceGraph {
         visualizationViewer.repaint();
     }
 
+    /** Returns how long the last rendering of the graph took in nanoseconds. */
+    public final long getLastFrameTime() {
+        return lastFrameTime;
+    }
+
+    /** Returns the average rendering time of the graph in nanoseconds. */
+    public final long getAverageFrameTime() {
+        final long frames = framesRendered.get();
+        if (frames == 0) {
+            return 0;
+        }
+        return totalFrameTime.get() / frames;
+    }
+
+    public final long getFramesRendered() {
+        return framesRendered.get();
+    }
+
     protected final Graph<Vertex, Edge> getGraph() {
         return graph;
     }
@@ -881,7 +996,7 @@ public abstract class ResourceGraph {
 
     /** Returns layout of the text that will be drawn on the vertex. */
     private TextLayout getVertexTextLayout(final Graphics2D g2d, final String text, final double fontSizeFactor) {
-        final TextLayout ctl = textLayoutCache.get(fontSizeFactor + ":" + text);
+        final TextLayout ctl = textLayoutCache.get(fontSizeFactor, text);
         if (ctl != null) {
             return ctl;
         }
@@ -892,7 +1007,12 @@ public abstract class ResourceGraph {
                                                       font.getStyle(),
                                                       (int) (font.getSize() * fontSizeFactor)),
                                              context);
-        textLayoutCache.put(fontSizeFactor + ":" + text, tl);
+        textLayoutCache.put(fontSizeFactor, text, tl);
+        LOG.debug2("getVertexTextLayout: cached: {}, hits: {}, misses: {}, evictions: {}",
+                   textLayoutCache.size(),
+                   textLayoutCache.getHits(),
+                   textLayoutCache.getMisses(),
+                   textLayoutCache.getEvictions());
         return tl;
     }
 
@@ -1535,6 +1655,10 @@ public abstract class ResourceGraph {
          */
         @Override
         protected final void paintShapeForVertex(final RenderContext<V, E> rc, final V v, final Shape shape) {
+            if (!isDetailed(rc)) {
+                paintShapeWithoutDetails(rc, v, shape);
+                return;
+            }
             final Graphics2D g2d = rc.getGraphicsContext().getDelegate();
             int shapeWidth = getDefaultVertexWidth((Vertex) v);
             int shapeHeight = getDefaultVertexHeight((Vertex) v);
@@ -1703,7 +1827,54 @@ public abstract class ResourceGraph {
                 }
             }
 
-            final Info info = getInfo((Vertex) v);
+            drawAnimation(g2d, (Vertex) v, x, y, shapeWidth, shapeHeight);
+        }
+
+        /**
+         * Paints the shape with the main text only, if the graph is zoomed
+         * out so much, that the icons and the small texts couldn't be read.
+         * The size of the vertex is not changed.
+         */
+        private void paintShapeWithoutDetails(final RenderContext<V, E> rc, final V v, final Shape shape) {
+            final Graphics2D g2d = rc.getGraphicsContext().getDelegate();
+            super.paintShapeForVertex(rc, v, shape);
+            Point2D loc = layout.transform((Vertex) v);
+            loc = rc.getMultiLayerTransformer().transform(Layer.LAYOUT, loc);
+            final int shapeWidth = getVertexWidth((Vertex) v);
+            final int shapeHeight = getVertexHeight((Vertex) v);
+            final double x = loc.getX() - shapeWidth / 2;
+            final double y = loc.getY() - shapeHeight / 2;
+            drawInside((Vertex) v, g2d, x, y, shape);
+            final String mainText = getMainText((Vertex) v, getRunMode());
+            if (mainText != null && !mainText.isEmpty()) {
+                final TextLayout mainTextLayout = getVertexTextLayout(g2d, mainText, 1);
+                final int textW = (int) mainTextLayout.getBounds().getWidth();
+                final int textH = (int) mainTextLayout.getBounds().getHeight();
+                drawVertexText(g2d,
+                               mainTextLayout,
+                               x + shapeWidth / 2 - textW / 2,
+                               y + getDefaultVertexHeight((Vertex) v) / 2 + textH / 2,
+                               new Color(0, 0, 0),
+                               255);
+            }
+            drawAnimation(g2d, (Vertex) v, x, y, shapeWidth, shapeHeight);
+        }
+
+        /** Whether the graph is zoomed in enough to draw the icons and the small texts. */
+        private boolean isDetailed(final RenderContext<V, E> rc) {
+            final double scale = rc.getMultiLayerTransformer().getTransformer(Layer.VIEW).getScale()
+                                 * rc.getMultiLayerTransformer().getTransformer(Layer.LAYOUT).getScale();
+            return scale >= LEVEL_OF_DETAIL_SCALE;
+        }
+
+        /** Draws the progress bar over the vertex, if the animation is running. */
+        private void drawAnimation(final Graphics2D g2d,
+                                   final Vertex v,
+                                   final double x,
+                                   final double y,
+                                   final int shapeWidth,
+                                   final int shapeHeight) {
+            final Info info = getInfo(v);
             mAnimationListLock.lock();
             if (animationList.contains(info)) {
                 /* update animation */
@@ -1722,6 +1893,97 @@ public abstract class ResourceGraph {
         }
     }
 
+    /**
+     * Renders only the edges and vertices, that intersect the clip area,
+     * that is the visible part of the graph or the part that has to be
+     * repainted, and measures how long the rendering took.
+     */
+    private class MyCullingRenderer extends BasicRenderer<ResourceGraph.Vertex, ResourceGraph.Edge> {
+        @Override
+        public void render(final RenderContext<ResourceGraph.Vertex, ResourceGraph.Edge> rc,
+                           final Layout<ResourceGraph.Vertex, ResourceGraph.Edge> layout) {
+            final long start = System.nanoTime();
+            final Rectangle2D visibleArea = getVisibleArea(rc);
+            int culled = 0;
+            try {
+                for (final ResourceGraph.Edge e : layout.getGraph().getEdges()) {
+                    if (isEdgeVisible(layout, e, visibleArea)) {
+                        renderEdge(rc, layout, e);
+                        renderEdgeLabel(rc, layout, e);
+                    } else {
+                        culled++;
+                    }
+                }
+            } catch (final ConcurrentModificationException cme) {
+                rc.getScreenDevice().repaint();
+            }
+            try {
+                for (final ResourceGraph.Vertex v : layout.getGraph().getVertices()) {
+                    if (isVertexVisible(layout, v, visibleArea)) {
+                        renderVertex(rc, layout, v);
+                        renderVertexLabel(rc, layout, v);
+                    } else {
+                        culled++;
+                    }
+                }
+            } catch (final ConcurrentModificationException cme) {
+                rc.getScreenDevice().repaint();
+            }
+            final long frameTime = System.nanoTime() - start;
+            lastFrameTime = frameTime;
+            totalFrameTime.addAndGet(frameTime);
+            framesRendered.incrementAndGet();
+            LOG.debug2("render: frame time: {} ms, culled: {}", frameTime / 1000000, culled);
+        }
+
+        /** Returns the clip area in the layout coordinates or null if everything should be rendered. */
+        private Rectangle2D getVisibleArea(final RenderContext<ResourceGraph.Vertex, ResourceGraph.Edge> rc) {
+            final Rectangle clip = rc.getGraphicsContext().getDelegate().getClipBounds();
+            if (clip == null) {
+                return null;
+            }
+            final Rectangle2D area = rc.getMultiLayerTransformer().inverseTransform(Layer.LAYOUT, clip).getBounds2D();
+            area.setRect(area.getX() - CULLING_MARGIN,
+                         area.getY() - CULLING_MARGIN,
+                         area.getWidth() + 2 * CULLING_MARGIN,
+                         area.getHeight() + 2 * CULLING_MARGIN);
+            return area;
+        }
+
+        private boolean isEdgeVisible(final Layout<ResourceGraph.Vertex, ResourceGraph.Edge> layout,
+                                      final ResourceGraph.Edge e,
+                                      final Rectangle2D visibleArea) {
+            if (visibleArea == null) {
+                return true;
+            }
+            final Pair<ResourceGraph.Vertex> endpoints = layout.getGraph().getEndpoints(e);
+            if (endpoints == null) {
+                return true;
+            }
+            final Point2D p1 = layout.transform(endpoints.getFirst());
+            final Point2D p2 = layout.transform(endpoints.getSecond());
+            if (p1 == null || p2 == null) {
+                return true;
+            }
+            return visibleArea.intersectsLine(p1.getX(), p1.getY(), p2.getX(), p2.getY());
+        }
+
+        private boolean isVertexVisible(final Layout<ResourceGraph.Vertex, ResourceGraph.Edge> layout,
+                                        final ResourceGraph.Vertex v,
+                                        final Rectangle2D visibleArea) {
+            if (visibleArea == null) {
+                return true;
+            }
+            final Point2D p = layout.transform(v);
+            if (p == null) {
+                return true;
+            }
+            final int width = getVertexWidth(v);
+            final int height = getVertexHeight(v);
+            return visibleArea.intersects(p.getX() - width / 2, p.getY() - height / 2, width, height);
+        }
+    }
+
     /**
      * An edge shape that renders as a straight line between
      * the vertex endpoints.
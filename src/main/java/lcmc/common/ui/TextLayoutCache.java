@@ -0,0 +1,121 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.common.ui;
+
+import java.awt.font.TextLayout;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Text layouts of the texts in the graph vertices. The least recently used
+ * layouts are removed, if there are more than maxSize of them, so that the
+ * changing texts, like the sync progress, don't fill the memory. The lookup
+ * doesn't create a new key object.
+ */
+final class TextLayoutCache {
+    private final int maxSize;
+    private final Map<Key, TextLayout> layouts;
+    /** Key that is reused for the lookups. */
+    private final Key lookupKey = new Key(0, "");
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    TextLayoutCache(final int maxSize) {
+        this.maxSize = maxSize;
+        layouts = new LinkedHashMap<Key, TextLayout>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, TextLayout> eldest) {
+                if (size() > TextLayoutCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Returns the cached layout or null. */
+    synchronized TextLayout get(final double fontSizeFactor, final String text) {
+        lookupKey.set(fontSizeFactor, text);
+        final TextLayout textLayout = layouts.get(lookupKey);
+        lookupKey.set(0, "");
+        if (textLayout == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return textLayout;
+    }
+
+    synchronized void put(final double fontSizeFactor, final String text, final TextLayout textLayout) {
+        layouts.put(new Key(fontSizeFactor, text), textLayout);
+    }
+
+    synchronized int size() {
+        return layouts.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static final class Key {
+        private double fontSizeFactor;
+        private String text;
+
+        Key(final double fontSizeFactor, final String text) {
+            set(fontSizeFactor, text);
+        }
+
+        void set(final double fontSizeFactor, final String text) {
+            this.fontSizeFactor = fontSizeFactor;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return Double.compare(fontSizeFactor, other.fontSizeFactor) == 0 && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Double.hashCode(fontSizeFactor) + text.hashCode();
+        }
+    }
+}
@@ -100,6 +100,7 @@ public final class AppDefaults extends ListResourceBundle {
         {"MainMenu.DrbdGuiFiles.Extension",     "lcmc"},
         {"MainMenu.DrbdGuiFiles.Default",       System.getProperty("user.home") + '/' + "lcmc-conf.lcmc"},
         {"MainMenu.DrbdGuiFiles.Old",       System.getProperty("user.home") + '/' + "drbd-gui.drbdg"},
+        {"CrmXml.MetaDataCacheDir",         System.getProperty("user.home") + '/' + ".lcmc/ra-cache"},
 
         /* Colors */
         {"DrbdMC.TableHeader",               BACKGROUND},
@@ -339,6 +340,7 @@ public final class AppDefaults extends ListResourceBundle {
         {"SSH.KexTimeout",           0}, /* milliseconds, 0 no timeout */
         {"SSH.Command.Timeout.Long", 0},     /* milliseconds, 0 no timeout */
         {"SSH.Command.Timeout",      180000}, /* milliseconds */
+        {"SSH.MaxSessions",          6},     /* open sessions per host and 4 event streams, sshd has 10 */
         {"ProgressBar.Sleep",        100},   /* milliseconds */
         {"ProgressBar.Delay",        50},    /* milliseconds */
 
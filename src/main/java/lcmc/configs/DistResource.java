@@ -89,6 +89,7 @@ public final class DistResource extends ListResourceBundle {
 
         {"GetHostAllInfo", SUDO + "@GUI-HELPER@ all"},
         {"HostHWInfoDaemon", SUDO + "@GUI-HELPER@ hw-info-daemon"},
+        {"HostHWInfoDaemonFramed", SUDO + "@GUI-HELPER@ hw-info-daemon framed sections domains"},
         {"GetHostHWInfo", SUDO + "@GUI-HELPER@ hw-info"},
         {"GetHostHWInfoLVM", SUDO + "@GUI-HELPER@ hw-info-lvm"},
         {"GetHostHWInfoLazy", "nice -n 19 " + SUDO + "@GUI-HELPER@ hw-info-lazy"},
@@ -137,10 +138,10 @@ public final class DistResource extends ListResourceBundle {
          SUDO + "@GUI-HELPER@ get-resource-agents quick;"},
 
         {"Heartbeat.getOCFParametersConfigured",
-         SUDO + "@GUI-HELPER@ get-resource-agents configured;"},
+         SUDO + "@GUI-HELPER@ get-resource-agents configured @CACHED-RAS@;"},
 
         {"Heartbeat.getOCFParameters",
-         SUDO + "@GUI-HELPER@ get-resource-agents;"},
+         SUDO + "@GUI-HELPER@ get-resource-agents all @CACHED-RAS@;"},
 
         /* vmxpath env is needed so that vmware meta-data does not hang */
         {"Heartbeat.getClusterMetadata",
@@ -149,6 +150,9 @@ public final class DistResource extends ListResourceBundle {
         {"Heartbeat.getClStatus",
          SUDO + "@GUI-HELPER@ get-cluster-events"},
 
+        {"Heartbeat.getClStatusPatch",
+         SUDO + "@GUI-HELPER@ get-cluster-events patch"},
+
         {"Heartbeat.startHeartbeat",
          SUDO + "/etc/init.d/heartbeat start"},
 
@@ -389,6 +393,9 @@ public final class DistResource extends ListResourceBundle {
         {"VMSXML.GetData",
          SUDO + "@GUI-HELPER@ get-vm-info"},
 
+        {"VMSXML.RequestFullInfo",
+         SUDO + "@GUI-HELPER@ request-full-vm-info"},
+
         {"VIRSH.Autostart",
          SUDO + "/usr/bin/virsh @OPTIONS@ autostart @VALUE@ @DOMAIN@ 2>/dev/null"},
 
@@ -0,0 +1,137 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class holds data that were parsed from one <node_state> element of
+ * the cib status section. It doesn't depend on the cib configuration, so it
+ * can be reused as long as the node_state element doesn't change.
+ */
+final class CibNodeStatus {
+    private final String uname;
+    private final String id;
+    private final boolean online;
+    private final boolean pending;
+    /** Resource id -> fail count. */
+    private final Map<String, String> failCounts = new LinkedHashMap<String, String>();
+    /** Resource id -> clone ids of failed clones. */
+    private final Map<String, Set<String>> failedClones = new LinkedHashMap<String, Set<String>>();
+    private String pingCount = null;
+    private final List<LrmResource> lrmResources = new ArrayList<LrmResource>();
+
+    CibNodeStatus(final String uname, final String id, final boolean online, final boolean pending) {
+        this.uname = uname;
+        this.id = id;
+        this.online = online;
+        this.pending = pending;
+    }
+
+    String getUname() {
+        return uname;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    boolean isOnline() {
+        return online;
+    }
+
+    boolean isPending() {
+        return pending;
+    }
+
+    void putFailCount(final String resId, final String value) {
+        failCounts.put(resId, value);
+    }
+
+    Map<String, String> getFailCounts() {
+        return failCounts;
+    }
+
+    void addFailedClone(final String crmId, final String cloneId) {
+        Set<String> clones = failedClones.get(crmId);
+        if (clones == null) {
+            clones = new LinkedHashSet<String>();
+            failedClones.put(crmId, clones);
+        }
+        clones.add(cloneId);
+    }
+
+    Map<String, Set<String>> getFailedClones() {
+        return failedClones;
+    }
+
+    void setPingCount(final String pingCount) {
+        this.pingCount = pingCount;
+    }
+
+    String getPingCount() {
+        return pingCount;
+    }
+
+    void addLrmResource(final LrmResource lrmResource) {
+        lrmResources.add(lrmResource);
+    }
+
+    List<LrmResource> getLrmResources() {
+        return lrmResources;
+    }
+
+    /** Resource from the <lrm_resources> section. */
+    static final class LrmResource {
+        private final String crmId;
+        private final String raClass;
+        private final String provider;
+        private final String type;
+
+        LrmResource(final String crmId, final String raClass, final String provider, final String type) {
+            this.crmId = crmId;
+            this.raClass = raClass;
+            this.provider = provider;
+            this.type = type;
+        }
+
+        String getCrmId() {
+            return crmId;
+        }
+
+        String getRaClass() {
+            return raClass;
+        }
+
+        String getProvider() {
+            return provider;
+        }
+
+        String getType() {
+            return type;
+        }
+    }
+}
@@ -84,6 +84,58 @@ final class CibQuery {
     private Map<String, String> rscDefaultsParams = new HashMap<String, String>();
     private Map<String, String> rscDefaultsParamsNvpairIds = new HashMap<String, String>();
     private Map<String, Value> opDefaultsParams = new HashMap<String, Value>();
+    /** Node uname -> node id from the configuration section. */
+    private Map<String, String> nodeIds = new HashMap<String, String>();
+
+    /**
+     * Returns a copy of this object with the data from the configuration
+     * section. The maps, that are later modified with data from the status
+     * section, are copied, the rest is shared.
+     */
+    CibQuery copyConfiguration() {
+        final CibQuery copy = new CibQuery();
+        copy.crmConfig = crmConfig;
+        copy.resourceParameters = new HashMap<String, Map<String, String>>(resourceParameters);
+        copy.resourceParametersNvpairsIds = resourceParametersNvpairsIds;
+        copy.resourceType = new HashMap<String, ResourceAgent>(resourceType);
+        copy.resourceInstanceAttrId = resourceInstanceAttrId;
+        copy.colocationRsc = colocationRsc;
+        copy.colocationId = colocationId;
+        copy.orderRsc = orderRsc;
+        copy.orderId = orderId;
+        copy.orderIdRscSets = orderIdRscSets;
+        copy.colocationIdRscSets = colocationIdRscSets;
+        copy.rscSetConnections = rscSetConnections;
+        copy.nodeParameters = nodeParameters;
+        copy.locations = locations;
+        copy.pingLocations = pingLocations;
+        copy.locationsId = locationsId;
+        copy.idToLocation = idToLocation;
+        copy.resHostToLocId = resHostToLocId;
+        copy.resPingToLocId = resPingToLocId;
+        copy.operations = operations;
+        copy.operationsRefs = operationsRefs;
+        copy.metaAttrsId = metaAttrsId;
+        copy.metaAttrsRefs = metaAttrsRefs;
+        copy.operationsId = operationsId;
+        copy.resOpIds = resOpIds;
+        copy.nodeOnline = new HashMap<String, String>(nodeOnline);
+        copy.fencedNodes = fencedNodes;
+        copy.groupsToResources = new LinkedHashMap<String, List<String>>(groupsToResources);
+        final List<String> notGrouped = groupsToResources.get("none");
+        if (notGrouped != null) {
+            copy.groupsToResources.put("none", new ArrayList<String>(notGrouped));
+        }
+        copy.cloneToResource = cloneToResource;
+        copy.masterList = masterList;
+        copy.designatedCoOrdinator = designatedCoOrdinator;
+        copy.rscDefaultsId = rscDefaultsId;
+        copy.rscDefaultsParams = rscDefaultsParams;
+        copy.rscDefaultsParamsNvpairIds = rscDefaultsParamsNvpairIds;
+        copy.opDefaultsParams = opDefaultsParams;
+        copy.nodeIds = nodeIds;
+        return copy;
+    }
 
     void setCrmConfig(final Map<String, String> crmConfig) {
         this.crmConfig = crmConfig;
@@ -444,4 +496,12 @@ final class CibQuery {
     Map<String, Value> getOpDefaultsParams() {
         return opDefaultsParams;
     }
+
+    void setNodeIds(final Map<String, String> nodeIds) {
+        this.nodeIds = nodeIds;
+    }
+
+    Map<String, String> getNodeIds() {
+        return nodeIds;
+    }
 }
@@ -0,0 +1,206 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * The last cib, that was received from the cluster, split into the sections
+ * that the lcmc-gui-helper sends in the cib patches: the head with the fenced
+ * nodes and the <cib> tag, the configuration and the node_state elements.
+ *
+ * The patch looks like this:
+ *
+ * version 0.32.11 0.32.12
+ * head
+ * ...
+ * >>>head
+ * node_state 168430081
+ * ...
+ * >>>node_state
+ * remove_node_state 168430083
+ */
+final class CibSnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(CibSnapshot.class);
+    private static final Pattern ADMIN_EPOCH_PATTERN = Pattern.compile("\\badmin_epoch=\"(\\d*)\"");
+    private static final Pattern EPOCH_PATTERN = Pattern.compile("\\bepoch=\"(\\d*)\"");
+    private static final Pattern NUM_UPDATES_PATTERN = Pattern.compile("\\bnum_updates=\"(\\d*)\"");
+    private static final Pattern ID_PATTERN = Pattern.compile("\\bid=\"([^\"]*)\"");
+    private static final Pattern CIB_END_PATTERN = Pattern.compile("\\s*</cib>\\s*</pcmk>\\s*");
+    private static final String VERSION_PREFIX = "version ";
+    private static final String NODE_STATE_PREFIX = "node_state ";
+    private static final String REMOVE_NODE_STATE_PREFIX = "remove_node_state ";
+    private String head;
+    private String configuration;
+    /** Node id -> <node_state> element. */
+    private final Map<String, String> nodeStates = new LinkedHashMap<String, String>();
+
+    private CibSnapshot() {
+    }
+
+    /** Returns the snapshot of the whole cib or null if it can't be split. */
+    static CibSnapshot fromCib(final String cib) {
+        final int configurationStart = IncrementalCibParser.findStartTag(cib, "configuration", 0);
+        if (configurationStart < 0) {
+            return null;
+        }
+        final int configurationEnd = IncrementalCibParser.findEndOfElement(cib, "configuration", configurationStart);
+        if (configurationEnd < 0) {
+            return null;
+        }
+        final int statusStart = IncrementalCibParser.findStartTag(cib, "status", configurationEnd);
+        if (statusStart < 0 || !cib.substring(configurationEnd, statusStart).trim().isEmpty()) {
+            return null;
+        }
+        final int statusEnd = IncrementalCibParser.findEndOfElement(cib, "status", statusStart);
+        if (statusEnd < 0 || !CIB_END_PATTERN.matcher(cib.substring(statusEnd)).matches()) {
+            return null;
+        }
+        final CibSnapshot cibSnapshot = new CibSnapshot();
+        cibSnapshot.head = cib.substring(0, configurationStart).trim();
+        cibSnapshot.configuration = cib.substring(configurationStart, configurationEnd);
+        int nodeStateStart = IncrementalCibParser.findStartTag(cib, "node_state", statusStart);
+        while (nodeStateStart >= 0 && nodeStateStart < statusEnd) {
+            final int nodeStateEnd = IncrementalCibParser.findEndOfElement(cib, "node_state", nodeStateStart);
+            if (nodeStateEnd < 0 || nodeStateEnd > statusEnd) {
+                return null;
+            }
+            final String nodeState = cib.substring(nodeStateStart, nodeStateEnd);
+            final Matcher m = ID_PATTERN.matcher(nodeState.substring(0, nodeState.indexOf('>')));
+            if (!m.find()) {
+                return null;
+            }
+            cibSnapshot.nodeStates.put(m.group(1), nodeState);
+            nodeStateStart = IncrementalCibParser.findStartTag(cib, "node_state", nodeStateEnd);
+        }
+        return cibSnapshot;
+    }
+
+    /** Returns admin_epoch.epoch.num_updates from the <cib> tag. */
+    synchronized String getVersion() {
+        final int cibStart = IncrementalCibParser.findStartTag(head, "cib", 0);
+        if (cibStart < 0) {
+            return "";
+        }
+        final int cibTagEnd = head.indexOf('>', cibStart);
+        final String cibTag = cibTagEnd < 0 ? head.substring(cibStart) : head.substring(cibStart, cibTagEnd);
+        return getAttribute(ADMIN_EPOCH_PATTERN, cibTag)
+               + '.' + getAttribute(EPOCH_PATTERN, cibTag)
+               + '.' + getAttribute(NUM_UPDATES_PATTERN, cibTag);
+    }
+
+    /**
+     * Applies the patch. Returns false if the patch is not for this version
+     * of the cib or if it can't be applied. In this case the whole cib must
+     * be fetched again, because the snapshot may be changed partially.
+     */
+    synchronized boolean applyPatch(final List<String> patch) {
+        if (patch == null || patch.isEmpty() || !patch.get(0).startsWith(VERSION_PREFIX)) {
+            LOG.appWarning("applyPatch: no version in the cib patch");
+            return false;
+        }
+        final String[] versions = patch.get(0).substring(VERSION_PREFIX.length()).split(" ");
+        if (versions.length != 2) {
+            LOG.appWarning("applyPatch: wrong version in the cib patch: " + patch.get(0));
+            return false;
+        }
+        final String version = getVersion();
+        if (!versions[0].equals(version)) {
+            LOG.debug1("applyPatch: version mismatch: " + version + " patch: " + patch.get(0));
+            return false;
+        }
+        String section = null;
+        String nodeId = null;
+        final StringBuilder text = new StringBuilder();
+        for (final String line : patch.subList(1, patch.size())) {
+            if (section == null) {
+                if (line.startsWith(REMOVE_NODE_STATE_PREFIX)) {
+                    nodeStates.remove(line.substring(REMOVE_NODE_STATE_PREFIX.length()));
+                } else if ("head".equals(line) || "configuration".equals(line)) {
+                    section = line;
+                    text.setLength(0);
+                } else if (line.startsWith(NODE_STATE_PREFIX)) {
+                    section = "node_state";
+                    nodeId = line.substring(NODE_STATE_PREFIX.length());
+                    text.setLength(0);
+                } else if (!line.isEmpty()) {
+                    LOG.appWarning("applyPatch: unknown line in the cib patch: " + line);
+                    return false;
+                }
+            } else if (line.equals(">>>" + section)) {
+                final String sectionText = text.toString();
+                if ("head".equals(section)) {
+                    head = sectionText.trim();
+                } else if ("configuration".equals(section)) {
+                    configuration = sectionText;
+                } else {
+                    nodeStates.put(nodeId, sectionText);
+                }
+                section = null;
+            } else {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(line);
+            }
+        }
+        if (section != null) {
+            LOG.appWarning("applyPatch: unfinished section in the cib patch: " + section);
+            return false;
+        }
+        if (!versions[1].equals(getVersion())) {
+            LOG.appWarning("applyPatch: wrong version after the cib patch: " + getVersion() + " patch: " + patch.get(0));
+            return false;
+        }
+        return true;
+    }
+
+    /** Returns the fenced nodes and the <cib> tag. */
+    synchronized String getHead() {
+        return head;
+    }
+
+    /** Returns the whole cib. */
+    synchronized String getCib() {
+        final StringBuilder cib = new StringBuilder(head.length() + configuration.length() + 1000);
+        cib.append(head).append('\n').append(configuration).append("\n<status>\n");
+        for (final String nodeState : nodeStates.values()) {
+            cib.append(nodeState).append('\n');
+        }
+        cib.append("</status>\n</cib>\n</pcmk>");
+        return cib.toString();
+    }
+
+    private String getAttribute(final Pattern pattern, final CharSequence tag) {
+        final Matcher m = pattern.matcher(tag);
+        if (m.find()) {
+            return m.group(1);
+        }
+        return "";
+    }
+}
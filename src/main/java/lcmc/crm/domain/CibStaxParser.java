@@ -0,0 +1,375 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Streaming parser for the cib and the resource status. It reads the xml in
+ * one pass and fills the parsed data directly, without building the DOM of
+ * the status section, that is the biggest part of the cib. Only the
+ * configuration is collected into a small DOM, so that it is parsed by the
+ * same code as in the CrmXml. It must give the same results as the
+ * CrmXml.parseCibQuery and CrmXml.parseResStatus methods.
+ */
+final class CibStaxParser {
+    private static final Logger LOG = LoggerFactory.getLogger(CibStaxParser.class);
+    /** Level of the <cib> element in the <pcmk> document. */
+    private static final int CIB_LEVEL = 1;
+    private final CrmXml crmXml;
+    private final XMLInputFactory xmlInputFactory;
+
+    CibStaxParser(final CrmXml crmXml) {
+        this.crmXml = crmXml;
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    }
+
+    /** Returns a hash with resource information. (running_on) */
+    Map<String, CrmXml.ResourceStatus> parseResStatus(final String resStatus) {
+        final String xml = trimXml(resStatus);
+        if (xml == null) {
+            return null;
+        }
+        try {
+            final XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new StringReader(xml));
+            try {
+                /* get root <resource_status> */
+                if (!nextChildElement(reader) || !"resource_status".equals(reader.getLocalName())) {
+                    return null;
+                }
+                final Map<String, CrmXml.ResourceStatus> resStatusMap = new HashMap<String, CrmXml.ResourceStatus>();
+                /*      <resource...> */
+                while (nextChildElement(reader)) {
+                    if ("resource".equals(reader.getLocalName())) {
+                        resStatusMap.put(reader.getAttributeValue(null, "id"), parseResource(reader));
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+                return resStatusMap;
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            LOG.appError("parseResStatus: could not parse: " + xml, e);
+            return null;
+        }
+    }
+
+    /** Returns CibQuery object with information from the cib. */
+    CibQuery parseCibQuery(final String query) {
+        final CibQuery cibQueryData = new CibQuery();
+        final String xml = trimXml(query);
+        if (xml == null) {
+            LOG.appWarning("parseCibQuery: cib error: " + query);
+            return cibQueryData;
+        }
+        final Document document = createDocument();
+        final List<CibNodeStatus> nodeStatuses = new ArrayList<CibNodeStatus>();
+        try {
+            final XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new StringReader(xml));
+            try {
+                if (nextChildElement(reader)) {
+                    document.appendChild(readElement(reader, document, nodeStatuses, 0));
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            LOG.appError("parseCibQuery: could not parse: " + xml, e);
+            LOG.appWarning("parseCibQuery: cib error: " + query);
+            return cibQueryData;
+        }
+        if (!crmXml.parseCibConfiguration(document, cibQueryData)) {
+            return cibQueryData;
+        }
+        return crmXml.mergeCibStatus(cibQueryData, nodeStatuses);
+    }
+
+    /**
+     * Parses one <node_state> element from the cib status section. Returns
+     * null if it can't be parsed.
+     */
+    CibNodeStatus parseNodeState(final String nodeState) {
+        try {
+            final XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new StringReader(nodeState));
+            try {
+                if (!nextChildElement(reader) || !"node_state".equals(reader.getLocalName())) {
+                    return null;
+                }
+                return parseNodeState(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            LOG.appError("parseNodeState: could not parse: " + nodeState, e);
+            return null;
+        }
+    }
+
+    private CrmXml.ResourceStatus parseResource(final XMLStreamReader reader) throws XMLStreamException {
+        final boolean managed = "managed".equals(reader.getAttributeValue(null, "managed"));
+        Map<String, String> allocationScores = new HashMap<String, String>();
+        List<String> runningOnList = null;
+        List<String> masterOnList = null;
+        List<String> slaveOnList = null;
+        while (nextChildElement(reader)) {
+            final String name = reader.getLocalName();
+            if (CrmXml.TARGET_ROLE_STARTED.equalsIgnoreCase(name)) {
+                if (runningOnList == null) {
+                    runningOnList = new ArrayList<String>();
+                }
+                runningOnList.add(reader.getElementText());
+            } else if (CrmXml.TARGET_ROLE_MASTER.equalsIgnoreCase(name)) {
+                if (masterOnList == null) {
+                    masterOnList = new ArrayList<String>();
+                }
+                masterOnList.add(reader.getElementText());
+            } else if (CrmXml.TARGET_ROLE_SLAVE.equalsIgnoreCase(name)) {
+                if (slaveOnList == null) {
+                    slaveOnList = new ArrayList<String>();
+                }
+                slaveOnList.add(reader.getElementText());
+            } else if ("scores".equals(name)) {
+                allocationScores = parseAllocationScores(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+        return new CrmXml.ResourceStatus(runningOnList, masterOnList, slaveOnList, allocationScores, managed);
+    }
+
+    private Map<String, String> parseAllocationScores(final XMLStreamReader reader) throws XMLStreamException {
+        final Map<String, String> allocationScores = new LinkedHashMap<String, String>();
+        while (nextChildElement(reader)) {
+            if ("score".equals(reader.getLocalName())) {
+                allocationScores.put(reader.getAttributeValue(null, "host"), reader.getAttributeValue(null, "score"));
+            }
+            skipElement(reader);
+        }
+        return allocationScores;
+    }
+
+    /**
+     * Reads the current element into the DOM, except of the <status>
+     * section, whose node states are parsed directly.
+     */
+    private Element readElement(final XMLStreamReader reader,
+                                final Document document,
+                                final List<CibNodeStatus> nodeStatuses,
+                                final int level) throws XMLStreamException {
+        final Element element = document.createElement(reader.getLocalName());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        final boolean cibElement = level == CIB_LEVEL && "cib".equals(element.getTagName());
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (cibElement && "status".equals(reader.getLocalName())) {
+                    parseStatus(reader, nodeStatuses);
+                } else {
+                    element.appendChild(readElement(reader, document, nodeStatuses, level + 1));
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS
+                       || event == XMLStreamConstants.CDATA
+                       || event == XMLStreamConstants.SPACE) {
+                element.appendChild(document.createTextNode(reader.getText()));
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        return element;
+    }
+
+    private void parseStatus(final XMLStreamReader reader, final List<CibNodeStatus> nodeStatuses)
+        throws XMLStreamException {
+        /* <node_state ...> */
+        while (nextChildElement(reader)) {
+            if ("node_state".equals(reader.getLocalName())) {
+                nodeStatuses.add(parseNodeState(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private CibNodeStatus parseNodeState(final XMLStreamReader reader) throws XMLStreamException {
+        final CibNodeStatus nodeStatus = crmXml.createNodeStatus(reader.getAttributeValue(null, "uname"),
+                                                                 reader.getAttributeValue(null, "id"),
+                                                                 reader.getAttributeValue(null, "join"),
+                                                                 reader.getAttributeValue(null, "in_ccm"),
+                                                                 reader.getAttributeValue(null, "crmd"));
+        /* id, class, provider, type; they are added after the transient
+         * attributes, like in the CrmXml. */
+        final List<String[]> lrmResources = new ArrayList<String[]>();
+        while (nextChildElement(reader)) {
+            final String name = reader.getLocalName();
+            if ("transient_attributes".equals(name)) {
+                parseTransientAttributes(reader, nodeStatus);
+            } else if ("lrm".equals(name)) {
+                parseLrm(reader, lrmResources);
+            } else {
+                skipElement(reader);
+            }
+        }
+        for (final String[] lrmResource : lrmResources) {
+            crmXml.addLrmResource(nodeStatus, lrmResource[0], lrmResource[1], lrmResource[2], lrmResource[3]);
+        }
+        return nodeStatus;
+    }
+
+    private void parseTransientAttributes(final XMLStreamReader reader, final CibNodeStatus nodeStatus)
+        throws XMLStreamException {
+        /* <instance_attributes>, only the first one */
+        boolean instanceAttributesParsed = false;
+        while (nextChildElement(reader)) {
+            if (!instanceAttributesParsed && "instance_attributes".equals(reader.getLocalName())) {
+                instanceAttributesParsed = true;
+                if (crmXml.isAttributesElementUsed()) {
+                    /* <attributtes> only til 2.1.4 */
+                    parseAttributesElement(reader, nodeStatus);
+                } else {
+                    parseNvpairs(reader, nodeStatus);
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private void parseAttributesElement(final XMLStreamReader reader, final CibNodeStatus nodeStatus)
+        throws XMLStreamException {
+        boolean attributesParsed = false;
+        while (nextChildElement(reader)) {
+            if (!attributesParsed && "attributes".equals(reader.getLocalName())) {
+                attributesParsed = true;
+                parseNvpairs(reader, nodeStatus);
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private void parseNvpairs(final XMLStreamReader reader, final CibNodeStatus nodeStatus)
+        throws XMLStreamException {
+        /* <nvpair...> */
+        while (nextChildElement(reader)) {
+            if ("nvpair".equals(reader.getLocalName())) {
+                crmXml.addTransientAttribute(nodeStatus,
+                                             reader.getAttributeValue(null, "name"),
+                                             reader.getAttributeValue(null, "value"));
+            }
+            skipElement(reader);
+        }
+    }
+
+    private void parseLrm(final XMLStreamReader reader, final List<String[]> lrmResources)
+        throws XMLStreamException {
+        /* <lrm_resources>, only the first one */
+        boolean lrmResourcesParsed = false;
+        while (nextChildElement(reader)) {
+            if (!lrmResourcesParsed && "lrm_resources".equals(reader.getLocalName())) {
+                lrmResourcesParsed = true;
+                while (nextChildElement(reader)) {
+                    if ("lrm_resource".equals(reader.getLocalName())) {
+                        lrmResources.add(new String[]{reader.getAttributeValue(null, "id"),
+                                                      reader.getAttributeValue(null, "class"),
+                                                      reader.getAttributeValue(null, "provider"),
+                                                      reader.getAttributeValue(null, "type")});
+                    }
+                    /* the operation history is not needed */
+                    skipElement(reader);
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    /**
+     * Moves to the next child element of the current element. Returns false,
+     * if there are no more children and the reader is at the end of the
+     * current element.
+     */
+    private static boolean nextChildElement(final XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /** Moves to the end of the current element. */
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /** Returns trimmed xml or null if there is nothing to parse. */
+    private static String trimXml(final String xmlraw) {
+        if (xmlraw == null) {
+            return null;
+        }
+        final String xml = xmlraw.trim();
+        if (xml.isEmpty() || "no resources defined!".equals(xml)) {
+            return null;
+        }
+        return xml;
+    }
+
+    private static Document createDocument() {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        } catch (final ParserConfigurationException pce) {
+            throw new RuntimeException("createDocument: parser configuration", pce);
+        }
+    }
+}
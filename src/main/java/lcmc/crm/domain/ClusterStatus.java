@@ -58,9 +58,19 @@ public class ClusterStatus {
     /** On which node the resource is running or is a slave. */
     private volatile Map<String, CrmXml.ResourceStatus> resStateMap = null;
     private volatile PtestData ptestResult = null;
-    private String oldStatus = null;
-    private String oldCib = null;
+    /** Hash of the last res_status. */
+    private String oldStatusFingerprint = null;
+    /** Version and hash of the head of the last cib. */
+    private String oldCibFingerprint = null;
+    /** Last cib, if it is not in the cib snapshot. */
+    private volatile List<String> oldCibLines = null;
     private boolean oldAdvancedMode = false;
+    private CibStaxParser cibStaxParser;
+    /** Last cib, that the cib patches are applied to. */
+    private volatile CibSnapshot cibSnapshot = null;
+    /** Whether a cib patch could not be applied and the whole cib is needed. */
+    private volatile boolean cibResyncNeeded = false;
+    private IncrementalCibParser incrementalCibParser;
     private Host host;
     @Inject
     private Application application;
@@ -73,6 +83,12 @@ public class ClusterStatus {
     public void init(final Host host, final CrmXml crmXML) {
         this.host = host;
         this.crmXML = crmXML;
+        cibStaxParser = new CibStaxParser(crmXML);
+        if (application.isStaxCibParsing()) {
+            incrementalCibParser = new IncrementalCibParser(crmXML, cibStaxParser);
+        } else {
+            incrementalCibParser = new IncrementalCibParser(crmXML, null);
+        }
         final String command = host.getHostParser().getDistCommand("Heartbeat.getClusterMetadata",
                                                    (ConvertCmdCallback) null);
         final SshOutput ret = host.captureCommandProgressIndicator(Tools.getString("Heartbeat.getClusterMetadata"),
@@ -453,23 +469,38 @@ public class ClusterStatus {
             if ("fenced_nodes".equals(cmd)) {
 
             } else if ("res_status".equals(cmd)) {
-                final String status = Tools.join("\n", data.toArray(new String[data.size()]));
-                if (!status.equals(oldStatus)) {
+                final String statusFingerprint = StatusFingerprint.ofLines(data);
+                if (!statusFingerprint.equals(oldStatusFingerprint)) {
                     LOG.debug1("parseCommand: status update: " + host.getName());
-                    oldStatus = status;
-                    parseResStatus(status);
+                    oldStatusFingerprint = statusFingerprint;
+                    parseResStatus(Tools.join("\n", data.toArray(new String[data.size()])));
                     return true;
                 }
             } else if ("cibadmin".equals(cmd)) {
+                cibResyncNeeded = false;
+                if (!isCibChanged(StatusFingerprint.ofCib(data))) {
+                    return false;
+                }
                 final String cib = Tools.join("\n", data.toArray(new String[data.size()]));
-                final boolean advancedMode = access.isAdvancedMode();
-                if (!cib.equals(oldCib) || oldAdvancedMode != advancedMode) {
-                    LOG.debug1("parseCommand: cib update: " + host.getName());
-                    oldCib = cib;
-                    oldAdvancedMode = advancedMode;
-                    parseCibQuery(cib);
-                    return true;
+                if (application.isCibPatches()) {
+                    cibSnapshot = CibSnapshot.fromCib(cib);
+                }
+                oldCibLines = cibSnapshot == null ? data : null;
+                parseCibQuery(cib);
+                return true;
+            } else if ("cibpatch".equals(cmd)) {
+                if (cibSnapshot == null || !cibSnapshot.applyPatch(data)) {
+                    LOG.debug1("parseCommand: cib patch failed, whole cib is needed: " + host.getName());
+                    cibSnapshot = null;
+                    oldCibFingerprint = null;
+                    cibResyncNeeded = true;
+                    return false;
+                }
+                if (!isCibChanged(StatusFingerprint.ofCibHead(cibSnapshot.getHead()))) {
+                    return false;
                 }
+                parseCibQuery(cibSnapshot.getCib());
+                return true;
             }
         } else {
             LOG.appError("parseCommand: unknown command: " + command);
@@ -477,6 +508,34 @@ public class ClusterStatus {
         return false;
     }
 
+    /**
+     * Returns whether the cib with this fingerprint must be parsed, because
+     * it changed or the advanced mode changed.
+     */
+    private boolean isCibChanged(final String cibFingerprint) {
+        final boolean advancedMode = access.isAdvancedMode();
+        if (cibFingerprint.equals(oldCibFingerprint) && oldAdvancedMode == advancedMode) {
+            return false;
+        }
+        LOG.debug1("parseCommand: cib update: " + host.getName());
+        oldCibFingerprint = cibFingerprint;
+        oldAdvancedMode = advancedMode;
+        return true;
+    }
+
+    /**
+     * Returns whether a cib patch could not be applied and the cluster
+     * events must be restarted to get the whole cib.
+     */
+    public boolean isCibResyncNeeded() {
+        return cibResyncNeeded;
+    }
+
+    /** The cluster events are restarted and will send the whole cib. */
+    public void clearCibResyncNeeded() {
+        cibResyncNeeded = false;
+    }
+
     public boolean parseStatus(final String status) {
         final String[] lines = status.split("\n");
         String command    = null;
@@ -526,11 +585,21 @@ public class ClusterStatus {
     }
 
     private void parseResStatus(final String resStatus) {
-        resStateMap = crmXML.parseResStatus(resStatus);
+        if (application.isStaxCibParsing()) {
+            resStateMap = cibStaxParser.parseResStatus(resStatus);
+        } else {
+            resStateMap = crmXML.parseResStatus(resStatus);
+        }
     }
 
     private void parseCibQuery(final String query) {
-        cibQuery = crmXML.parseCibQuery(query);
+        if (application.isIncrementalCibParsing()) {
+            cibQuery = incrementalCibParser.parse(query);
+        } else if (application.isStaxCibParsing()) {
+            cibQuery = cibStaxParser.parseCibQuery(query);
+        } else {
+            cibQuery = crmXML.parseCibQuery(query);
+        }
     }
 
     public void setPtestResult(final PtestData ptestResult) {
@@ -545,6 +614,14 @@ public class ClusterStatus {
 
     /** Return last known raw cib. */
     public String getCibXml() {
-        return oldCib;
+        final CibSnapshot snapshot = cibSnapshot;
+        if (snapshot != null) {
+            return snapshot.getCib();
+        }
+        final List<String> cibLines = oldCibLines;
+        if (cibLines == null) {
+            return null;
+        }
+        return Tools.join("\n", cibLines.toArray(new String[cibLines.size()]));
     }
 }
@@ -103,8 +103,8 @@ public class CrmXml {
                                                                    new StringValue("demote"),
                                                                    new StringValue("stop")};
     public static final String TARGET_ROLE_STOPPED = "stopped";
-    private static final String TARGET_ROLE_STARTED = "started";
-    private static final String TARGET_ROLE_MASTER = "master";
+    static final String TARGET_ROLE_STARTED = "started";
+    static final String TARGET_ROLE_MASTER = "master";
     public static final String TARGET_ROLE_SLAVE = "slave";
     public static final Value INFINITY_VALUE = new StringValue("INFINITY");
     public static final Value PLUS_INFINITY_VALUE = new StringValue("+INFINITY");
@@ -176,6 +176,8 @@ public class CrmXml {
     public static final String PARAM_OCF_CHECK_LEVEL = "OCF_CHECK_LEVEL";
 
     private static final Pattern UNIT_PATTERN = Pattern.compile("^(\\d+)(\\D*)$");
+    /** Matches clone ids like "rsc:0". */
+    private static final Pattern CLONE_ID_PATTERN = Pattern.compile("(.*):(\\d+)$");
 
     static {
         /* target-role */
@@ -413,6 +415,11 @@ public class CrmXml {
     private final List<Value> stonithHostlistChoices = new ArrayList<Value>();
     private Map<String, String> metaAttrParams = null;
     private Map<String, String> resourceDefaultsMetaAttrs = null;
+    /** Checksums of the ocf resource agent scripts on the host by provider/name. */
+    private final Map<String, String> ocfChecksums = new HashMap<String, String>();
+    /** Ocf resource agents by provider/name, whose meta-data were loaded from the cache. */
+    private final Set<String> cachedResourceAgents = new LinkedHashSet<String>();
+    private ResourceAgentMetaDataCache metaDataCache;
 
     public void init(final Host host, final ServicesInfo allServicesInfo) {
         this.host = host;
@@ -713,12 +720,14 @@ public class CrmXml {
         groupResourceAgent.setMetaDataLoaded(true);
 
         initResourceAgentsWithoutMetaData();
+        loadCachedOCFMetaData();
         initOCFMetaDataConfigured();
         LOG.debug("CRMXML: cluster loaded");
         final Thread t = new Thread(new Runnable() {
             @Override
             public void run() {
                 initOCFMetaDataAll();
+                metaDataCache.save();
                 final String hn = host.getName();
                 final String text = Tools.getString("CRMXML.GetRAMetaData.Done");
                 progressIndicator.startProgressIndicator(hn, text);
@@ -766,10 +775,12 @@ public class CrmXml {
         final Pattern cp = Pattern.compile("^class:\\s*(.*?)\\s*$");
         final Pattern pp = Pattern.compile("^provider:\\s*(.*?)\\s*$");
         final Pattern sp = Pattern.compile("^ra:\\s*(.*?)\\s*$");
+        final Pattern csp = Pattern.compile("^ra-checksum:\\s*(.*?)\\s*$");
         final StringBuilder xml = new StringBuilder("");
         String resourceClass = null;
         String provider = null;
         String serviceName = null;
+        String checksum = null;
         for (final String line : lines) {
             final Matcher cm = cp.matcher(line);
             if (cm.matches()) {
@@ -781,6 +792,11 @@ public class CrmXml {
                 provider = pm.group(1);
                 continue;
             }
+            final Matcher csm = csp.matcher(line);
+            if (csm.matches()) {
+                checksum = csm.group(1);
+                continue;
+            }
             final Matcher sm = sp.matcher(line);
             if (sm.matches()) {
                 serviceName = sm.group(1);
@@ -820,7 +836,14 @@ public class CrmXml {
                     classToServicesMap.put(resourceClass, raList);
                 }
                 raList.add(ra);
+                if (checksum != null && ResourceAgent.OCF_CLASS_NAME.equals(resourceClass)) {
+                    final String key = ResourceAgentMetaDataCache.getKey(provider, serviceName);
+                    if (key != null) {
+                        ocfChecksums.put(key, checksum);
+                    }
+                }
                 serviceName = null;
+                checksum = null;
                 xml.delete(0, xml.length());
             }
         }
@@ -828,19 +851,55 @@ public class CrmXml {
         linbitDrbdResourceAgentPresent = linbitDrbdPresent0;
     }
 
+    /**
+     * Loads the meta data of the ocf resource agents from the local cache,
+     * if their scripts on the host didn't change, so that they don't have to
+     * be fetched again.
+     */
+    private void loadCachedOCFMetaData() {
+        metaDataCache = new ResourceAgentMetaDataCache(
+                ResourceAgentMetaDataCache.getCacheFile(Tools.getDefault("CrmXml.MetaDataCacheDir"),
+                                                        host.getHostname(),
+                                                        host.getIpAddress()));
+        metaDataCache.load();
+        metaDataCache.retainAll(ocfChecksums.keySet());
+        for (final Map.Entry<String, String> keyChecksum : ocfChecksums.entrySet()) {
+            final String key = keyChecksum.getKey();
+            final ResourceAgentMetaDataCache.Entry entry = metaDataCache.get(key, keyChecksum.getValue());
+            if (entry == null) {
+                continue;
+            }
+            final int slash = key.indexOf('/');
+            final String provider = key.substring(0, slash);
+            final String serviceName = key.substring(slash + 1);
+            parseMetaDataAndFillHashes(serviceName, provider, entry.getXml(), entry.isMasterSlave());
+            final ResourceAgent ra = serviceToResourceAgentMap.get(serviceName, provider, ResourceAgent.OCF_CLASS_NAME);
+            if (ra != null && ra.isMetaDataLoaded()) {
+                cachedResourceAgents.add(key);
+            }
+        }
+        LOG.debug1("loadCachedOCFMetaData: " + cachedResourceAgents.size() + " of " + ocfChecksums.size()
+                   + " ocf resource agents loaded from the cache");
+    }
+
     /**
      * Initialize resource agents with their meta data, the configured ones.
      * For faster start up.
      */
     private void initOCFMetaDataConfigured() {
-        initOCFResourceAgentsWithMetaData(host.getHostParser().getDistCommand("Heartbeat.getOCFParametersConfigured",
-                                          (ConvertCmdCallback) null));
+        initOCFResourceAgentsWithMetaData(getOCFMetaDataCommand("Heartbeat.getOCFParametersConfigured"));
     }
 
     /** Initialize resource agents with their meta data. */
     private void initOCFMetaDataAll() {
-        initOCFResourceAgentsWithMetaData(host.getHostParser().getDistCommand("Heartbeat.getOCFParameters",
-                                          (ConvertCmdCallback) null));
+        initOCFResourceAgentsWithMetaData(getOCFMetaDataCommand("Heartbeat.getOCFParameters"));
+    }
+
+    /** Returns the command, that skips the resource agents loaded from the cache. */
+    private String getOCFMetaDataCommand(final String commandString) {
+        final Map<String, String> replaceHash = new HashMap<String, String>();
+        replaceHash.put("@CACHED-RAS@", Tools.join(" ", cachedResourceAgents));
+        return host.getHostParser().getDistCommand(commandString, replaceHash);
     }
 
     private void initOCFResourceAgentsWithMetaData(final String command) {
@@ -861,7 +920,9 @@ public class CrmXml {
         final Pattern bp = Pattern.compile("<resource-agent.*\\s+name=\"(.*?)\".*");
         final Pattern sp = Pattern.compile("^ra-name:\\s*(.*?)\\s*$");
         final Pattern ep = Pattern.compile("</resource-agent>");
+        final Pattern cp = Pattern.compile("^class:\\s*(.*?)\\s*$");
         final StringBuilder xml = new StringBuilder("");
+        String resourceClass = null;
         String provider = null;
         String serviceName = null;
         boolean nextRA = false;
@@ -872,6 +933,11 @@ public class CrmXml {
             ...
             </resource-agent>
             */
+            final Matcher cm = cp.matcher(line);
+            if (cm.matches()) {
+                resourceClass = cm.group(1);
+                continue;
+            }
             final Matcher pm = pp.matcher(line);
             if (pm.matches()) {
                 provider = pm.group(1);
@@ -897,6 +963,9 @@ public class CrmXml {
                 final Matcher m2 = ep.matcher(line);
                 if (m2.matches()) {
                     parseMetaDataAndFillHashes(serviceName, provider, xml.toString(), masterSlave);
+                    if (ResourceAgent.OCF_CLASS_NAME.equals(resourceClass)) {
+                        cacheOCFMetaData(serviceName, provider, xml.toString(), masterSlave);
+                    }
                     serviceName = null;
                     nextRA = false;
                     xml.delete(0, xml.length());
@@ -908,6 +977,17 @@ public class CrmXml {
         }
     }
 
+    private void cacheOCFMetaData(final String serviceName,
+                                  final String provider,
+                                  final String xml,
+                                  final boolean masterSlave) {
+        final String key = ResourceAgentMetaDataCache.getKey(provider, serviceName);
+        final String checksum = ocfChecksums.get(key);
+        if (checksum != null) {
+            metaDataCache.put(key, checksum, masterSlave, xml);
+        }
+    }
+
     /** Returns choices for check box. (True, False). */
     public Value[] getCheckBoxChoices(final ResourceAgent resourceAgent, final String param) {
         final String paramDefault = getDefaultValue(resourceAgent, param);
@@ -2294,11 +2374,7 @@ public class CrmXml {
         return resStatusMap;
     }
 
-    private void parseTransientAttributes(final String uname,
-                                          final Node transientAttrNode,
-                                          final Table<String, String, String> failedMap,
-                                          final Table<String, String, Set<String>> failedClonesMap,
-                                          final Map<String, String> pingCountMap) {
+    private void parseTransientAttributes(final Node transientAttrNode, final CibNodeStatus nodeStatus) {
         /* <instance_attributes> */
         final Node instanceAttrNode = XMLTools.getChildNode(transientAttrNode, "instance_attributes");
         /* <nvpair...> */
@@ -2316,31 +2392,34 @@ public class CrmXml {
                 if (optionNode.getNodeName().equals("nvpair")) {
                     final String name = XMLTools.getAttribute(optionNode, "name");
                     final String value = XMLTools.getAttribute(optionNode, "value");
-                    /* TODO: last-failure-" */
-                    if ("pingd".equals(name)) {
-                        pingCountMap.put(uname, value);
-                    } else if (name.indexOf(FAIL_COUNT_PREFIX) == 0) {
-                        final String resId = name.substring(FAIL_COUNT_PREFIX.length());
-                        final String unameLowerCase = uname.toLowerCase(Locale.US);
-                        failedMap.put(unameLowerCase, resId, value);
-                        final Pattern p = Pattern.compile("(.*):(\\d+)$");
-                        final Matcher m = p.matcher(resId);
-                        if (m.matches()) {
-                            final String crmId = m.group(1);
-                            Set<String> clones = failedClonesMap.get(unameLowerCase, crmId);
-                            if (clones == null) {
-                                clones = new LinkedHashSet<String>();
-                                failedClonesMap.put(unameLowerCase, crmId, clones);
-                            }
-                            clones.add(m.group(2));
-                            failedMap.put(uname.toLowerCase(Locale.US), crmId, value);
-                        }
-                    }
+                    addTransientAttribute(nodeStatus, name, value);
                 }
             }
         }
     }
 
+    /** Stores one transient attribute (pingd, fail-count-*) of the node. */
+    void addTransientAttribute(final CibNodeStatus nodeStatus, final String name, final String value) {
+        /* TODO: last-failure-" */
+        if ("pingd".equals(name)) {
+            nodeStatus.setPingCount(value);
+        } else if (name.indexOf(FAIL_COUNT_PREFIX) == 0) {
+            final String resId = name.substring(FAIL_COUNT_PREFIX.length());
+            nodeStatus.putFailCount(resId, value);
+            final Matcher m = CLONE_ID_PATTERN.matcher(resId);
+            if (m.matches()) {
+                final String crmId = m.group(1);
+                nodeStatus.addFailedClone(crmId, m.group(2));
+                nodeStatus.putFailCount(crmId, value);
+            }
+        }
+    }
+
+    /** Returns whether the nvpairs are in the <attributes> element. (til 2.1.4) */
+    boolean isAttributesElementUsed() {
+        return Tools.versionBeforePacemaker(host);
+    }
+
     /** Parses node, to get info like if it is in stand by. */
     void parseNode(final String node, final Node nodeNode, final Table<String ,String, String> nodeParametersMap) {
         /* <instance_attributes> */
@@ -2435,11 +2514,37 @@ public class CrmXml {
             LOG.appWarning("parseCibQuery: cib error: " + query);
             return cibQueryData;
         }
+        if (!parseCibConfiguration(document, cibQueryData)) {
+            return cibQueryData;
+        }
+        final List<CibNodeStatus> nodeStatuses = new ArrayList<CibNodeStatus>();
+        final Node cibNode = XMLTools.getChildNode(XMLTools.getChildNode(document, "pcmk"), "cib");
+        /* <status> */
+        final Node statusNode = XMLTools.getChildNode(cibNode, "status");
+        if (statusNode != null) {
+            /* <node_state ...> */
+            final NodeList nodes = statusNode.getChildNodes();
+            for (int i = 0; i < nodes.getLength(); i++) {
+                final Node nodeStateNode = nodes.item(i);
+                if ("node_state".equals(nodeStateNode.getNodeName())) {
+                    nodeStatuses.add(parseNodeState(nodeStateNode));
+                }
+            }
+        }
+        return mergeCibStatus(cibQueryData, nodeStatuses);
+    }
+
+    /**
+     * Parses everything from the cib document except the <status> section
+     * and stores it in the cibQueryData. Returns false if the configuration
+     * is not complete.
+     */
+    boolean parseCibConfiguration(final Document document, final CibQuery cibQueryData) {
         /* get root <pacemaker> */
         final Node pcmkNode = XMLTools.getChildNode(document, "pcmk");
         if (pcmkNode == null) {
             LOG.appWarning("parseCibQuery: there is no pcmk node");
-            return cibQueryData;
+            return false;
         }
 
         /* get fenced nodes */
@@ -2462,7 +2567,7 @@ public class CrmXml {
         final Node cibNode = XMLTools.getChildNode(pcmkNode, "cib");
         if (cibNode == null) {
             LOG.appWarning("parseCibQuery: there is no cib node");
-            return cibQueryData;
+            return false;
         }
         /* Designated Co-ordinator */
         final String dcUuid = XMLTools.getAttribute(cibNode, "dc-uuid");
@@ -2472,7 +2577,7 @@ public class CrmXml {
         final Node confNode = XMLTools.getChildNode(cibNode, "configuration");
         if (confNode == null) {
             LOG.appWarning("parseCibQuery: there is no configuration node");
-            return cibQueryData;
+            return false;
         }
 
         /* <rsc_defaults> */
@@ -2496,7 +2601,7 @@ public class CrmXml {
         final Node crmConfNode = XMLTools.getChildNode(confNode, "crm_config");
         if (crmConfNode == null) {
             LOG.appWarning("parseCibQuery: there is no crm_config node");
-            return cibQueryData;
+            return false;
         }
 
         /*      <cluster_property_set> */
@@ -2562,15 +2667,12 @@ public class CrmXml {
         final Node resourcesNode = XMLTools.getChildNode(confNode, "resources");
         if (resourcesNode == null) {
             LOG.appWarning("parseCibQuery: there is no resources node");
-            return cibQueryData;
+            return false;
         }
         /*      <primitive> */
         final Map<String, Map<String, String>> parametersMap = new HashMap<String, Map<String, String>>();
         final Map<String, Map<String, String>> parametersNvpairsIdsMap = new HashMap<String, Map<String, String>>();
         final Map<String, ResourceAgent> resourceTypeMap = new HashMap<String, ResourceAgent>();
-        final Set<String> orphanedList = new HashSet<String>();
-        /* host -> inLRMList list */
-        final Map<String, Set<String>> inLRMList = new HashMap<String, Set<String>>();
         final Map<String, String> resourceInstanceAttrIdMap = new HashMap<String, String>();
         final MultiKeyMap<String, Value> operationsMap = new MultiKeyMap<String, Value>();
         final Map<String, String> metaAttrsIdMap = new HashMap<String, String>();
@@ -2581,9 +2683,6 @@ public class CrmXml {
         final Map<String, List<String>> groupsToResourcesMap = new LinkedHashMap<String, List<String>>();
         final Map<String, String> cloneToResourceMap = new HashMap<String, String>();
         final List<String> masterList = new ArrayList<String>();
-        final Table<String, String, String> failedMap = HashBasedTable.create();
-        final Table<String, String, Set<String>> failedClonesMap = HashBasedTable.create();
-        final Map<String, String> pingCountMap = new HashMap<String, String>();
         groupsToResourcesMap.put("none", new ArrayList<String>());
 
         final NodeList primitivesGroups = resourcesNode.getChildNodes();
@@ -2855,66 +2954,11 @@ public class CrmXml {
             }
         }
 
-        /* <status> */
-        final Node statusNode = XMLTools.getChildNode(cibNode, "status");
-        final Set<String> nodePending = new HashSet<String>();
-        if (statusNode != null) {
-            /* <node_state ...> */
-            final NodeList nodes = statusNode.getChildNodes();
-            for (int i = 0; i < nodes.getLength(); i++) {
-                final Node nodeStateNode = nodes.item(i);
-                if ("node_state".equals(nodeStateNode.getNodeName())) {
-                    final String uname = XMLTools.getAttribute(nodeStateNode, "uname");
-                    final String id = XMLTools.getAttribute(nodeStateNode, "id");
-                    if (uname == null || !id.equals(nodeID.get(uname))) {
-                        LOG.appWarning("parseCibQuery: skipping " + uname + ' ' + id);
-                        continue;
-                    }
-                    final String join = XMLTools.getAttribute(nodeStateNode, "join");
-                    final String inCCM = XMLTools.getAttribute(nodeStateNode, "in_ccm");
-                    final String crmd = XMLTools.getAttribute(nodeStateNode, "crmd");
-                    if ("member".equals(join) && "true".equals(inCCM) && !"offline".equals(crmd)) {
-                        nodeOnline.put(uname.toLowerCase(Locale.US), "yes");
-                    } else {
-                        nodeOnline.put(uname.toLowerCase(Locale.US), "no");
-                    }
-                    if ("pending".equals(join)) {
-                        nodePending.add(uname.toLowerCase(Locale.US));
-                    }
-                    final NodeList nodeStates = nodeStateNode.getChildNodes();
-                    /* transient attributes. */
-                    for (int j = 0; j < nodeStates.getLength(); j++) {
-                        final Node nodeStateChild = nodeStates.item(j);
-                        if ("transient_attributes".equals(
-                            nodeStateChild.getNodeName())) {
-                            parseTransientAttributes(uname, nodeStateChild, failedMap, failedClonesMap, pingCountMap);
-                        }
-                    }
-                    final List<String> resList =
-                        groupsToResourcesMap.get("none");
-                    for (int j = 0; j < nodeStates.getLength(); j++) {
-                        final Node nodeStateChild = nodeStates.item(j);
-                        if ("lrm".equals(nodeStateChild.getNodeName())) {
-                            parseLrmResources(uname.toLowerCase(Locale.US),
-                                    nodeStateChild,
-                                    resList,
-                                    resourceTypeMap,
-                                    parametersMap,
-                                    inLRMList,
-                                    orphanedList,
-                                    failedClonesMap);
-                        }
-                    }
-                }
-            }
-        }
         cibQueryData.setDC(dc);
         cibQueryData.setNodeParameters(nodeParametersMap);
         cibQueryData.setResourceParameters(parametersMap);
         cibQueryData.setResourceParametersNvpairsIds(parametersNvpairsIdsMap);
         cibQueryData.setResourceType(resourceTypeMap);
-        cibQueryData.setInLRM(inLRMList);
-        cibQueryData.setOrphaned(orphanedList);
         cibQueryData.setResourceInstanceAttrId(resourceInstanceAttrIdMap);
 
         cibQueryData.setColocationRsc(colocationRscMap);
@@ -2938,18 +2982,121 @@ public class CrmXml {
         cibQueryData.setMetaAttrsRefs(metaAttrsRefs);
         cibQueryData.setResOpIds(resOpIdsMap);
         cibQueryData.setNodeOnline(nodeOnline);
-        cibQueryData.setNodePending(nodePending);
         cibQueryData.setGroupsToResources(groupsToResourcesMap);
         cibQueryData.setCloneToResource(cloneToResourceMap);
         cibQueryData.setMasterList(masterList);
-        cibQueryData.setNodeFailedCount(failedMap);
-        cibQueryData.setResourceFailedCloneIds(failedClonesMap);
-        cibQueryData.setNodePingCount(pingCountMap);
         cibQueryData.setRscDefaultsId(rscDefaultsId);
         cibQueryData.setRscDefaultsParams(rscDefaultsParams);
         cibQueryData.setRscDefaultsParamsNvpairIds(rscDefaultsParamsNvpairIds);
         cibQueryData.setOpDefaultsParams(opDefaultsParams);
         cibQueryData.setFencedNodes(fencedNodes);
+        cibQueryData.setNodeIds(nodeID);
+        return true;
+    }
+
+    /** Parses one <node_state> element from the cib status section. */
+    CibNodeStatus parseNodeState(final Node nodeStateNode) {
+        final CibNodeStatus nodeStatus = createNodeStatus(XMLTools.getAttribute(nodeStateNode, "uname"),
+                                                          XMLTools.getAttribute(nodeStateNode, "id"),
+                                                          XMLTools.getAttribute(nodeStateNode, "join"),
+                                                          XMLTools.getAttribute(nodeStateNode, "in_ccm"),
+                                                          XMLTools.getAttribute(nodeStateNode, "crmd"));
+        final NodeList nodeStates = nodeStateNode.getChildNodes();
+        /* transient attributes. */
+        for (int j = 0; j < nodeStates.getLength(); j++) {
+            final Node nodeStateChild = nodeStates.item(j);
+            if ("transient_attributes".equals(nodeStateChild.getNodeName())) {
+                parseTransientAttributes(nodeStateChild, nodeStatus);
+            }
+        }
+        for (int j = 0; j < nodeStates.getLength(); j++) {
+            final Node nodeStateChild = nodeStates.item(j);
+            if ("lrm".equals(nodeStateChild.getNodeName())) {
+                parseLrmResources(nodeStateChild, nodeStatus);
+            }
+        }
+        return nodeStatus;
+    }
+
+    /** Returns node status from the attributes of the <node_state> element. */
+    CibNodeStatus createNodeStatus(final String uname,
+                                   final String id,
+                                   final String join,
+                                   final String inCCM,
+                                   final String crmd) {
+        final boolean online = "member".equals(join) && "true".equals(inCCM) && !"offline".equals(crmd);
+        return new CibNodeStatus(uname, id, online, "pending".equals(join));
+    }
+
+    /**
+     * Returns a new CibQuery object with the data from the configuration
+     * query and the parsed node states.
+     */
+    CibQuery mergeCibStatus(final CibQuery configurationQuery, final Iterable<CibNodeStatus> nodeStatuses) {
+        final CibQuery cibQueryData = configurationQuery.copyConfiguration();
+        final Map<String, String> nodeID = configurationQuery.getNodeIds();
+        final Map<String, String> nodeOnline = cibQueryData.getNodeOnline();
+        final Map<String, ResourceAgent> resourceTypeMap = cibQueryData.getResourceType();
+        final Map<String, Map<String, String>> parametersMap = cibQueryData.getResourceParameters();
+        final List<String> resList = cibQueryData.getGroupsToResources().get("none");
+        final Set<String> orphanedList = new HashSet<String>();
+        /* host -> inLRMList list */
+        final Map<String, Set<String>> inLRMList = new HashMap<String, Set<String>>();
+        final Set<String> nodePending = new HashSet<String>();
+        final Table<String, String, String> failedMap = HashBasedTable.create();
+        final Table<String, String, Set<String>> failedClonesMap = HashBasedTable.create();
+        final Map<String, String> pingCountMap = new HashMap<String, String>();
+        for (final CibNodeStatus nodeStatus : nodeStatuses) {
+            final String uname = nodeStatus.getUname();
+            final String id = nodeStatus.getId();
+            if (uname == null || id == null || !id.equals(nodeID.get(uname))) {
+                LOG.appWarning("parseCibQuery: skipping " + uname + ' ' + id);
+                continue;
+            }
+            final String unameLowerCase = uname.toLowerCase(Locale.US);
+            nodeOnline.put(unameLowerCase, nodeStatus.isOnline() ? "yes" : "no");
+            if (nodeStatus.isPending()) {
+                nodePending.add(unameLowerCase);
+            }
+            if (nodeStatus.getPingCount() != null) {
+                pingCountMap.put(uname, nodeStatus.getPingCount());
+            }
+            for (final Map.Entry<String, String> failCount : nodeStatus.getFailCounts().entrySet()) {
+                failedMap.put(unameLowerCase, failCount.getKey(), failCount.getValue());
+            }
+            for (final Map.Entry<String, Set<String>> failedClones : nodeStatus.getFailedClones().entrySet()) {
+                Set<String> clones = failedClonesMap.get(unameLowerCase, failedClones.getKey());
+                if (clones == null) {
+                    clones = new LinkedHashSet<String>();
+                    failedClonesMap.put(unameLowerCase, failedClones.getKey(), clones);
+                }
+                clones.addAll(failedClones.getValue());
+            }
+            for (final CibNodeStatus.LrmResource lrmResource : nodeStatus.getLrmResources()) {
+                final String crmId = lrmResource.getCrmId();
+                if (!resourceTypeMap.containsKey(crmId)) {
+                    resourceTypeMap.put(crmId, getResourceAgent(lrmResource.getType(),
+                                                                lrmResource.getProvider(),
+                                                                lrmResource.getRaClass()));
+                    resList.add(crmId);
+                    parametersMap.put(crmId, new HashMap<String, String>());
+                    orphanedList.add(crmId);
+                }
+                /* it is in LRM */
+                Set<String> inLRMOnHost = inLRMList.get(unameLowerCase);
+                if (inLRMOnHost == null) {
+                    inLRMOnHost = new HashSet<String>();
+                    inLRMList.put(unameLowerCase, inLRMOnHost);
+                }
+                inLRMOnHost.add(crmId);
+            }
+        }
+        cibQueryData.setInLRM(inLRMList);
+        cibQueryData.setOrphaned(orphanedList);
+        cibQueryData.setNodePending(nodePending);
+        cibQueryData.setNodeFailedCount(failedMap);
+        cibQueryData.setResourceFailedCloneIds(failedClonesMap);
+        cibQueryData.setNodePingCount(pingCountMap);
         return cibQueryData;
     }
 
@@ -3222,57 +3369,47 @@ public class CrmXml {
         return linbitDrbdResourceAgentPresent;
     }
 
-    void parseLrmResources(final String unameLowerCase,
-                           final Node lrmNode,
-                           final Collection<String> resList,
-                           final Map<String, ResourceAgent> resourceTypeMap,
-                           final Map<String, Map<String, String>> parametersMap,
-                           final Map<String, Set<String>> inLRMList,
-                           final Collection<String> orphanedList,
-                           final Table<String, String, Set<String>> failedClonesMap) {
+    void parseLrmResources(final Node lrmNode, final CibNodeStatus nodeStatus) {
         final Node lrmResourcesNode = XMLTools.getChildNode(lrmNode, "lrm_resources");
+        if (lrmResourcesNode == null) {
+            return;
+        }
         final NodeList lrmResources = lrmResourcesNode.getChildNodes();
         for (int j = 0; j < lrmResources.getLength(); j++) {
             final Node rscNode = lrmResources.item(j);
             if ("lrm_resource".equals(rscNode.getNodeName())) {
-                final String resId = XMLTools.getAttribute(rscNode, "id");
-                final Pattern p = Pattern.compile("(.*):(\\d+)$");
-                final Matcher m = p.matcher(resId);
-                final String crmId;
-                if (m.matches()) {
-                    crmId = m.group(1);
-                    Set<String> clones = failedClonesMap.get(unameLowerCase, crmId);
-                    if (clones == null) {
-                        clones = new LinkedHashSet<String>();
-                        failedClonesMap.put(unameLowerCase, crmId, clones);
-                    }
-                    clones.add(m.group(2));
-                } else {
-                    crmId = resId;
-                }
-                if (!resourceTypeMap.containsKey(crmId)) {
-                    final String raClass = XMLTools.getAttribute(rscNode, "class");
-                    String provider = XMLTools.getAttribute(rscNode, "provider");
-                    if (provider == null) {
-                        provider = ResourceAgent.HEARTBEAT_PROVIDER;
-                    }
-                    final String type = XMLTools.getAttribute(rscNode, "type");
-                    resourceTypeMap.put(crmId, getResourceAgent(type, provider, raClass));
-                    resList.add(crmId);
-                    parametersMap.put(crmId, new HashMap<String, String>());
-                    orphanedList.add(crmId);
-                }
-                /* it is in LRM */
-                Set<String> inLRMOnHost = inLRMList.get(unameLowerCase);
-                if (inLRMOnHost == null) {
-                    inLRMOnHost = new HashSet<String>();
-                    inLRMList.put(unameLowerCase, inLRMOnHost);
-                }
-                inLRMOnHost.add(crmId);
+                addLrmResource(nodeStatus,
+                               XMLTools.getAttribute(rscNode, "id"),
+                               XMLTools.getAttribute(rscNode, "class"),
+                               XMLTools.getAttribute(rscNode, "provider"),
+                               XMLTools.getAttribute(rscNode, "type"));
             }
         }
     }
 
+    /** Stores one <lrm_resource> of the node. */
+    void addLrmResource(final CibNodeStatus nodeStatus,
+                        final String resId,
+                        final String raClass,
+                        final String provider,
+                        final String type) {
+        final Matcher m = CLONE_ID_PATTERN.matcher(resId);
+        final String crmId;
+        if (m.matches()) {
+            crmId = m.group(1);
+            nodeStatus.addFailedClone(crmId, m.group(2));
+        } else {
+            crmId = resId;
+        }
+        final String lrmProvider;
+        if (provider == null) {
+            lrmProvider = ResourceAgent.HEARTBEAT_PROVIDER;
+        } else {
+            lrmProvider = provider;
+        }
+        nodeStatus.addLrmResource(new CibNodeStatus.LrmResource(crmId, raClass, lrmProvider, type));
+    }
+
     private Unit parseUnit(final String param, final String u) {
         if ("s".equals(u) || "".equals(u)) {
             return getUnitSecond();
@@ -0,0 +1,191 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lcmc.common.domain.XMLTools;
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+/**
+ * Parses the cib incrementally. The cib is split into the configuration part
+ * and into the <node_state> elements of the status section. The
+ * configuration is parsed again only if it changed, the node states only if
+ * the node_state element changed, otherwise the parsed data from the previous
+ * cib are reused. If the cib can't be split, the whole cib is parsed.
+ * The node states and the whole cib are parsed with the streaming parser, if
+ * it is set.
+ */
+final class IncrementalCibParser {
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalCibParser.class);
+    private static final Pattern DC_UUID_PATTERN = Pattern.compile("dc-uuid=\"([^\"]*)\"");
+    private final CrmXml crmXml;
+    /** Streaming parser or null, if the DOM parser should be used. */
+    private final CibStaxParser cibStaxParser;
+    /** Fenced nodes, dc and configuration from the last cib. */
+    private String lastConfiguration = null;
+    private CibQuery configurationQuery = null;
+    /** <node_state> element -> parsed node status. */
+    private Map<String, CibNodeStatus> nodeStatusCache = new HashMap<String, CibNodeStatus>();
+
+    IncrementalCibParser(final CrmXml crmXml, final CibStaxParser cibStaxParser) {
+        this.crmXml = crmXml;
+        this.cibStaxParser = cibStaxParser;
+    }
+
+    CibQuery parse(final String cib) {
+        final int cibStart = findStartTag(cib, "cib", 0);
+        final int configurationStart = findStartTag(cib, "configuration", 0);
+        if (cibStart < 0 || configurationStart < 0) {
+            return parseAll(cib);
+        }
+        final int configurationEnd = findEndOfElement(cib, "configuration", configurationStart);
+        if (configurationEnd < 0) {
+            return parseAll(cib);
+        }
+        final int statusStart = findStartTag(cib, "status", configurationEnd);
+        if (statusStart < 0) {
+            return parseAll(cib);
+        }
+        final int statusEnd = findEndOfElement(cib, "status", statusStart);
+        if (statusEnd < 0) {
+            return parseAll(cib);
+        }
+        final String configuration = cib.substring(0, cibStart)
+                                     + getDcUuid(cib.substring(cibStart, cib.indexOf('>', cibStart)))
+                                     + cib.substring(configurationStart, configurationEnd);
+        if (configurationQuery == null || !configuration.equals(lastConfiguration)) {
+            final Document document = XMLTools.getXMLDocument(cib.substring(0, statusStart)
+                                                              + cib.substring(statusEnd));
+            final CibQuery newConfigurationQuery = new CibQuery();
+            if (document == null || !crmXml.parseCibConfiguration(document, newConfigurationQuery)) {
+                return parseAll(cib);
+            }
+            LOG.debug2("parse: configuration changed");
+            lastConfiguration = configuration;
+            configurationQuery = newConfigurationQuery;
+        }
+
+        final List<CibNodeStatus> nodeStatuses = new ArrayList<CibNodeStatus>();
+        final Map<String, CibNodeStatus> newNodeStatusCache = new HashMap<String, CibNodeStatus>();
+        int nodeStateStart = findStartTag(cib, "node_state", statusStart);
+        while (nodeStateStart >= 0 && nodeStateStart < statusEnd) {
+            final int nodeStateEnd = findEndOfElement(cib, "node_state", nodeStateStart);
+            if (nodeStateEnd < 0 || nodeStateEnd > statusEnd) {
+                return parseAll(cib);
+            }
+            final String nodeState = cib.substring(nodeStateStart, nodeStateEnd);
+            CibNodeStatus nodeStatus = nodeStatusCache.get(nodeState);
+            if (nodeStatus == null) {
+                LOG.debug2("parse: node state changed");
+                nodeStatus = parseNodeState(nodeState);
+                if (nodeStatus == null) {
+                    return parseAll(cib);
+                }
+            }
+            newNodeStatusCache.put(nodeState, nodeStatus);
+            nodeStatuses.add(nodeStatus);
+            nodeStateStart = findStartTag(cib, "node_state", nodeStateEnd);
+        }
+        nodeStatusCache = newNodeStatusCache;
+        return crmXml.mergeCibStatus(configurationQuery, nodeStatuses);
+    }
+
+    /** Parses the whole cib and forgets the cached data. */
+    private CibQuery parseAll(final String cib) {
+        LOG.debug1("parseAll: full cib parse");
+        lastConfiguration = null;
+        configurationQuery = null;
+        nodeStatusCache = new HashMap<String, CibNodeStatus>();
+        if (cibStaxParser == null) {
+            return crmXml.parseCibQuery(cib);
+        }
+        return cibStaxParser.parseCibQuery(cib);
+    }
+
+    /** Returns parsed node state or null if it can't be parsed. */
+    private CibNodeStatus parseNodeState(final String nodeState) {
+        if (cibStaxParser != null) {
+            return cibStaxParser.parseNodeState(nodeState);
+        }
+        final Document document = XMLTools.getXMLDocument(nodeState);
+        if (document == null) {
+            return null;
+        }
+        final Node nodeStateNode = XMLTools.getChildNode(document, "node_state");
+        if (nodeStateNode == null) {
+            return null;
+        }
+        return crmXml.parseNodeState(nodeStateNode);
+    }
+
+    private String getDcUuid(final CharSequence cibTag) {
+        final Matcher m = DC_UUID_PATTERN.matcher(cibTag);
+        if (m.find()) {
+            return m.group(1);
+        }
+        return "";
+    }
+
+    /** Returns position of the start tag or -1 if it was not found. */
+    static int findStartTag(final String xml, final String tag, final int from) {
+        int pos = xml.indexOf('<' + tag, from);
+        while (pos >= 0) {
+            final int next = pos + tag.length() + 1;
+            if (next < xml.length()) {
+                final char c = xml.charAt(next);
+                if (c == '>' || c == '/' || Character.isWhitespace(c)) {
+                    return pos;
+                }
+            }
+            pos = xml.indexOf('<' + tag, pos + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns position after the end of the element that starts at the start
+     * position or -1 if the end was not found.
+     */
+    static int findEndOfElement(final String xml, final String tag, final int start) {
+        final int startTagEnd = xml.indexOf('>', start);
+        if (startTagEnd < 0) {
+            return -1;
+        }
+        if (xml.charAt(startTagEnd - 1) == '/') {
+            return startTagEnd + 1;
+        }
+        final String endTag = "</" + tag + '>';
+        final int end = xml.indexOf(endTag, startTagEnd);
+        if (end < 0) {
+            return -1;
+        }
+        return end + endTag.length();
+    }
+}
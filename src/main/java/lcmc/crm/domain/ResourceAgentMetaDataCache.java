@@ -0,0 +1,197 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * Meta-data of the ocf resource agents of one host, that are saved on the
+ * local disk, so that they don't have to be fetched from the host on every
+ * connect. Every agent is saved with the checksum of its script, the mtime
+ * and size, and the cached meta-data are used only while the checksum on the
+ * host stays the same.
+ */
+final class ResourceAgentMetaDataCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceAgentMetaDataCache.class);
+    /** Must be changed, if the file format changes. */
+    private static final int FORMAT_VERSION = 1;
+    /** Provider and name, that can be passed to the gui helper as they are. */
+    private static final Pattern KEY_PATTERN = Pattern.compile("[\\w.+-]+/[\\w.+-]+");
+    private static final Pattern FILE_NAME_REPLACE_PATTERN = Pattern.compile("[^\\w.-]");
+    private final File cacheFile;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private boolean changed = false;
+
+    ResourceAgentMetaDataCache(final File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /** Returns the cache file for the host in the cache directory. */
+    static File getCacheFile(final String cacheDir, final String hostname, final String ip) {
+        final String name = FILE_NAME_REPLACE_PATTERN.matcher(hostname + '-' + ip).replaceAll("_");
+        return new File(cacheDir, name + ".ra-cache");
+    }
+
+    /** Returns the key of the agent or null, if it cannot be cached. */
+    static String getKey(final String provider, final String serviceName) {
+        final String key = provider + '/' + serviceName;
+        if (KEY_PATTERN.matcher(key).matches()) {
+            return key;
+        }
+        return null;
+    }
+
+    /** Loads the cache file, if there is one. */
+    synchronized void load() {
+        entries.clear();
+        if (!cacheFile.exists()) {
+            return;
+        }
+        try (final DataInputStream in = new DataInputStream(
+                new GZIPInputStream(new BufferedInputStream(new FileInputStream(cacheFile))))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                LOG.debug1("load: old cache format, ignoring: " + cacheFile);
+                return;
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String key = in.readUTF();
+                final String checksum = in.readUTF();
+                final boolean masterSlave = in.readBoolean();
+                final byte[] xml = new byte[in.readInt()];
+                in.readFully(xml);
+                entries.put(key, new Entry(checksum, masterSlave, new String(xml, StandardCharsets.UTF_8)));
+            }
+            LOG.debug1("load: " + count + " resource agents from " + cacheFile);
+        } catch (final IOException e) {
+            LOG.appWarning("load: cannot read " + cacheFile + ": " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /** Returns the cached meta-data, if the checksum matches or null. */
+    synchronized Entry get(final String key, final String checksum) {
+        final Entry entry = entries.get(key);
+        if (entry == null || !entry.getChecksum().equals(checksum)) {
+            return null;
+        }
+        return entry;
+    }
+
+    synchronized void put(final String key, final String checksum, final boolean masterSlave, final String xml) {
+        entries.put(key, new Entry(checksum, masterSlave, xml));
+        changed = true;
+    }
+
+    /** Removes the agents, that are not on the host anymore. */
+    synchronized void retainAll(final Collection<String> keys) {
+        final Iterator<String> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (!keys.contains(it.next())) {
+                it.remove();
+                changed = true;
+            }
+        }
+    }
+
+    /** Saves the cache file, if something changed. */
+    synchronized void save() {
+        if (!changed) {
+            return;
+        }
+        final File dir = cacheFile.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            LOG.appWarning("save: cannot create " + dir);
+            return;
+        }
+        final File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(
+                new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile))))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (final Map.Entry<String, Entry> keyEntry : entries.entrySet()) {
+                final Entry entry = keyEntry.getValue();
+                out.writeUTF(keyEntry.getKey());
+                out.writeUTF(entry.getChecksum());
+                out.writeBoolean(entry.isMasterSlave());
+                final byte[] xml = entry.getXml().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(xml.length);
+                out.write(xml);
+            }
+        } catch (final IOException e) {
+            LOG.appWarning("save: cannot write " + tmpFile + ": " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            LOG.appWarning("save: cannot rename " + tmpFile + " to " + cacheFile + ": " + e.getMessage());
+            return;
+        }
+        changed = false;
+        LOG.debug1("save: " + entries.size() + " resource agents to " + cacheFile);
+    }
+
+    /** Meta-data xml of one agent. */
+    static final class Entry {
+        private final String checksum;
+        private final boolean masterSlave;
+        private final String xml;
+
+        Entry(final String checksum, final boolean masterSlave, final String xml) {
+            this.checksum = checksum;
+            this.masterSlave = masterSlave;
+            this.xml = xml;
+        }
+
+        String getChecksum() {
+            return checksum;
+        }
+
+        boolean isMasterSlave() {
+            return masterSlave;
+        }
+
+        String getXml() {
+            return xml;
+        }
+    }
+}
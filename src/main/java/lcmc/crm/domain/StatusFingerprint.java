@@ -0,0 +1,117 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Small keys, that tell whether the res_status or the cib changed, so that
+ * the unchanged output doesn't have to be joined, kept and compared.
+ *
+ * The cib is identified by its admin_epoch.epoch.num_updates version, that
+ * is incremented on every change of the cib, and by the hash of the head,
+ * everything before the <configuration>, that contains the fenced nodes and
+ * the dc, that are not covered by the version.
+ */
+final class StatusFingerprint {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final Pattern ADMIN_EPOCH_PATTERN = Pattern.compile("\\badmin_epoch=\"(\\d+)\"");
+    private static final Pattern EPOCH_PATTERN = Pattern.compile("\\bepoch=\"(\\d+)\"");
+    private static final Pattern NUM_UPDATES_PATTERN = Pattern.compile("\\bnum_updates=\"(\\d+)\"");
+
+    private StatusFingerprint() {
+    }
+
+    /** Returns hash of all the lines. */
+    static String ofLines(final List<String> lines) {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        for (final String line : lines) {
+            hasher.putUnencodedChars(line).putChar('\n');
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Returns the fingerprint of the head of the cib, the lines before the
+     * <configuration> tag or up to the <cib> tag, if there is none, so that
+     * it is the same as of the head in the cib patches. If there is no
+     * version, hash of the whole cib is returned.
+     */
+    static String ofCib(final List<String> lines) {
+        final StringBuilder head = new StringBuilder();
+        boolean cibTagFound = false;
+        for (final String line : lines) {
+            final int configurationStart = IncrementalCibParser.findStartTag(line, "configuration", 0);
+            if (configurationStart >= 0) {
+                head.append(line, 0, configurationStart);
+                break;
+            }
+            if (cibTagFound && !line.trim().isEmpty()) {
+                break;
+            }
+            head.append(line).append('\n');
+            if (IncrementalCibParser.findStartTag(line, "cib", 0) >= 0) {
+                cibTagFound = true;
+            }
+        }
+        final String cibHead = head.toString().trim();
+        if (getCibVersion(cibHead) == null) {
+            return ofLines(lines);
+        }
+        return ofCibHead(cibHead);
+    }
+
+    /** Returns the fingerprint of the cib with the specified head. */
+    static String ofCibHead(final String head) {
+        final String version = getCibVersion(head);
+        final String hash = HASH_FUNCTION.newHasher().putUnencodedChars(head).hash().toString();
+        if (version == null) {
+            return hash;
+        }
+        return version + ':' + hash;
+    }
+
+    /** Returns the version from the <cib> tag in the head or null. */
+    private static String getCibVersion(final String head) {
+        final int cibStart = IncrementalCibParser.findStartTag(head, "cib", 0);
+        if (cibStart < 0) {
+            return null;
+        }
+        return getVersion(head.substring(cibStart));
+    }
+
+    /** Returns admin_epoch.epoch.num_updates or null, if it's not there. */
+    private static String getVersion(final CharSequence cibTag) {
+        final Matcher adminEpoch = ADMIN_EPOCH_PATTERN.matcher(cibTag);
+        final Matcher epoch = EPOCH_PATTERN.matcher(cibTag);
+        final Matcher numUpdates = NUM_UPDATES_PATTERN.matcher(cibTag);
+        if (adminEpoch.find() && epoch.find() && numUpdates.find()) {
+            return adminEpoch.group(1) + '.' + epoch.group(1) + '.' + numUpdates.group(1);
+        }
+        return null;
+    }
+}
@@ -21,6 +21,7 @@
 package lcmc.crm.ui;
 
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
 import edu.uci.ics.jung.graph.util.Pair;
 import edu.uci.ics.jung.visualization.Layer;
 import edu.uci.ics.jung.visualization.picking.PickedState;
@@ -140,6 +141,8 @@ public class CrmGraph extends ResourceGraph {
     /** Map from the host to the vertex. */
     private final Map<Info, Vertex> constraintPHToVertexMap = new HashMap<Info, Vertex>();
 
+    /** Answers, whether a service is an ancestor of another one. */
+    private ReachabilityIndex<Vertex> reachabilityIndex;
     private int hostDefaultXPos = 10;
     private PcmkMultiSelectionInfo multiSelectionInfo = null;
     @Inject
@@ -154,27 +157,9 @@ public class CrmGraph extends ResourceGraph {
     @Override
     public void initGraph(final ClusterBrowser clusterBrowser) {
         super.initGraph(clusterBrowser);
-        super.initGraph(new DirectedSparseGraph<Vertex, Edge>());
-    }
-
-    /**
-     * Returns true if vertex v is one of the ancestors or the same as
-     * vertex p. The vertex and edge lists must be locked when called.
-     */
-    private boolean isAncestor(final Vertex v, final Vertex p, final List<Vertex> list) {
-        if (p.equals(v)) {
-            return true;
-        }
-        for (final Vertex pre : getGraph().getPredecessors(p)) {
-            if (list.contains(pre)) {
-                return false;
-            }
-            list.add(pre);
-            if (isAncestor(v, pre, list)) {
-                return true;
-            }
-        }
-        return false;
+        final IndexedGraph graph = new IndexedGraph();
+        reachabilityIndex = graph.getReachabilityIndex();
+        super.initGraph(graph);
     }
 
     /**
@@ -199,7 +184,7 @@ public class CrmGraph extends ResourceGraph {
             unlockGraph();
             return false;
         }
-        if (getGraph().isSuccessor(pv, v) || isAncestor(v, pv, new ArrayList<Vertex>())) {
+        if (getGraph().isSuccessor(pv, v) || reachabilityIndex.isReachable(v, pv)) {
             unlockGraph();
             return true;
         }
@@ -1926,4 +1911,44 @@ public class CrmGraph extends ResourceGraph {
             }
         });
     }
+
+    /**
+     * Graph, that keeps the reachability index up to date, when the edges
+     * and vertices are added or removed.
+     */
+    private static final class IndexedGraph extends DirectedSparseGraph<Vertex, Edge> {
+        private static final long serialVersionUID = 1L;
+        private final ReachabilityIndex<Vertex> reachabilityIndex = new ReachabilityIndex<Vertex>(this);
+
+        ReachabilityIndex<Vertex> getReachabilityIndex() {
+            return reachabilityIndex;
+        }
+
+        @Override
+        public boolean addEdge(final Edge edge, final Pair<? extends Vertex> endpoints, final EdgeType edgeType) {
+            final boolean added = super.addEdge(edge, endpoints, edgeType);
+            if (added) {
+                reachabilityIndex.edgeAdded(endpoints.getFirst(), endpoints.getSecond());
+            }
+            return added;
+        }
+
+        @Override
+        public boolean removeEdge(final Edge edge) {
+            final boolean removed = super.removeEdge(edge);
+            if (removed) {
+                reachabilityIndex.invalidate();
+            }
+            return removed;
+        }
+
+        @Override
+        public boolean removeVertex(final Vertex vertex) {
+            final boolean removed = super.removeVertex(vertex);
+            if (removed) {
+                reachabilityIndex.invalidate();
+            }
+            return removed;
+        }
+    }
 }
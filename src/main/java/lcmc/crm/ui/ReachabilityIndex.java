@@ -0,0 +1,121 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.ui;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Transitive closure of a directed graph, so that it can be answered
+ * quickly, whether there is a path from one vertex to another. Every vertex
+ * has a bit set of the vertices, that can be reached from it. If an edge is
+ * added, the bit sets are updated, if an edge or a vertex is removed, the
+ * closure is computed again with the next query.
+ */
+final class ReachabilityIndex<V> {
+    private final Graph<V, ?> graph;
+    private final Map<V, Integer> vertexIds = new HashMap<V, Integer>();
+    /** Vertex id -> ids of the vertices, that can be reached from it. */
+    private final List<BitSet> reachable = new ArrayList<BitSet>();
+    private boolean valid = false;
+
+    ReachabilityIndex(final Graph<V, ?> graph) {
+        this.graph = graph;
+    }
+
+    /** Returns true if the vertices are the same or there is a path from one to the other. */
+    synchronized boolean isReachable(final V from, final V to) {
+        if (from.equals(to)) {
+            return true;
+        }
+        if (!valid) {
+            rebuild();
+        }
+        final Integer fromId = vertexIds.get(from);
+        final Integer toId = vertexIds.get(to);
+        if (fromId == null || toId == null) {
+            return false;
+        }
+        return reachable.get(fromId).get(toId);
+    }
+
+    /** Updates the closure after the edge was added to the graph. */
+    synchronized void edgeAdded(final V from, final V to) {
+        if (!valid) {
+            return;
+        }
+        final int fromId = getId(from);
+        final int toId = getId(to);
+        final BitSet added = (BitSet) reachable.get(toId).clone();
+        added.set(toId);
+        for (int id = 0; id < reachable.size(); id++) {
+            final BitSet r = reachable.get(id);
+            if (id == fromId || r.get(fromId)) {
+                r.or(added);
+            }
+        }
+    }
+
+    /** The closure will be computed again, after an edge or a vertex was removed. */
+    synchronized void invalidate() {
+        valid = false;
+    }
+
+    private void rebuild() {
+        vertexIds.clear();
+        reachable.clear();
+        for (final V v : graph.getVertices()) {
+            getId(v);
+        }
+        final Deque<V> stack = new ArrayDeque<V>();
+        for (final V v : graph.getVertices()) {
+            final BitSet r = reachable.get(vertexIds.get(v));
+            stack.push(v);
+            while (!stack.isEmpty()) {
+                for (final V s : graph.getSuccessors(stack.pop())) {
+                    final int id = getId(s);
+                    if (!r.get(id)) {
+                        r.set(id);
+                        stack.push(s);
+                    }
+                }
+            }
+        }
+        valid = true;
+    }
+
+    private int getId(final V v) {
+        Integer id = vertexIds.get(v);
+        if (id == null) {
+            id = reachable.size();
+            vertexIds.put(v, id);
+            reachable.add(new BitSet());
+        }
+        return id;
+    }
+}
@@ -82,6 +82,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -184,6 +185,8 @@ public class ServiceInfo extends EditableInfo {
     private final Lock mOperationsComboBoxHashWriteLock = mOperationsComboBoxHashLock.writeLock();
     private final Table<String, String, Widget> operationsComboBoxHash = HashBasedTable.create();
     private JComponent infoPanel = null;
+    /** Version of the services in the browser, that the same as combo boxes show. */
+    private final AtomicLong comboBoxesVersion = new AtomicLong(-1);
     /** Group info object of the group this service is in or null, if it is
      * not in any group. */
     private GroupInfo groupInfo = null;
@@ -2242,9 +2245,11 @@ public class ServiceInfo extends EditableInfo {
             getBrowser().getCrmGraph().pickInfo(ci);
         }
         if (infoPanel != null) {
+            reloadComboBoxesIfChanged();
             LOG.debug1("getInfoPanel: " + getName() + ": cached end");
             return infoPanel;
         }
+        comboBoxesVersion.set(getBrowser().getServicesVersion());
         /* init save button */
         final boolean abExisted = getApplyButton() != null;
         final ButtonCallback buttonCallback = new ButtonCallback() {
@@ -4223,11 +4228,33 @@ public class ServiceInfo extends EditableInfo {
         }
     }
 
+    /** Reloads the combo boxes, if the services changed since the last reload. */
+    public void reloadComboBoxesIfChanged() {
+        final long version = getBrowser().getServicesVersion();
+        if (comboBoxesVersion.getAndSet(version) != version) {
+            reloadComboBoxes();
+        }
+    }
+
+    /**
+     * The combo boxes are not reloaded for the version, if they were up to
+     * date with the previous one.
+     */
+    public void skipComboBoxesReload(final long version) {
+        comboBoxesVersion.compareAndSet(version - 1, version);
+    }
+
     /** Returns whether info panel is already created. */
     boolean isInfoPanelOk() {
         return infoPanel != null;
     }
 
+    /** Returns whether the info panel is shown now. */
+    public boolean isInfoPanelShowing() {
+        final JComponent panel = infoPanel;
+        return panel != null && panel.isShowing();
+    }
+
     /** Connects with DomainInfo object. */
     public DomainInfo connectWithVMS() {
         return null;
@@ -0,0 +1,227 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.drbd.domain;
+
+import lombok.Getter;
+
+/**
+ * One line from the drbdsetup .. events command. The line is tokenized by
+ * hand, without regular expressions, since there are many SP lines per
+ * second during the resync. These lines are parsed:
+ *
+ * 3 ST 0 { cs:Connected ro:Primary/Secondary ds:UpToDate/UpToDate r----- }
+ * 19 SP 0 16.9
+ * 19 UH 1 split-brain
+ *
+ * Since drbd 8.4 the device looks like this: 0,r0[0].
+ */
+@Getter
+final class DrbdEvent {
+    enum Type { STATE, SYNC_PROGRESS, USER_HELPER }
+
+    private final Type type;
+    private final String devNr;
+    private String connectionState;
+    private String nodeState;
+    private String nodeStateOther;
+    private String diskState;
+    private String diskStateOther;
+    private String flags;
+    private String syncedProgress;
+    private String helper;
+
+    private DrbdEvent(final Type type, final String devNr) {
+        this.type = type;
+        this.devNr = devNr;
+    }
+
+    /** Returns the parsed event or null if the line is not a known event. */
+    static DrbdEvent parse(final String line) {
+        final int counterEnd = skipDigits(line, 0);
+        if (counterEnd == 0) {
+            return null;
+        }
+        final int typeStart = skipSpaces(line, counterEnd);
+        if (typeStart == counterEnd || typeStart + 2 > line.length()) {
+            return null;
+        }
+        final int typeEnd = typeStart + 2;
+        final int devStart = skipSpaces(line, typeEnd);
+        if (devStart == typeEnd) {
+            return null;
+        }
+        final int devEnd = skipNonSpaces(line, devStart);
+        if (devEnd == devStart) {
+            return null;
+        }
+        final String devNr = parseDevNr(line, devStart, devEnd);
+        if (line.startsWith("ST", typeStart)) {
+            return parseState(line, devNr, devEnd);
+        } else if (line.startsWith("SP", typeStart)) {
+            return parseSyncProgress(line, devNr, devEnd);
+        } else if (line.startsWith("UH", typeStart)) {
+            return parseUserHelper(line, devNr, devEnd);
+        }
+        return null;
+    }
+
+    /** { cs:Connected ro:Primary/Secondary ds:UpToDate/UpToDate r----- } */
+    private static DrbdEvent parseState(final String line, final String devNr, final int from) {
+        int pos = skipSpaces(line, from);
+        if (pos == from || pos >= line.length() || line.charAt(pos) != '{') {
+            return null;
+        }
+        final DrbdEvent event = new DrbdEvent(Type.STATE, devNr);
+        int start = skipSpaces(line, pos + 1);
+        if (start == pos + 1) {
+            return null;
+        }
+        int end = skipNonSpaces(line, start);
+        if (!line.startsWith("cs:", start) || end - start <= 3) {
+            return null;
+        }
+        event.connectionState = line.substring(start + 3, end);
+
+        pos = end;
+        start = skipSpaces(line, pos);
+        end = skipNonSpaces(line, start);
+        if (start == pos || !(line.startsWith("ro:", start) || line.startsWith("st:", start))) {
+            return null;
+        }
+        int slash = line.lastIndexOf('/', end - 2);
+        if (slash <= start + 3) {
+            return null;
+        }
+        event.nodeState = line.substring(start + 3, slash);
+        event.nodeStateOther = line.substring(slash + 1, end);
+
+        pos = end;
+        start = skipSpaces(line, pos);
+        end = skipNonSpaces(line, start);
+        if (start == pos || !line.startsWith("ds:", start)) {
+            return null;
+        }
+        slash = line.lastIndexOf('/', end - 2);
+        if (slash <= start + 3) {
+            return null;
+        }
+        event.diskState = line.substring(start + 3, slash);
+        event.diskStateOther = line.substring(slash + 1, end);
+
+        pos = end;
+        start = skipSpaces(line, pos);
+        end = skipNonSpaces(line, start);
+        if (start == pos || end == start || !isRestOfLine(line, end)) {
+            return null;
+        }
+        event.flags = line.substring(start, end);
+        return event;
+    }
+
+    /** 16.9 */
+    private static DrbdEvent parseSyncProgress(final String line, final String devNr, final int from) {
+        if (from >= line.length() || !isSpace(line.charAt(from))) {
+            return null;
+        }
+        final int start = from + 1;
+        final int dot = skipDigits(line, start);
+        if (dot == start || dot >= line.length() || line.charAt(dot) != '.') {
+            return null;
+        }
+        final int end = skipDigits(line, dot + 1);
+        if (end == dot + 1 || !isRestOfLine(line, end)) {
+            return null;
+        }
+        final DrbdEvent event = new DrbdEvent(Type.SYNC_PROGRESS, devNr);
+        event.syncedProgress = line.substring(start, end);
+        return event;
+    }
+
+    /** split-brain */
+    private static DrbdEvent parseUserHelper(final String line, final String devNr, final int from) {
+        if (from >= line.length() || !isSpace(line.charAt(from))) {
+            return null;
+        }
+        final int start = from + 1;
+        int end = start;
+        while (end < line.length() && (line.charAt(end) >= 'a' && line.charAt(end) <= 'z' || line.charAt(end) == '-')) {
+            end++;
+        }
+        if (end == start || !isRestOfLine(line, end)) {
+            return null;
+        }
+        final DrbdEvent event = new DrbdEvent(Type.USER_HELPER, devNr);
+        event.helper = line.substring(start, end);
+        return event;
+    }
+
+    /** Returns the minor number from 0,r0[0] or the whole device. */
+    private static String parseDevNr(final String line, final int start, final int end) {
+        final int comma = skipDigits(line, start);
+        if (comma > start && comma < end && line.charAt(comma) == ',' && line.charAt(end - 1) == ']') {
+            final int bracket = line.lastIndexOf('[', end - 1);
+            if (bracket > comma + 1 && bracket < end - 2 && skipDigits(line, bracket + 1) == end - 1) {
+                return line.substring(start, comma);
+            }
+        }
+        return line.substring(start, end);
+    }
+
+    private static int skipDigits(final String line, final int from) {
+        int pos = from;
+        while (pos < line.length() && line.charAt(pos) >= '0' && line.charAt(pos) <= '9') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipSpaces(final String line, final int from) {
+        int pos = from;
+        while (pos < line.length() && isSpace(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipNonSpaces(final String line, final int from) {
+        int pos = from;
+        while (pos < line.length() && !isSpace(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /** Same characters as \s in the regular expressions. */
+    private static boolean isSpace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /** Whether there is no other line after the position, like .* matches. */
+    private static boolean isRestOfLine(final String line, final int from) {
+        for (int i = from; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
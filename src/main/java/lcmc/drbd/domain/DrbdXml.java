@@ -1243,6 +1243,18 @@ public class DrbdXml {
      * command and stores the values in the BlockDevice object.
      */
     public boolean parseDrbdEvent(final String hostName, final DrbdGraph drbdGraph, final String rawOutput) {
+        return parseDrbdEvent(hostName, drbdGraph, rawOutput, null);
+    }
+
+    /**
+     * Parses the drbd event like above, but the changed block devices are
+     * not updated, they are added to the changedBlockDevInfos, if it is not
+     * null, so that they can be updated later together.
+     */
+    public boolean parseDrbdEvent(final String hostName,
+                                  final DrbdGraph drbdGraph,
+                                  final String rawOutput,
+                                  final Collection<BlockDevInfo> changedBlockDevInfos) {
         if (rawOutput == null || hostName == null) {
             return false;
         }
@@ -1262,105 +1274,109 @@ public class DrbdXml {
         } else {
             hostDrbdLoadedMap.put(hostName, true);
         }
-        /* since drbd 8.3 there is ro: instead of st: */
-        /* since drbd 8.4 there is ro: instead of st: */
-        Pattern p = Pattern.compile("^(\\d+)\\s+ST\\s+(\\S+)\\s+\\{\\s+cs:(\\S+)\\s+"
-                                    + "(?:st|ro):(\\S+)/(\\S+)\\s+ds:(\\S+)/(\\S+)\\s+(\\S+).*?");
-        Matcher m = p.matcher(output);
-        final Pattern pDev = Pattern.compile("^(\\d+),(\\S+)\\[(\\d+)\\]$");
-        if (m.matches()) {
-            /* String counter      = m.group(1); // not used */
-            final String devNrString  = m.group(2);
-            final String cs           = m.group(3);
-            final String ro1          = m.group(4);
-            final String ro2          = m.group(5);
-            final String ds1          = m.group(6);
-            final String ds2          = m.group(7);
-            final String flags        = m.group(8);
-
-            final Matcher mDev = pDev.matcher(devNrString);
-            String devNr = devNrString;
-            if (mDev.matches()) { /* since 8.4 */
-                devNr = mDev.group(1);
-            }
-            /* get blockdevice object from device */
-            final String disk = getBackingDisk(devNr, hostName);
-            if (disk != null) {
-                final BlockDevInfo bdi = drbdGraph.findBlockDevInfo(hostName, disk);
-                if (bdi != null) {
-                    if (bdi.getBlockDevice().isDifferent(cs, ro1, ds1, flags)) {
-                        bdi.getBlockDevice().setDrbdBackingDisk(disk);
-                        bdi.getBlockDevice().setConnectionState(cs);
-                        bdi.getBlockDevice().setNodeState(ro1);
-                        bdi.getBlockDevice().setDiskState(ds1);
-                        bdi.getBlockDevice().setNodeStateOther(ro2);
-                        bdi.getBlockDevice().setDiskStateOther(ds2);
-                        bdi.getBlockDevice().setDrbdFlags(flags);
-                        bdi.updateInfo();
-                        return true;
-                    } else {
-                        return false;
-                    }
-                }
-            }
+        final DrbdEvent event = DrbdEvent.parse(output);
+        if (event == null) {
             return false;
         }
-        /* 19 SP 0 16.9 */
-        p = Pattern.compile("^(\\d+)\\s+SP\\s+(\\S+)\\s(\\d+\\.\\d+).*");
-        m = p.matcher(output);
-        if (m.matches()) {
-            /* String counter      = m.group(1); // not used */
-            final String devNrString = m.group(2);
-            final String synced = m.group(3);
-
-            final Matcher mDev = pDev.matcher(devNrString);
-            String devNr = devNrString;
-            if (mDev.matches()) { /* since 8.4 */
-                devNr = mDev.group(1);
-            }
-            final BlockDevInfo bdi = getBlockDevInfo(devNr, hostName, drbdGraph);
-            if (bdi != null && bdi.getBlockDevice().isDrbd()) {
-                if (Tools.areEqual(bdi.getBlockDevice().getSyncedProgress(), synced)) {
-                    return false;
-                } else {
-                    bdi.getBlockDevice().setSyncedProgressInPercents(synced);
-                    bdi.updateInfo();
+        final String devNr = event.getDevNr();
+        switch (event.getType()) {
+            case STATE:
+                return updateState(hostName, drbdGraph, devNr, event, changedBlockDevInfos);
+            case SYNC_PROGRESS:
+                return updateSyncedProgress(hostName,
+                                            drbdGraph,
+                                            devNr,
+                                            event.getSyncedProgress(),
+                                            changedBlockDevInfos);
+            case USER_HELPER:
+                LOG.debug("parseDrbdEvent: event: " + devNr + " - " + event.getHelper());
+                if ("split-brain".equals(event.getHelper())) {
+                    return updateSplitBrain(hostName, drbdGraph, devNr, changedBlockDevInfos);
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /** 3 ST 0 { cs:Connected ro:Primary/Secondary ds:UpToDate/UpToDate r----- } */
+    private boolean updateState(final String hostName,
+                                final DrbdGraph drbdGraph,
+                                final String devNr,
+                                final DrbdEvent event,
+                                final Collection<BlockDevInfo> changedBlockDevInfos) {
+        /* get blockdevice object from device */
+        final String disk = getBackingDisk(devNr, hostName);
+        if (disk != null) {
+            final BlockDevInfo bdi = drbdGraph.findBlockDevInfo(hostName, disk);
+            if (bdi != null) {
+                final String cs = event.getConnectionState();
+                final String ro1 = event.getNodeState();
+                final String ds1 = event.getDiskState();
+                final String flags = event.getFlags();
+                if (bdi.getBlockDevice().isDifferent(cs, ro1, ds1, flags)) {
+                    bdi.getBlockDevice().setDrbdBackingDisk(disk);
+                    bdi.getBlockDevice().setConnectionState(cs);
+                    bdi.getBlockDevice().setNodeState(ro1);
+                    bdi.getBlockDevice().setDiskState(ds1);
+                    bdi.getBlockDevice().setNodeStateOther(event.getNodeStateOther());
+                    bdi.getBlockDevice().setDiskStateOther(event.getDiskStateOther());
+                    bdi.getBlockDevice().setDrbdFlags(flags);
+                    blockDevInfoChanged(bdi, changedBlockDevInfos);
                     return true;
+                } else {
+                    return false;
                 }
             }
-            return false;
         }
-        /* 19 UH 1 split-brain */
-        p = Pattern.compile("^(\\d+)\\s+UH\\s+(\\S+)\\s([a-z-]+).*");
-        m = p.matcher(output);
-        if (m.matches()) {
-            /* String counter      = m.group(1); // not used */
-            final String devNrString = m.group(2);
-            final String what = m.group(3);
-            final Matcher mDev = pDev.matcher(devNrString);
-            String devNr = devNrString;
-            if (mDev.matches()) { /* since 8.4 */
-                devNr = mDev.group(1);
+        return false;
+    }
+
+    /** 19 SP 0 16.9 */
+    private boolean updateSyncedProgress(final String hostName,
+                                         final DrbdGraph drbdGraph,
+                                         final String devNr,
+                                         final String synced,
+                                         final Collection<BlockDevInfo> changedBlockDevInfos) {
+        final BlockDevInfo bdi = getBlockDevInfo(devNr, hostName, drbdGraph);
+        if (bdi != null && bdi.getBlockDevice().isDrbd()) {
+            if (Tools.areEqual(bdi.getBlockDevice().getSyncedProgress(), synced)) {
+                return false;
+            } else {
+                bdi.getBlockDevice().setSyncedProgressInPercents(synced);
+                blockDevInfoChanged(bdi, changedBlockDevInfos);
+                return true;
             }
-            LOG.debug("parseDrbdEvent: event: " + devNr + " - " + what);
-            if ("split-brain".equals(what)) {
-                final BlockDevInfo bdi = getBlockDevInfo(devNr, hostName, drbdGraph);
+        }
+        return false;
+    }
 
-                if (bdi != null && bdi.getBlockDevice().isDrbd()) {
-                    if (bdi.getBlockDevice().isSplitBrain()) {
-                        return false;
-                    } else {
-                        bdi.getBlockDevice().setSplitBrain(true);
-                        bdi.updateInfo();
-                        return true;
-                    }
-                }
+    /** 19 UH 1 split-brain */
+    private boolean updateSplitBrain(final String hostName,
+                                     final DrbdGraph drbdGraph,
+                                     final String devNr,
+                                     final Collection<BlockDevInfo> changedBlockDevInfos) {
+        final BlockDevInfo bdi = getBlockDevInfo(devNr, hostName, drbdGraph);
+        if (bdi != null && bdi.getBlockDevice().isDrbd()) {
+            if (bdi.getBlockDevice().isSplitBrain()) {
+                return false;
+            } else {
+                bdi.getBlockDevice().setSplitBrain(true);
+                blockDevInfoChanged(bdi, changedBlockDevInfos);
+                return true;
             }
-            return false;
         }
         return false;
     }
 
+    private void blockDevInfoChanged(final BlockDevInfo bdi, final Collection<BlockDevInfo> changedBlockDevInfos) {
+        if (changedBlockDevInfos == null) {
+            bdi.updateInfo();
+        } else {
+            changedBlockDevInfos.add(bdi);
+        }
+    }
+
     /** Removes the resource from resources, so that it does not reappear. */
     public void removeResource(final String res) {
         resourceList.remove(res);
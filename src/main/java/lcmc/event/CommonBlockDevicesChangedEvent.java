@@ -25,7 +25,7 @@ import lcmc.cluster.ui.resource.CommonBlockDevInfo;
 
 import java.util.Collection;
 
-public class CommonBlockDevicesChangedEvent {
+public class CommonBlockDevicesChangedEvent implements ClusterEvent {
     private final Cluster cluster;
     private final Collection<CommonBlockDevInfo> commonBlockDevViews;
 
@@ -36,6 +36,7 @@ public class CommonBlockDevicesChangedEvent {
         this.commonBlockDevViews = commonBlockDevViews;
     }
 
+    @Override
     public Cluster getCluster() {
         return cluster;
     }
@@ -24,7 +24,7 @@ import lcmc.cluster.domain.Cluster;
 
 import java.util.Set;
 
-public class CommonFileSystemsChangedEvent {
+public class CommonFileSystemsChangedEvent implements ClusterEvent {
     private final Cluster cluster;
     private final Set<String> commonFileSystems;
 
@@ -33,6 +33,7 @@ public class CommonFileSystemsChangedEvent {
         this.commonFileSystems = commonFileSystems;
     }
 
+    @Override
     public Cluster getCluster() {
         return cluster;
     }
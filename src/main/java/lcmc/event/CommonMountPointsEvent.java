@@ -24,7 +24,7 @@ import lcmc.cluster.domain.Cluster;
 
 import java.util.Set;
 
-public class CommonMountPointsEvent {
+public class CommonMountPointsEvent implements ClusterEvent {
     private final Cluster cluster;
     private final Set<String> commonMountPoints;
 
@@ -33,6 +33,7 @@ public class CommonMountPointsEvent {
         this.commonMountPoints = commonMountPoints;
     }
 
+    @Override
     public Cluster getCluster() {
         return cluster;
     }
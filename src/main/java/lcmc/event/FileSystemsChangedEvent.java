@@ -23,7 +23,7 @@ package lcmc.event;
 import lcmc.host.domain.Host;
 import java.util.Set;
 
-public class FileSystemsChangedEvent {
+public class FileSystemsChangedEvent implements HostEvent {
     private final Host host;
     private final Set<String> fileSystems;
 
@@ -32,6 +32,7 @@ public class FileSystemsChangedEvent {
         this.fileSystems = fileSystems;
     }
 
+    @Override
     public Host getHost() {
         return host;
     }
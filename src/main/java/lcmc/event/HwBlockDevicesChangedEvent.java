@@ -25,7 +25,7 @@ import lcmc.host.domain.Host;
 
 import java.util.Collection;
 
-public class HwBlockDevicesChangedEvent {
+public class HwBlockDevicesChangedEvent implements HostEvent {
     private final Host host;
     private final Collection<BlockDevice> blockDevices;
 
@@ -34,6 +34,7 @@ public class HwBlockDevicesChangedEvent {
         this.blockDevices = blockDevices;
     }
 
+    @Override
     public Host getHost() {
         return host;
     }
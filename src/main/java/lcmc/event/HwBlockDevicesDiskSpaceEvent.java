@@ -24,7 +24,7 @@ import lcmc.host.domain.Host;
 
 import java.util.Map;
 
-public class HwBlockDevicesDiskSpaceEvent {
+public class HwBlockDevicesDiskSpaceEvent implements HostEvent {
     private final Host host;
     private final Map<String, String> diskSpaces;
 
@@ -33,6 +33,7 @@ public class HwBlockDevicesDiskSpaceEvent {
         this.diskSpaces = diskSpaces;
     }
 
+    @Override
     public Host getHost() {
         return host;
     }
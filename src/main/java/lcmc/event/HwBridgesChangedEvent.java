@@ -25,10 +25,11 @@ import lcmc.host.domain.Host;
 
 import java.util.List;
 
-public class HwBridgesChangedEvent {
+public class HwBridgesChangedEvent implements HostEvent {
     private final Host host;
     private final List<Value> bridges;
 
+    @Override
     public Host getHost() {
         return host;
     }
@@ -22,7 +22,7 @@ package lcmc.event;
 
 import lcmc.host.domain.Host;
 
-public class HwDrbdStatusChangedEvent {
+public class HwDrbdStatusChangedEvent implements HostEvent {
     private final Host host;
     private final boolean drbdStatusOk;
 
@@ -31,6 +31,7 @@ public class HwDrbdStatusChangedEvent {
         this.drbdStatusOk = drbdStatusOk;
     }
 
+    @Override
     public Host getHost() {
         return host;
     }
@@ -24,7 +24,7 @@ import lcmc.host.domain.Host;
 
 import java.util.Set;
 
-public class HwFileSystemsChangedEvent {
+public class HwFileSystemsChangedEvent implements HostEvent {
     private final Host host;
     private final Set<String> fileSystems;
 
@@ -33,6 +33,7 @@ public class HwFileSystemsChangedEvent {
         this.fileSystems = fileSystems;
     }
 
+    @Override
     public Host getHost() {
         return host;
     }
@@ -24,7 +24,7 @@ import lcmc.host.domain.Host;
 
 import java.util.Set;
 
-public class HwMountPointsChangedEvent {
+public class HwMountPointsChangedEvent implements HostEvent {
     private final Host host;
     private final Set<String> mountPoints;
 
@@ -33,6 +33,7 @@ public class HwMountPointsChangedEvent {
         this.mountPoints = mountPoints;
     }
 
+    @Override
     public Host getHost() {
         return host;
     }
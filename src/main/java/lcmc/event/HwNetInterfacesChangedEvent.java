@@ -25,7 +25,7 @@ import lcmc.host.domain.Host;
 
 import java.util.List;
 
-public class HwNetInterfacesChangedEvent {
+public class HwNetInterfacesChangedEvent implements HostEvent {
     private final Host host;
     private final List<NetInterface> netInterfaces;
 
@@ -34,6 +34,7 @@ public class HwNetInterfacesChangedEvent {
         this.netInterfaces = netInterfaces;
     }
 
+    @Override
     public Host getHost() {
         return host;
     }
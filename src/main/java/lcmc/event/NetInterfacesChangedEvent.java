@@ -25,7 +25,7 @@ import lcmc.host.domain.Host;
 
 import java.util.List;
 
-public class NetInterfacesChangedEvent {
+public class NetInterfacesChangedEvent implements HostEvent {
     private final Host host;
     private final List<NetInterface> netInterfaces;
 
@@ -34,6 +34,7 @@ public class NetInterfacesChangedEvent {
         this.netInterfaces = netInterfaces;
     }
 
+    @Override
     public Host getHost() {
         return host;
     }
@@ -24,7 +24,7 @@ import lcmc.cluster.domain.Network;
 
 import java.util.List;
 
-public class NetworkChangedEvent {
+public class NetworkChangedEvent implements ClusterEvent {
 
     private final Cluster cluster;
     private final List<Network> commonNetworks;
@@ -34,6 +34,7 @@ public class NetworkChangedEvent {
         this.commonNetworks = commonNetworks;
     }
 
+    @Override
     public Cluster getCluster() {
         return cluster;
     }
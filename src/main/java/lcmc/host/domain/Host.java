@@ -50,6 +50,7 @@ import lcmc.common.domain.ExecCallback;
 import lcmc.common.domain.NewOutputCallback;
 import lcmc.common.domain.Unit;
 import lcmc.common.domain.Value;
+import lcmc.common.domain.util.SharedTimer;
 import lcmc.common.domain.util.Tools;
 import lcmc.common.ui.ProgressBar;
 import lcmc.common.ui.main.MainData;
@@ -133,6 +134,8 @@ public class Host implements Comparable<Host>, Value {
     private boolean savable = true;
     /** Ping is set every 10s. */
     private volatile AtomicBoolean ping = new AtomicBoolean(true);
+    /** Checks every PING_TIMEOUT, whether a ping came. */
+    private volatile SharedTimer.Task connectionStatusTask = null;
     private boolean inCluster = false;
 
     private boolean crmStatusOk = false;
@@ -364,7 +367,8 @@ public class Host implements Comparable<Host>, Value {
                                                    .newOutputCallback(outputCallback)
                                                    .silentCommand()
                                                    .silentOutput()
-                                                   .sshCommandTimeout(DRBD_EVENTS_TIMEOUT));
+                                                   .sshCommandTimeout(DRBD_EVENTS_TIMEOUT)
+                                                   .eventStream());
         } else {
             LOG.appWarning("execDrbdStatusCommand: trying to start started drbd status");
         }
@@ -398,15 +402,22 @@ public class Host implements Comparable<Host>, Value {
     public void execCrmStatusCommand(final ExecCallback execCallback,
                                      final NewOutputCallback outputCallback) {
         if (crmStatusThread == null) {
+            final String commandString;
+            if (application.isCibPatches()) {
+                commandString = "Heartbeat.getClStatusPatch";
+            } else {
+                commandString = "Heartbeat.getClStatus";
+            }
             crmStatusThread = ssh.execCommand(new ExecCommandConfig()
-                                                 .commandString("Heartbeat.getClStatus")
+                                                 .commandString(commandString)
                                                  .inBash(false)
                                                  .inSudo(false)
                                                  .execCallback(execCallback)
                                                  .newOutputCallback(outputCallback)
                                                  .silentCommand()
                                                  .silentOutput()
-                                                 .sshCommandTimeout(CLUSTER_EVENTS_TIMEOUT));
+                                                 .sshCommandTimeout(CLUSTER_EVENTS_TIMEOUT)
+                                                 .eventStream());
         } else {
             LOG.appWarning("execClStatusCommand: trying to start started status");
         }
@@ -758,33 +769,34 @@ public class Host implements Comparable<Host>, Value {
                          })
                          .silentCommand()
                          .silentOutput()
-                         .sshCommandTimeout(PING_TIMEOUT)).block();
+                         .sshCommandTimeout(PING_TIMEOUT)
+                         .eventStream()).block();
     }
 
     public void startConnectionStatus() {
-        final Thread thread = new Thread(new Runnable() {
+        connectionStatusTask = SharedTimer.scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
-                while (true) {
-                    if (ping.get()) {
-                       LOG.debug2("startConnectionStatus: connection ok on " + getName());
-                       setConnected();
-                       ping.set(false);
-                    } else {
-                       LOG.debug2("startConnectionStatus: connection lost on " + getName());
-                       getSSH().forceReconnect();
-                       setConnected();
-                    }
-                    Tools.sleep(PING_TIMEOUT);
-                    final ClusterBrowser cb = getBrowser().getClusterBrowser();
-                    /* cluster could be removed */
-                    if (cb == null || cb.isCancelServerStatus()) {
-                        break;
+                final ClusterBrowser cb = getBrowser().getClusterBrowser();
+                /* cluster could be removed */
+                if (cb == null || cb.isCancelServerStatus()) {
+                    final SharedTimer.Task task = connectionStatusTask;
+                    if (task != null) {
+                        task.cancel();
                     }
+                    return;
+                }
+                if (ping.get()) {
+                   LOG.debug2("startConnectionStatus: connection ok on " + getName());
+                   setConnected();
+                   ping.set(false);
+                } else {
+                   LOG.debug2("startConnectionStatus: connection lost on " + getName());
+                   getSSH().forceReconnect();
+                   setConnected();
                 }
             }
-        });
-        thread.start();
+        }, PING_TIMEOUT, PING_TIMEOUT);
     }
 
     /** Returns whether host ssh connection was established. */
@@ -25,6 +25,7 @@ import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import lcmc.ClusterEventBus;
 import lcmc.HwEventBus;
 import lcmc.cluster.service.ssh.Ssh;
 import lcmc.cluster.service.storage.BlockDeviceService;
@@ -48,6 +49,8 @@ public class HostFactory {
     @Inject
     private HwEventBus hwEventBus;
     @Inject
+    private ClusterEventBus clusterEventBus;
+    @Inject
     private SwingUtils swingUtils;
     @Inject
     private Application application;
@@ -98,6 +101,7 @@ public class HostFactory {
                 host,
                 drbdHost,
                 hwEventBus,
+                clusterEventBus,
                 vmsXmlProvider,
                 drbdXmlProvider,
                 swingUtils,
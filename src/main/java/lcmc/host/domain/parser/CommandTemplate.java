@@ -0,0 +1,112 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.host.domain.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command, that is split into the literal parts and the @PLACEHOLDER@
+ * parts, so that the placeholders can be replaced without regexps. The
+ * placeholders consist of upper case letters, digits, '_' and '-'.
+ */
+final class CommandTemplate {
+    private final String command;
+    /** Literal parts and placeholders with the @ signs, one after another. */
+    private final String[] segments;
+    /** Whether the segment with the same index is a placeholder. */
+    private final boolean[] placeholders;
+
+    private CommandTemplate(final String command, final List<String> segments, final List<Boolean> placeholders) {
+        this.command = command;
+        this.segments = segments.toArray(new String[segments.size()]);
+        this.placeholders = new boolean[placeholders.size()];
+        for (int i = 0; i < this.placeholders.length; i++) {
+            this.placeholders[i] = placeholders.get(i);
+        }
+    }
+
+    static CommandTemplate parse(final String command) {
+        final List<String> segments = new ArrayList<String>();
+        final List<Boolean> placeholders = new ArrayList<Boolean>();
+        int literalStart = 0;
+        int at = command.indexOf('@');
+        while (at >= 0) {
+            final int end = placeholderEnd(command, at);
+            if (end < 0) {
+                at = command.indexOf('@', at + 1);
+                continue;
+            }
+            if (at > literalStart) {
+                segments.add(command.substring(literalStart, at));
+                placeholders.add(false);
+            }
+            segments.add(command.substring(at, end + 1));
+            placeholders.add(true);
+            literalStart = end + 1;
+            at = command.indexOf('@', literalStart);
+        }
+        if (literalStart < command.length()) {
+            segments.add(command.substring(literalStart));
+            placeholders.add(false);
+        }
+        return new CommandTemplate(command, segments, placeholders);
+    }
+
+    /** Returns the index of the closing @ of the placeholder, or -1. */
+    private static int placeholderEnd(final String command, final int at) {
+        for (int i = at + 1; i < command.length(); i++) {
+            final char c = command.charAt(i);
+            if (c == '@') {
+                return i > at + 1 ? i : -1;
+            }
+            if (!(c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '-')) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the command with the placeholders replaced with the values.
+     * The placeholders without a value are left as they are, the null
+     * values are replaced with an empty string.
+     */
+    String render(final Map<String, String> values) {
+        if (values.isEmpty()) {
+            return command;
+        }
+        final StringBuilder result = new StringBuilder(command.length() + 32);
+        for (int i = 0; i < segments.length; i++) {
+            final String segment = segments[i];
+            if (placeholders[i] && values.containsKey(segment)) {
+                final String value = values.get(segment);
+                if (value != null) {
+                    result.append(value);
+                }
+            } else {
+                result.append(segment);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.host.domain.parser;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The DistResource strings of one distribution, version and arch. The
+ * resource bundle is looked up only once and the strings for the arch
+ * replace the general ones, so that a string is found with one map lookup.
+ * The commands are parsed into templates, when they are used the first
+ * time.
+ */
+final class CommandTemplates {
+    private static final String BUNDLE_NAME = "lcmc.configs.DistResource";
+    /** Templates of the commands, that are not in the resource bundle, are not kept above this. */
+    private static final int MAX_TEMPLATES = 4096;
+    private final String distributionName;
+    private final String distributionVersionString;
+    private final String arch;
+    private final Map<String, Object> strings = new HashMap<String, Object>();
+    private final ConcurrentMap<String, CommandTemplate> templates = new ConcurrentHashMap<String, CommandTemplate>();
+
+    CommandTemplates(final String distributionName, final String distributionVersionString, final String arch) {
+        this.distributionName = distributionName;
+        this.distributionVersionString = distributionVersionString;
+        this.arch = arch;
+        final ResourceBundle bundle =
+                       ResourceBundle.getBundle(BUNDLE_NAME, new Locale(distributionName, distributionVersionString));
+        final String archSuffix = '.' + arch;
+        for (final String key : bundle.keySet()) {
+            final Object value = bundle.getObject(key);
+            if (!strings.containsKey(key)) {
+                strings.put(key, value);
+            }
+            if (!arch.isEmpty() && key.endsWith(archSuffix)) {
+                strings.put(key.substring(0, key.length() - archSuffix.length()), value);
+            }
+        }
+    }
+
+    boolean isFor(final String distributionName, final String distributionVersionString, final String arch) {
+        return this.distributionName.equals(distributionName)
+               && this.distributionVersionString.equals(distributionVersionString)
+               && this.arch.equals(arch);
+    }
+
+    /** Returns the string for the arch or the general one or null. */
+    String getString(final String text) {
+        final Object value = strings.get(text);
+        if (value instanceof String) {
+            return (String) value;
+        }
+        return null;
+    }
+
+    Object getObject(final String text) {
+        return strings.get(text);
+    }
+
+    /** Returns the command with the placeholders replaced with the values. */
+    String render(final String command, final Map<String, String> values) {
+        CommandTemplate template = templates.get(command);
+        if (template == null) {
+            template = CommandTemplate.parse(command);
+            if (templates.size() < MAX_TEMPLATES) {
+                templates.put(command, template);
+            }
+        }
+        return template.render(values);
+    }
+}
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -61,6 +62,7 @@ public class DistributionDetector {
     private String arch = "";
 
     private static final Logger LOG = LoggerFactory.getLogger(Host.class);
+    private volatile CommandTemplates commandTemplates = null;
 
     public DistributionDetector(final Host host) {
         this.host = host;
@@ -214,35 +216,44 @@ public class DistributionDetector {
         return ret;
     }
 
+    /**
+     * Returns command from DistResource resource bundle for specific
+     * distribution and version with the placeholders replaced with the
+     * values.
+     */
+    public String getDistCommand(final String text, final Map<String, String> replaceHash) {
+        final String command = getDistCommand(text, null, false, false);
+        if (command == null) {
+            return null;
+        }
+        return getCommandTemplates().render(command, replaceHash);
+    }
+
     /** Returns string that is specific to a distribution and version. */
     public String getDistString(final String text) {
+        LOG.debug2("getDistString: text: {} dist: {} version: {}", text, distributionName, distributionVersionString);
+        final String ret = getCommandTemplates().getString(text);
+        LOG.debug2("getDistString: ret: {}", ret);
+        return ret;
+    }
+
+    /**
+     * Returns the strings for the current distribution, version and arch.
+     * They are looked up again only if one of them changed.
+     */
+    private CommandTemplates getCommandTemplates() {
         if (distributionName == null) {
             distributionName = "";
         }
         if (distributionVersionString == null) {
             distributionVersionString = "";
         }
-        final Locale locale = new Locale(distributionName, distributionVersionString);
-        LOG.debug2("getDistString: text: " + text + " dist: " + distributionName + " version: " + distributionVersionString);
-        final ResourceBundle resourceString = ResourceBundle.getBundle("lcmc.configs.DistResource", locale);
-        String ret;
-        try {
-            ret = resourceString.getString(text + '.' + arch);
-        } catch (final Exception e) {
-            ret = null;
-        }
-        if (ret == null) {
-            try {
-                if (ret == null) {
-                    ret = resourceString.getString(text);
-                }
-                LOG.debug2("getDistString: ret: " + ret);
-                return ret;
-            } catch (final RuntimeException e) {
-                return null;
-            }
+        CommandTemplates templates = commandTemplates;
+        if (templates == null || !templates.isFor(distributionName, distributionVersionString, arch)) {
+            templates = new CommandTemplates(distributionName, distributionVersionString, arch);
+            commandTemplates = templates;
         }
-        return ret;
+        return templates;
     }
 
     /**
@@ -301,21 +312,11 @@ public class DistributionDetector {
     /** Returns string that is specific to a distribution and version. */
     @SuppressWarnings("unchecked")
     public List<String> getDistStrings(final String text) {
-        if (distributionName == null) {
-            distributionName = "";
+        LOG.debug2("getDistStrings: text: {} dist: {} version: {}", text, distributionName, distributionVersionString);
+        final Object ret = getCommandTemplates().getObject(text);
+        if (ret instanceof List) {
+            return (List<String>) ret;
         }
-        if (distributionVersionString == null) {
-            distributionVersionString = "";
-        }
-        final Locale locale = new Locale(distributionName, distributionVersionString);
-        LOG.debug2("getDistStrings: text: " + text + " dist: " + distributionName + " version: " + distributionVersionString);
-        final ResourceBundle resourceString = ResourceBundle.getBundle("lcmc.configs.DistResource", locale);
-        List<String> ret;
-        try {
-            ret = (List<String>) resourceString.getObject(text);
-        } catch (final Exception e) {
-            ret = new ArrayList<>();
-        }
-        return ret;
+        return new ArrayList<>();
     }
 }
@@ -25,6 +25,7 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -47,6 +48,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import lcmc.Exceptions;
+import lcmc.ClusterEventBus;
 import lcmc.HwEventBus;
 import lcmc.cluster.domain.Cluster;
 import lcmc.cluster.service.ssh.ExecCommandConfig;
@@ -56,6 +58,7 @@ import lcmc.common.domain.Application;
 import lcmc.common.domain.ConvertCmdCallback;
 import lcmc.common.domain.ExecCallback;
 import lcmc.common.domain.NewOutputCallback;
+import lcmc.common.domain.NewRawOutputCallback;
 import lcmc.common.domain.StringValue;
 import lcmc.common.domain.Value;
 import lcmc.common.domain.util.Tools;
@@ -85,6 +88,7 @@ public class HostParser {
     private final Host              host;
     private final DrbdHost          drbdHost;
     private final HwEventBus        hwEventBus;
+    private final ClusterEventBus   clusterEventBus;
     private final Provider<VmsXml>  vmsXmlProvider;
     private final Provider<DrbdXml> drbdXmlProvider;
     private final SwingUtils        swingUtils;
@@ -139,6 +143,11 @@ public class HostParser {
     private Set<Value> availableCpuMapModels = new TreeSet<Value>();
     private Set<Value> availableCpuMapVendors = new TreeSet<Value>();
     private Map<String, BlockDevice> drbdBlockDevices = Maps.newLinkedHashMap();
+    /**
+     * Block devices from the last disk-info, the hw info daemon may send
+     * the vg-info without them.
+     */
+    private Map<String, BlockDevice> blockDevices = Maps.newLinkedHashMap();
     /** Options for GUI drop down lists. */
     private Map<String, List<String>> guiOptions = Maps.newHashMap();
     private Set<String> drbdResourcesWithProxy = Sets.newHashSet();
@@ -370,6 +379,7 @@ public class HostParser {
         }
 
         if (changedTypes.contains(DISK_INFO_DELIM)) {
+            blockDevices = newBlockDevices;
             drbdBlockDevices = newDrbdBlockDevices;
             physicalVolumes = newPhysicalVolumes;
             volumeGroupsWithLvs = newVolumeGroupsLVS;
@@ -420,7 +430,7 @@ public class HostParser {
         }
 
         if (changedTypes.contains(DISK_INFO_DELIM) || changedTypes.contains(VG_INFO_DELIM)) {
-            hwEventBus.post(new HwBlockDevicesChangedEvent(host, newBlockDevices.values()));
+            hwEventBus.post(new HwBlockDevicesChangedEvent(host, blockDevices.values()));
         }
     }
 
@@ -741,22 +751,7 @@ public class HostParser {
      * what-with-what hash.
      */
     public String getDistCommand(final String commandString, final Map<String, String> replaceHash) {
-        return getDistCommand(
-                commandString,
-                command -> {
-					for (final String tag : replaceHash.keySet()) {
-						if (tag != null && command.contains(tag)) {
-							String s = replaceHash.get(tag);
-							if (s == null) {
-								s = "";
-							}
-							command = command.replaceAll(tag, s);
-						}
-					}
-					return command;
-				},
-                false,  /* in bash */
-                false); /* sudo */
+        return distributionDetector.getDistCommand(commandString, replaceHash);
     }
 
     /** Gets and stores info about the host. */
@@ -798,6 +793,7 @@ public class HostParser {
                     @Override
                     public void done(final String ans) {
                         parseHostInfo(ans);
+                        awaitHwEvents();
                         for (final CategoryInfo ci : infosToUpdate) {
                             ci.updateTable(CategoryInfo.MAIN_TABLE);
                         }
@@ -820,11 +816,21 @@ public class HostParser {
                 .silentOutput()).block();
     }
 
+    /**
+     * Waits till the hardware events of this host and the cluster events,
+     * that they cause, are handled, so that the callers of getHWInfo see the
+     * new hardware info.
+     */
+    private void awaitHwEvents() {
+        hwEventBus.awaitDelivery(host);
+        clusterEventBus.awaitDelivery(host);
+        clusterEventBus.awaitDelivery(host.getCluster());
+    }
+
     /** Gets and stores hardware info about the host. */
     public void startHWInfoDaemon(final CategoryInfo[] infosToUpdate, final ResourceGraph[] graphs) {
         LOG.debug1("startHWInfoDaemon: " + host.getName());
-        serverStatusThread = host.getSSH().execCommand(new ExecCommandConfig()
-                .commandString("HostHWInfoDaemon")
+        final ExecCommandConfig execCommandConfig = new ExecCommandConfig()
                 .inBash(false)
                 .inSudo(false)
                 .execCallback(new ExecCallback() {
@@ -855,12 +861,48 @@ public class HostParser {
                         host.setLoadingError();
                     }
                 })
+                .silentCommand()
+                .silentOutput()
+                .sshCommandTimeout(HW_INFO_TIMEOUT)
+                .eventStream();
+        if (application.isHwInfoFrames()) {
+            execCommandConfig.commandString("HostHWInfoDaemonFramed")
+                .newRawOutputCallback(new NewRawOutputCallback() {
+                    private final InfoFrameDecoder frameDecoder = new InfoFrameDecoder();
+                    @Override
+                    public void output(final byte[] buffer, final int offset, final int length) {
+                        frameDecoder.append(buffer, offset, length);
+                        /* the hw infos have only the changed sections and the vm infos can be
+                           incremental, none of them may be skipped */
+                        final List<String> hwUpdates = new ArrayList<String>();
+                        final List<String> vmUpdates = new ArrayList<String>();
+                        String drbdUpdate = null;
+                        InfoFrameDecoder.Frame frame;
+                        while ((frame = frameDecoder.nextFrame()) != null) {
+                            final String type = frame.getType();
+                            if (!isNewInfo(type, frame.getTimestamp())) {
+                                continue;
+                            }
+                            if ("hw".equals(type)) {
+                                hwUpdates.add(frame.getPayload());
+                            } else if ("vm".equals(type)) {
+                                vmUpdates.add(frame.getPayload());
+                            } else if ("drbd".equals(type)) {
+                                drbdUpdate = frame.getPayload();
+                            } else {
+                                LOG.appWarning("output: unknown info frame: " + type);
+                            }
+                        }
+                        updateHWInfo(hwUpdates, vmUpdates, drbdUpdate, graphs);
+                    }
+                });
+        } else {
+            execCommandConfig.commandString("HostHWInfoDaemon")
                 .newOutputCallback(new NewOutputCallback() {
                     private final StringBuffer outputBuffer = new StringBuffer(300);
                     @Override
                     public void output(final String output) {
                         outputBuffer.append(output);
-                        final ClusterBrowser cb = host.getBrowser().getClusterBrowser();
                         String hw, vm, drbdConfig;
                         String hwUpdate = null;
                         String vmUpdate = null;
@@ -886,51 +928,107 @@ public class HostParser {
                         } while (hw != null || vm != null || drbdConfig != null);
 
                         Tools.chomp(outputBuffer);
-                        if (hwUpdate != null) {
-                            parseHostInfo(hwUpdate);
-                            for (final ResourceGraph g : graphs) {
-                                if (g != null) {
-                                    g.repaint();
-                                }
-                            }
-                        }
-                        if (vmUpdate != null) {
-                            final VmsXml newVmsXml = vmsXmlProvider.get();
-                            newVmsXml.init(host);
-                            if (newVmsXml.parseXml(vmUpdate)) {
-                                cb.vmsXmlPut(host, newVmsXml);
-                                cb.updateVms();
-                            }
-                        }
-                        if (drbdUpdate != null) {
-                            final DrbdXml dxml = drbdXmlProvider.get();
-                            dxml.init(host.getCluster().getHostsArray(), cb.getHostDrbdParameters());
-                            dxml.update(drbdUpdate);
-                            cb.setDrbdXml(dxml);
-                            swingUtils.invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    host.getBrowser().getClusterBrowser().getGlobalInfo().setParameters();
-                                    cb.updateDrbdResources();
-                                }
-                            });
-                        }
-                        if (drbdUpdate != null
-                                || vmUpdate != null) {
-                            cb.updateHWInfo(host, !Host.UPDATE_LVM);
-                        }
-                        if (drbdUpdate != null) {
-                            cb.updateServerStatus(host);
+                        final List<String> hwUpdates;
+                        if (hwUpdate == null) {
+                            hwUpdates = Collections.emptyList();
+                        } else {
+                            hwUpdates = Collections.singletonList(hwUpdate);
                         }
-                        if (getWaitForServerStatusLatch()) {
-                            cb.updateServerStatus(host);
+                        final List<String> vmUpdates;
+                        if (vmUpdate == null) {
+                            vmUpdates = Collections.emptyList();
+                        } else {
+                            vmUpdates = Collections.singletonList(vmUpdate);
                         }
-                        host.setLoadingDone();
+                        updateHWInfo(hwUpdates, vmUpdates, drbdUpdate, graphs);
                     }
-                })
-                .silentCommand()
-                .silentOutput()
-                .sshCommandTimeout(HW_INFO_TIMEOUT)).block();
+                });
+        }
+        serverStatusThread = host.getSSH().execCommand(execCommandConfig).block();
+    }
+
+    /**
+     * Parses the new output from the hw info daemon, the hw and vm infos in
+     * the order they came, drbd is null if it didn't change.
+     */
+    private void updateHWInfo(final List<String> hwUpdates,
+                              final List<String> vmUpdates,
+                              final String drbdUpdate,
+                              final ResourceGraph[] graphs) {
+        final ClusterBrowser cb = host.getBrowser().getClusterBrowser();
+        if (!hwUpdates.isEmpty()) {
+            for (final String hwUpdate : hwUpdates) {
+                parseHostInfo(hwUpdate);
+            }
+            for (final ResourceGraph g : graphs) {
+                if (g != null) {
+                    g.repaint();
+                }
+            }
+        }
+        if (!vmUpdates.isEmpty() && updateVmInfo(cb, vmUpdates)) {
+            cb.updateVms();
+        }
+        if (drbdUpdate != null) {
+            final DrbdXml dxml = drbdXmlProvider.get();
+            dxml.init(host.getCluster().getHostsArray(), cb.getHostDrbdParameters());
+            dxml.update(drbdUpdate);
+            cb.setDrbdXml(dxml);
+            swingUtils.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    host.getBrowser().getClusterBrowser().getGlobalInfo().setParameters();
+                    cb.updateDrbdResources();
+                }
+            });
+        }
+        if (drbdUpdate != null
+                || !vmUpdates.isEmpty()) {
+            cb.updateHWInfo(host, !Host.UPDATE_LVM);
+        }
+        if (drbdUpdate != null) {
+            cb.updateServerStatus(host);
+        }
+        if (getWaitForServerStatusLatch()) {
+            cb.updateServerStatus(host);
+        }
+        host.setLoadingDone();
+    }
+
+    /**
+     * Applies the vm infos in the order they came, each of them on top of
+     * the previous one. If an incremental vm info can't be applied, the
+     * helper is asked to send all domains next time. Returns whether the
+     * vms changed.
+     */
+    private boolean updateVmInfo(final ClusterBrowser cb, final List<String> vmUpdates) {
+        boolean updated = false;
+        vmStatusLock();
+        try {
+            for (final String vmUpdate : vmUpdates) {
+                final VmsXml newVmsXml = vmsXmlProvider.get();
+                newVmsXml.init(host);
+                if (newVmsXml.parseXml(vmUpdate, cb.getVmsXml(host))) {
+                    cb.vmsXmlPut(host, newVmsXml);
+                    updated = true;
+                } else if (newVmsXml.isFullInfoNeeded()) {
+                    requestFullVmInfo();
+                    break;
+                }
+            }
+        } finally {
+            vmStatusUnlock();
+        }
+        return updated;
+    }
+
+    /** Asks the hw info daemon to send all domains in the next vm info. */
+    private void requestFullVmInfo() {
+        LOG.debug1("requestFullVmInfo: host: " + host.getName());
+        host.setVMInfoMD5(null);
+        host.execCommand(new ExecCommandConfig().commandString("VMSXML.RequestFullInfo")
+                                                .silentCommand()
+                                                .silentOutput());
     }
 
     public String getOutput(final String type, final StringBuffer buffer) {
@@ -950,20 +1048,31 @@ public class HostParser {
             }  catch (final NumberFormatException nfe) {
                 LOG.debug("getOutput: could not parse: " + ts + ' ' + nfe);
             }
-            mInfoTimestampLock.lock();
-            if (timestamp != null
-                    && (!infoTimestamp.containsKey(type) || timestamp >= infoTimestamp.get(type))) {
-                infoTimestamp.put(type, timestamp);
-                mInfoTimestampLock.unlock();
+            if (timestamp != null && isNewInfo(type, timestamp)) {
                 out = buffer.substring(s2 + 2, e);
-            } else {
-                mInfoTimestampLock.unlock();
             }
             buffer.delete(0, e + infoEndLength + 2);
         }
         return out;
     }
 
+    /**
+     * Returns whether the info of this type is not older than the last one
+     * and remembers its timestamp.
+     */
+    private boolean isNewInfo(final String type, final double timestamp) {
+        mInfoTimestampLock.lock();
+        try {
+            if (!infoTimestamp.containsKey(type) || timestamp >= infoTimestamp.get(type)) {
+                infoTimestamp.put(type, timestamp);
+                return true;
+            }
+            return false;
+        } finally {
+            mInfoTimestampLock.unlock();
+        }
+    }
+
     public void vmStatusLock() {
         mUpdateVMSlock.lock();
     }
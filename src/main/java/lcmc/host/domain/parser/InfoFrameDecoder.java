@@ -0,0 +1,219 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.host.domain.parser;
+
+import java.nio.charset.Charset;
+
+import lcmc.logger.Logger;
+import lcmc.logger.LoggerFactory;
+
+/**
+ * Decodes the output of the "hw-info-daemon framed" command of the
+ * lcmc-gui-helper. Every info is sent in a frame:
+ *
+ * --info-frame-- type timestamp length
+ * payload of length bytes
+ * \n
+ *
+ * Only the header lines are searched for, the payload is skipped by its
+ * length. If a header appears at the start of a line, before the payload is
+ * complete, the length was wrong and the decoding continues with the new
+ * header. The bytes are kept in one buffer, that is reused and grows only if
+ * a frame doesn't fit in it. After all the data were decoded, the grown
+ * buffer is replaced with a small one again.
+ */
+final class InfoFrameDecoder {
+    private static final Logger LOG = LoggerFactory.getLogger(InfoFrameDecoder.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String FRAME_START = "--info-frame-- ";
+    private static final byte[] FRAME_START_BYTES = FRAME_START.getBytes(UTF8);
+    /** Headers with longer payload are garbage. */
+    private static final int MAX_PAYLOAD_LENGTH = 64 * 1024 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    /** Start of the data, that were not decoded yet. */
+    private int start = 0;
+    /** End of the data in the buffer. */
+    private int end = 0;
+    /** Up to this position no end of the header line was found. */
+    private int scanned = 0;
+    /** Header of the frame, whose payload didn't arrive yet, or null. */
+    private Frame header = null;
+
+    void append(final byte[] bytes, final int offset, final int length) {
+        if (end + length > buffer.length) {
+            final int used = end - start;
+            if (used + length > buffer.length / 2) {
+                final byte[] newBuffer = new byte[Math.max(buffer.length * 2, used + length)];
+                System.arraycopy(buffer, start, newBuffer, 0, used);
+                buffer = newBuffer;
+            } else {
+                System.arraycopy(buffer, start, buffer, 0, used);
+            }
+            scanned -= start;
+            start = 0;
+            end = used;
+        }
+        System.arraycopy(bytes, offset, buffer, end, length);
+        end += length;
+    }
+
+    /** Returns next complete frame or null, if there is none yet. */
+    Frame nextFrame() {
+        while (true) {
+            if (header == null) {
+                final int lineEnd = indexOfNewLine(Math.max(start, scanned));
+                if (lineEnd < 0) {
+                    scanned = end;
+                    if (start == end) {
+                        resetBuffer();
+                    }
+                    return null;
+                }
+                header = parseHeader(start, lineEnd);
+                start = lineEnd + 1;
+                scanned = start;
+                continue;
+            }
+            /* payload and the new line */
+            if (end - start < header.payloadLength + 1) {
+                final int nextHeader = indexOfFrameStart(Math.max(start, scanned));
+                if (nextHeader < 0) {
+                    scanned = Math.max(start, end - FRAME_START_BYTES.length + 1);
+                    return null;
+                }
+                LOG.appWarning("nextFrame: the " + header.type + " frame is shorter than its length: "
+                               + header.payloadLength);
+                header = null;
+                start = nextHeader;
+                scanned = start;
+                continue;
+            }
+            final Frame frame = header;
+            header = null;
+            if (buffer[start + frame.payloadLength] != '\n') {
+                LOG.appWarning("nextFrame: wrong length of the " + frame.type + " frame: " + frame.payloadLength);
+                continue;
+            }
+            frame.payload = new String(buffer, start, frame.payloadLength, UTF8);
+            start += frame.payloadLength + 1;
+            scanned = start;
+            return frame;
+        }
+    }
+
+    /** Starts at the beginning of the buffer and shrinks it, if it grew. */
+    private void resetBuffer() {
+        if (buffer.length > INITIAL_BUFFER_SIZE) {
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+        start = 0;
+        end = 0;
+        scanned = 0;
+    }
+
+    int getBufferSize() {
+        return buffer.length;
+    }
+
+    private int indexOfNewLine(final int from) {
+        for (int i = from; i < end; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the position of the next header, that starts a line, or -1. */
+    private int indexOfFrameStart(final int from) {
+        for (int i = from; i + FRAME_START_BYTES.length <= end; i++) {
+            if (i != start && buffer[i - 1] != '\n') {
+                continue;
+            }
+            int j = 0;
+            while (j < FRAME_START_BYTES.length && buffer[i + j] == FRAME_START_BYTES[j]) {
+                j++;
+            }
+            if (j == FRAME_START_BYTES.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the header of the frame or null, if it is not a header. */
+    private Frame parseHeader(final int lineStart, final int lineEnd) {
+        int length = lineEnd - lineStart;
+        if (length > 0 && buffer[lineEnd - 1] == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return null;
+        }
+        final String line = new String(buffer, lineStart, length, UTF8);
+        if (!line.startsWith(FRAME_START)) {
+            LOG.debug2("parseHeader: skipping: " + line);
+            return null;
+        }
+        final String[] fields = line.substring(FRAME_START.length()).trim().split(" +");
+        if (fields.length != 3) {
+            LOG.appWarning("parseHeader: could not parse: " + line);
+            return null;
+        }
+        try {
+            final int payloadLength = Integer.parseInt(fields[2]);
+            if (payloadLength < 0 || payloadLength > MAX_PAYLOAD_LENGTH) {
+                LOG.appWarning("parseHeader: wrong length: " + line);
+                return null;
+            }
+            return new Frame(fields[0], Double.parseDouble(fields[1]), payloadLength);
+        } catch (final NumberFormatException nfe) {
+            LOG.appWarning("parseHeader: could not parse: " + line, nfe);
+            return null;
+        }
+    }
+
+    static final class Frame {
+        private final String type;
+        private final double timestamp;
+        private final int payloadLength;
+        private String payload;
+
+        Frame(final String type, final double timestamp, final int payloadLength) {
+            this.type = type;
+            this.timestamp = timestamp;
+            this.payloadLength = payloadLength;
+        }
+
+        String getType() {
+            return type;
+        }
+
+        double getTimestamp() {
+            return timestamp;
+        }
+
+        String getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.logger;
+
+import java.io.PrintStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prints the log messages in a background thread, so that the threads, that
+ * log, don't wait for the stdout. The messages wait in an own bounded queue,
+ * the thread sleeps while it is empty. If the writer falls behind more than
+ * the capacity of the queue, the new messages are dropped and counted.
+ */
+final class AsyncLogWriter implements Runnable {
+    private final BlockingQueue<LogRingBuffer.LogEntry> pending;
+    private final PrintStream out;
+    private final AtomicLong dropped = new AtomicLong(0);
+    private volatile boolean running = true;
+    private volatile Thread thread = null;
+
+    AsyncLogWriter(final PrintStream out, final int capacity) {
+        this.out = out;
+        pending = new LinkedBlockingQueue<LogRingBuffer.LogEntry>(capacity);
+    }
+
+    /** Starts the background thread. */
+    void start(final String threadName) {
+        final Thread t = new Thread(this, threadName);
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    /**
+     * Queues the message, if it should be printed. Returns false, if the
+     * writer was stopped and the caller must print the message itself.
+     */
+    boolean add(final LogRingBuffer.LogEntry entry) {
+        if (!running) {
+            return false;
+        }
+        if (entry.isPrint() && !pending.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            final LogRingBuffer.LogEntry entry;
+            try {
+                entry = pending.take();
+            } catch (final InterruptedException e) {
+                /* stopped */
+                continue;
+            }
+            synchronized (this) {
+                out.println(entry.format());
+                writePending();
+            }
+        }
+        writePending();
+    }
+
+    /** Prints the pending messages. Returns false, if there were none. */
+    synchronized boolean writePending() {
+        boolean written = false;
+        LogRingBuffer.LogEntry entry;
+        while ((entry = pending.poll()) != null) {
+            out.println(entry.format());
+            written = true;
+        }
+        final long count = dropped.getAndSet(0);
+        if (count > 0) {
+            out.println("... " + count + " log messages dropped");
+            written = true;
+        }
+        return written;
+    }
+
+    /** Stops the writer after it printed the pending messages. */
+    void stop() {
+        running = false;
+        final Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+}
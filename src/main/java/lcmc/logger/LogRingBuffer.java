@@ -0,0 +1,155 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last log messages. Every message gets a sequence number and is put
+ * into the slot for this number without locking, overwriting the oldest
+ * message. The messages are stored unformatted and are formatted only, when
+ * they are printed or read for the bug report.
+ */
+final class LogRingBuffer {
+    private final AtomicReferenceArray<LogEntry> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong(0);
+
+    /** The capacity must be a power of two. */
+    LogRingBuffer(final int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        slots = new AtomicReferenceArray<LogEntry>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the message and returns it. The className is null, if the
+     * message has no time and class name. The args replace the {} in the
+     * message, they can be null.
+     */
+    LogEntry add(final String prefix,
+                 final String className,
+                 final String msg,
+                 final Object[] args,
+                 final boolean print) {
+        final long sequence = nextSequence.getAndIncrement();
+        final LogEntry entry = new LogEntry(sequence, prefix, className, msg, args, print);
+        slots.set((int) sequence & mask, entry);
+        return entry;
+    }
+
+    /**
+     * Returns the message in the slot of the sequence number. It can be an
+     * older message, if the one with this number is being added right now,
+     * or a newer one, if it was already overwritten, or null.
+     */
+    LogEntry get(final long sequence) {
+        return slots.get((int) sequence & mask);
+    }
+
+    /** Returns the sequence number of the next message. */
+    long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    int getCapacity() {
+        return mask + 1;
+    }
+
+    /** Returns the last formatted messages, the oldest first. */
+    List<String> getLast(final int count) {
+        final long end = nextSequence.get();
+        final long start = Math.max(0, end - Math.min(count, getCapacity()));
+        final List<String> messages = new ArrayList<String>();
+        for (long sequence = start; sequence < end; sequence++) {
+            final LogEntry entry = get(sequence);
+            if (entry != null && entry.getSequence() == sequence) {
+                messages.add(entry.format());
+            }
+        }
+        return messages;
+    }
+
+    /** One log message, that is formatted, when it's needed. */
+    static final class LogEntry {
+        private final long sequence;
+        private final long timeMillis = System.currentTimeMillis();
+        private final String prefix;
+        private final String className;
+        private final String msg;
+        private final Object[] args;
+        /** Whether the message should be printed or only kept for the bug report. */
+        private final boolean print;
+
+        LogEntry(final long sequence,
+                 final String prefix,
+                 final String className,
+                 final String msg,
+                 final Object[] args,
+                 final boolean print) {
+            this.sequence = sequence;
+            this.prefix = prefix;
+            this.className = className;
+            this.msg = msg;
+            this.args = args;
+            this.print = print;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        boolean isPrint() {
+            return print;
+        }
+
+        String format() {
+            final StringBuilder text = new StringBuilder(100).append(prefix);
+            if (className != null) {
+                text.append('[')
+                    .append(timeMillis / 1000 - Logger.APP_START_TIME_SECONDS)
+                    .append("s] ")
+                    .append(className)
+                    .append(": ");
+            }
+            if (args == null) {
+                text.append(msg);
+            } else {
+                int from = 0;
+                for (final Object arg : args) {
+                    final int placeholder = msg.indexOf("{}", from);
+                    if (placeholder < 0) {
+                        break;
+                    }
+                    text.append(msg, from, placeholder).append(arg);
+                    from = placeholder + 2;
+                }
+                text.append(msg, from, msg.length());
+            }
+            return text.toString();
+        }
+    }
+}
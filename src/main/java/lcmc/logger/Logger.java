@@ -54,7 +54,7 @@ public final class Logger {
     private static final String TRACE_STRING      = "TRACE   : ";
     private static final String APPWARNING_STRING = "WARN    : ";
     private static final String APPERROR_STRING   = "APPERROR: ";
-    private static final long APP_START_TIME_SECONDS = System.currentTimeMillis() / 1000;
+    static final long APP_START_TIME_SECONDS = System.currentTimeMillis() / 1000;
     public static final List<Pattern> IGNORE_EXCEPTION_PATTERNS =
         Collections.unmodifiableList(new ArrayList<Pattern>(Arrays.asList(
             Pattern.compile(".*:1.6.0_27:.*ToolTipManager\\.java.*", Pattern.DOTALL))));
@@ -68,31 +68,40 @@ public final class Logger {
         this.className = className;
     }
 
-    /** Returns seconds since start. */
-    private long secondsSinceStart() {
-        return System.currentTimeMillis() / 1000 - APP_START_TIME_SECONDS;
-    }
-
     public void info(final String msg) {
-        final String msg0 = INFO_STRING + msg;
-        System.out.println(msg0);
-        LoggerFactory.LOG_BUFFER.add(msg0);
+        LoggerFactory.log(INFO_STRING, null, msg, null, true);
     }
 
     public void debug(final String msg) {
-        debug(DEBUG_STRING, msg, 0);
+        debug(DEBUG_STRING, msg, null, 0);
     }
 
     public void debug1(final String msg) {
-        debug(DEBUG1_STRING, msg, 1);
+        debug(DEBUG1_STRING, msg, null, 1);
+    }
+
+    /**
+     * The {} in the message are replaced with the args, only if the message
+     * is printed or read.
+     */
+    public void debug1(final String msg, final Object... args) {
+        debug(DEBUG1_STRING, msg, args, 1);
     }
 
     public void debug2(final String msg) {
-        debug(DEBUG2_STRING, msg, 2);
+        debug(DEBUG2_STRING, msg, null, 2);
+    }
+
+    /**
+     * The {} in the message are replaced with the args, only if the message
+     * is printed or read.
+     */
+    public void debug2(final String msg, final Object... args) {
+        debug(DEBUG2_STRING, msg, args, 2);
     }
 
     public void trace(final String msg) {
-        debug(TRACE_STRING, msg, 3);
+        debug(TRACE_STRING, msg, null, 3);
     }
 
     /**
@@ -101,24 +110,15 @@ public final class Logger {
      *
      * @param msg
      *          debug message
+     * @param args
+     *          arguments for the {} in the message or null
      * @param level
      *          level of this message.
      */
-    private void debug(final String prefix, final String msg, final int level) {
-        if (level <= LoggerFactory.getDebugLevel() + 1) {
-            final String msg0 = new StringBuilder()
-                                .append(prefix)
-                                .append('[')
-                                .append(secondsSinceStart())
-                                .append("s] ")
-                                .append(className)
-                                .append(": ")
-                                .append(msg)
-                                .toString();
-            if (level <= LoggerFactory.getDebugLevel()) {
-                System.out.println(msg0);
-            }
-            LoggerFactory.LOG_BUFFER.add(msg0);
+    private void debug(final String prefix, final String msg, final Object[] args, final int level) {
+        final int debugLevel = LoggerFactory.getDebugLevel();
+        if (level <= debugLevel + 1) {
+            LoggerFactory.log(prefix, className, msg, args, level <= debugLevel);
         }
     }
 
@@ -129,9 +129,7 @@ public final class Logger {
      *          error message
      */
     public void error(final String msg) {
-        final String msg0 = ERROR_STRING + msg;
-        System.out.println(msg0);
-        LoggerFactory.LOG_BUFFER.add(msg0);
+        LoggerFactory.log(ERROR_STRING, null, msg, null, true);
         final MainData mainData = AppContext.getBean(MainData.class);
         SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -176,12 +174,10 @@ public final class Logger {
     public void appWarning(final String msg) {
         if (!appWarningHash.contains(msg)) {
             appWarningHash.add(msg);
-            final String msg0 = APPWARNING_STRING + msg;
             if (LoggerFactory.getShowAppWarning()) {
-                System.out.println(msg0);
-                LoggerFactory.LOG_BUFFER.add(msg0);
+                LoggerFactory.log(APPWARNING_STRING, null, msg, null, true);
             } else {
-                debug(msg0);
+                debug(APPWARNING_STRING + msg);
             }
         }
     }
@@ -190,12 +186,10 @@ public final class Logger {
     public void appWarning(final String msg, final Exception e) {
         if (!appWarningHash.contains(msg)) {
             appWarningHash.add(msg);
-            final String msg0 = APPWARNING_STRING + msg + ": " + e.getMessage();
             if (LoggerFactory.getShowAppWarning()) {
-                System.out.println(msg0);
-                LoggerFactory.LOG_BUFFER.add(msg0);
+                LoggerFactory.log(APPWARNING_STRING, null, msg + ": " + e.getMessage(), null, true);
             } else {
-                debug(msg0);
+                debug(APPWARNING_STRING + msg + ": " + e.getMessage());
             }
         }
     }
@@ -22,9 +22,6 @@ package lcmc.logger;
 
 import java.util.HashMap;
 import java.util.Map;
-import org.apache.commons.collections15.Buffer;
-import org.apache.commons.collections15.BufferUtils;
-import org.apache.commons.collections15.buffer.CircularFifoBuffer;
 
 public final class LoggerFactory {
     private static final Map<String, Logger> LOGGER_MAP = new HashMap<String, Logger>();
@@ -33,9 +30,15 @@ public final class LoggerFactory {
     /** Whether application errors should show a dialog. */
     private static boolean showAppError = false;
     private static final int CIRCULAR_LOG_SIZE = 200;
-    /** Synchronized, Circular log. */
-    static final Buffer<String> LOG_BUFFER =
-                                  BufferUtils.synchronizedBuffer(new CircularFifoBuffer<String>(CIRCULAR_LOG_SIZE));
+    /** Power of two, that holds the last CIRCULAR_LOG_SIZE messages. */
+    private static final int LOG_RING_SIZE = 256;
+    /** How many messages can the asynchronous writer fall behind. */
+    private static final int ASYNC_LOG_QUEUE_SIZE = 8192;
+    /** The last log messages. */
+    static final LogRingBuffer LOG_BUFFER = new LogRingBuffer(LOG_RING_SIZE);
+    /** Prints the log messages in the asynchronous mode, null otherwise. */
+    private static volatile AsyncLogWriter asyncLogWriter = null;
+    private static boolean flushOnShutdown = false;
     public static void incrementDebugLevel() {
         debugLevel++;
         System.out.println("debug level: " + debugLevel);
@@ -58,6 +61,60 @@ public final class LoggerFactory {
         debugLevel = level;
     }
 
+    /**
+     * In the asynchronous mode the log messages are printed from a
+     * background thread.
+     */
+    public static synchronized void setAsyncLogging(final boolean async) {
+        if (async == (asyncLogWriter != null)) {
+            return;
+        }
+        if (async) {
+            final AsyncLogWriter writer = new AsyncLogWriter(System.out, ASYNC_LOG_QUEUE_SIZE);
+            writer.start("log-writer");
+            asyncLogWriter = writer;
+            if (!flushOnShutdown) {
+                flushOnShutdown = true;
+                Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        final AsyncLogWriter w = asyncLogWriter;
+                        if (w != null) {
+                            w.writePending();
+                        }
+                    }
+                }));
+            }
+        } else {
+            final AsyncLogWriter writer = asyncLogWriter;
+            asyncLogWriter = null;
+            writer.stop();
+            writer.writePending();
+        }
+    }
+
+    public static boolean isAsyncLogging() {
+        return asyncLogWriter != null;
+    }
+
+    /**
+     * Adds the message to the log buffer and prints it, if print is true,
+     * now or in the asynchronous writer.
+     */
+    static void log(final String prefix,
+                    final String className,
+                    final String msg,
+                    final Object[] args,
+                    final boolean print) {
+        final LogRingBuffer.LogEntry entry = LOG_BUFFER.add(prefix, className, msg, args, print);
+        if (print) {
+            final AsyncLogWriter writer = asyncLogWriter;
+            if (writer == null || !writer.add(entry)) {
+                System.out.println(entry.format());
+            }
+        }
+    }
+
     public static void setShowAppWarning(final boolean aw) {
         showAppWarning = aw;
     }
@@ -90,10 +147,8 @@ public final class LoggerFactory {
     /** Return the whole log buffer. */
     public static String getLogBuffer() {
         final StringBuilder lb = new StringBuilder();
-        synchronized (LOG_BUFFER) {
-            for (final String l : LOG_BUFFER) {
-                lb.append(l).append('\n');
-            }
+        for (final String l : LOG_BUFFER.getLast(CIRCULAR_LOG_SIZE)) {
+            lb.append(l).append('\n');
         }
         return lb.toString();
     }
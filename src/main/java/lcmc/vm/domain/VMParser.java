@@ -111,6 +111,31 @@ public class VMParser {
         namesToConfigs.put(domainName, configName);
     }
 
+    /**
+     * Takes over the parsed data of the domain, that didn't change, from the
+     * parser of the previous vm info.
+     */
+    void copyVM(final VMParser oldVmParser, final String domainName, final String configName) {
+        final DomainData domainData = oldVmParser.domainDataMap.get(domainName);
+        if (domainData == null) {
+            return;
+        }
+        domainDataMap.put(domainName, domainData);
+        if (oldVmParser.domainNames.contains(domainName) && !domainNames.contains(domainName)) {
+            domainNames.add(domainName);
+        }
+        usedMacAddresses.addAll(domainData.getInterfacesMap().keySet());
+        for (final DiskData diskData : domainData.getDisksMap().values()) {
+            final String dir = Tools.getDirectoryPart(diskData.getSourceFile());
+            if (dir != null) {
+                sourceFileDirs.add(dir);
+            }
+        }
+        if (configName != null) {
+            configsToNames.put(new StringValue(configName), domainName);
+        }
+    }
+
     public String getValue(final String name, final String param) {
         return getDomainData(name).getValue(param);
     }
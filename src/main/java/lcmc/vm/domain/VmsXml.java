@@ -25,9 +25,12 @@ package lcmc.vm.domain;
 
 import java.io.StringWriter;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -197,8 +200,13 @@ public class VmsXml {
     private final ReadWriteLock mXMLDocumentLock = new ReentrantReadWriteLock();
     private final Lock mXMLDocumentReadLock = mXMLDocumentLock.readLock();
     private final Lock mXMLDocumentWriteLock = mXMLDocumentLock.writeLock();
-    private Document xmlDocument = null;
+    /** Domain name -> <vm> node with the config. */
+    private Map<String, Node> vmNodes = new HashMap<String, Node>();
+    /** Domain name -> md5 of the <vm> element from the helper. */
+    private final Map<String, String> vmMd5s = new HashMap<String, String>();
     private String oldConfig = null;
+    /** Whether the vm info couldn't be applied and all domains must be sent again. */
+    private boolean fullInfoNeeded = false;
 
     public void init(final Host definedOnHost) {
         this.definedOnHost = definedOnHost;
@@ -206,17 +214,21 @@ public class VmsXml {
 
     public Node getDomainNode(final String domainName) {
         mXMLDocumentReadLock.lock();
-        final Document document;
+        final Node vmNode;
         try {
-            document = xmlDocument;
+            vmNode = vmNodes.get(domainName);
         } finally {
             mXMLDocumentReadLock.unlock();
         }
+        if (vmNode == null) {
+            LOG.appWarning("getDomainNode: could not find xml for " + domainName);
+            return null;
+        }
         final XPath xpath = XPathFactory.newInstance().newXPath();
         final Node domainNode;
         try {
-            final String path = "//vms/vm[@name='" + domainName + "']/config/domain";
-            final NodeList domainNodes = (NodeList) xpath.evaluate(path, document, XPathConstants.NODESET);
+            final String path = "config/domain";
+            final NodeList domainNodes = (NodeList) xpath.evaluate(path, vmNode, XPathConstants.NODESET);
             if (domainNodes.getLength() == 1) {
                 domainNode = domainNodes.item(0);
             } else if (domainNodes.getLength() >= 1) {
@@ -234,19 +246,23 @@ public class VmsXml {
     }
 
     private void saveDomainXML(final String configName, final Node node, final String defineCommand) {
-        final String xml;
+        final String xml = nodeToString(node);
+        if (xml != null) {
+            definedOnHost.getSSH().scp(xml, configName, "0600", true, defineCommand, null, null);
+        }
+    }
+
+    /** Returns the xml of the node or null if it can't be transformed. */
+    private String nodeToString(final Node node) {
         try {
             final Transformer transformer = TransformerFactory.newInstance().newTransformer();
             final StreamResult res = new StreamResult(new StringWriter());
             final Source src = new DOMSource(node);
             transformer.transform(src, res);
-            xml = res.getWriter().toString();
+            return res.getWriter().toString();
         } catch (final TransformerException e) {
-            LOG.appError("saveDomainXML: " + e.getMessageAndLocation(), e);
-            return;
-        }
-        if (xml != null) {
-            definedOnHost.getSSH().scp(xml, configName, "0600", true, defineCommand, null, null);
+            LOG.appError("nodeToString: " + e.getMessageAndLocation(), e);
+            return null;
         }
     }
 
@@ -672,7 +688,11 @@ public class VmsXml {
         removeXML(domainName, parametersMap, "devices/video", getVideoDataComparator(), virshOptions);
     }
 
-    public boolean parseXml() {
+    /**
+     * Gets the vm info from the host and parses it. The domains, that didn't
+     * change since the old vm info, are not parsed again.
+     */
+    public boolean parseXml(final VmsXml oldVmsXml) {
         final String command = definedOnHost.getHostParser().getDistCommand("VMSXML.GetData", (ConvertCmdCallback) null);
         final SshOutput ret = definedOnHost.captureCommand(new ExecCommandConfig().command(command)
                                                                                   .silentCommand()
@@ -684,41 +704,140 @@ public class VmsXml {
         if (output == null) {
             return false;
         }
-        return parseXml(output);
+        return parseXml(output, oldVmsXml);
     }
 
     public boolean parseXml(final String xml) {
-        oldConfig = xml;
+        return parseXml(xml, null);
+    }
+
+    /**
+     * Parses the vm info. The domains, that have the same md5 as in the old
+     * vm info, are not parsed again, their data are taken from the old vm
+     * info. If the vm info is incremental, it has only the changed and
+     * removed domains and the other ones are taken from the old vm info.
+     */
+    public boolean parseXml(final String xml, final VmsXml oldVmsXml) {
         final Document document = XMLTools.getXMLDocument(xml);
-        mXMLDocumentWriteLock.lock();
-        try {
-            xmlDocument = document;
-        } finally {
-            mXMLDocumentWriteLock.unlock();
-        }
         if (document == null) {
+            fullInfoNeeded = true;
             return false;
         }
         final Node vmsNode = XMLTools.getChildNode(document, "vms");
         final String md5 = XMLTools.getAttribute(vmsNode, "md5");
+        final boolean incremental = "True".equals(XMLTools.getAttribute(vmsNode, "incremental"));
+        if (incremental && oldVmsXml == null) {
+            LOG.debug1("parseXml: incremental vm info without the previous one");
+            fullInfoNeeded = true;
+            return false;
+        }
         if (md5 == null || md5.equals(definedOnHost.getVMInfoMD5())) {
             return false;
         }
         definedOnHost.setVMInfoMD5(md5);
+        if (!incremental) {
+            oldConfig = xml;
+        }
+        final Map<String, Node> newVmNodes = new HashMap<String, Node>();
+        final Collection<String> removedDomains = new HashSet<String>();
         final NodeList vms = vmsNode.getChildNodes();
         for (int i = 0; i < vms.getLength(); i++) {
             final Node node = vms.item(i);
             if ("net".equals(node.getNodeName())) {
                 networkParser.parseNetwork(node);
             } else if ("vm".equals(node.getNodeName())) {
-                vmParser.parseVM(node, definedOnHost, namesToConfigs);
+                final String domainName = XMLTools.getAttribute(node, VMParams.VM_PARAM_NAME);
+                final String vmMd5 = XMLTools.getAttribute(node, "md5");
+                if (oldVmsXml != null && vmMd5 != null && vmMd5.equals(oldVmsXml.vmMd5s.get(domainName))) {
+                    copyVM(oldVmsXml, domainName);
+                } else {
+                    vmParser.parseVM(node, definedOnHost, namesToConfigs);
+                }
+                newVmNodes.put(domainName, node);
+                if (vmMd5 != null) {
+                    vmMd5s.put(domainName, vmMd5);
+                }
+            } else if ("vm-removed".equals(node.getNodeName())) {
+                removedDomains.add(XMLTools.getAttribute(node, VMParams.VM_PARAM_NAME));
             } else if ("version".equals(node.getNodeName())) {
                 definedOnHost.getHostParser().setLibvirtVersion(XMLTools.getText(node));
             }
         }
+        if (incremental && oldVmsXml != null) {
+            for (final Map.Entry<String, Node> oldVmNode : oldVmsXml.getVmNodes().entrySet()) {
+                final String domainName = oldVmNode.getKey();
+                if (!newVmNodes.containsKey(domainName) && !removedDomains.contains(domainName)) {
+                    copyVM(oldVmsXml, domainName);
+                    newVmNodes.put(domainName, oldVmNode.getValue());
+                    final String vmMd5 = oldVmsXml.vmMd5s.get(domainName);
+                    if (vmMd5 != null) {
+                        vmMd5s.put(domainName, vmMd5);
+                    }
+                }
+            }
+        }
+        mXMLDocumentWriteLock.lock();
+        try {
+            vmNodes = newVmNodes;
+        } finally {
+            mXMLDocumentWriteLock.unlock();
+        }
         return true;
     }
 
+    /**
+     * Returns the domains, that changed since the old vm info: the new and
+     * removed domains and the ones with a different md5. All domains are
+     * returned, if there is no old vm info.
+     */
+    public Collection<String> getChangedDomainNames(final VmsXml oldVmsXml) {
+        final Set<String> domainNames = new HashSet<String>(getDomainNames());
+        if (oldVmsXml == this) {
+            return Collections.emptySet();
+        }
+        if (oldVmsXml == null) {
+            return domainNames;
+        }
+        final Set<String> oldDomainNames = new HashSet<String>(oldVmsXml.getDomainNames());
+        final Set<String> changedDomainNames = new HashSet<String>(oldDomainNames);
+        changedDomainNames.removeAll(domainNames);
+        for (final String domainName : domainNames) {
+            final String md5 = vmMd5s.get(domainName);
+            if (md5 == null
+                || !md5.equals(oldVmsXml.vmMd5s.get(domainName))
+                || !oldDomainNames.contains(domainName)) {
+                changedDomainNames.add(domainName);
+            }
+        }
+        return changedDomainNames;
+    }
+
+    /**
+     * Returns whether the last vm info couldn't be parsed or applied, so
+     * that the changes in it are lost, till all domains are sent again.
+     */
+    public boolean isFullInfoNeeded() {
+        return fullInfoNeeded;
+    }
+
+    /** Takes over the domain, that didn't change, from the old vm info. */
+    private void copyVM(final VmsXml oldVmsXml, final String domainName) {
+        final String configName = oldVmsXml.namesToConfigs.get(domainName);
+        vmParser.copyVM(oldVmsXml.vmParser, domainName, configName);
+        if (configName != null) {
+            namesToConfigs.put(domainName, configName);
+        }
+    }
+
+    private Map<String, Node> getVmNodes() {
+        mXMLDocumentReadLock.lock();
+        try {
+            return vmNodes;
+        } finally {
+            mXMLDocumentReadLock.unlock();
+        }
+    }
+
     public Collection<String> getDomainNames() {
         return vmParser.getDomainNames();
     }
@@ -988,7 +1107,19 @@ public class VmsXml {
         return vmParser.getUsedMacAddresses();
     }
 
+    /** Returns the vm info, the domains are put together if it was incremental. */
     public String getConfig() {
+        if (oldConfig == null) {
+            final StringBuilder config = new StringBuilder("<vms>\n");
+            for (final Node vmNode : getVmNodes().values()) {
+                final String vm = nodeToString(vmNode);
+                if (vm != null) {
+                    config.append(vm).append('\n');
+                }
+            }
+            config.append("</vms>\n");
+            return config.toString();
+        }
         return oldConfig;
     }
 }
@@ -778,6 +778,17 @@ public final class DiskInfo extends HardwareInfo {
         return false;
     }
 
+    /** Whether the source is required depends on the type and on the bus type. */
+    @Override
+    protected Collection<String> getParamsDependentOn(final String param) {
+        if (DiskData.TYPE.equals(param)) {
+            return Arrays.asList(DiskData.SOURCE_FILE, DiskData.SOURCE_DEVICE);
+        } else if (DiskData.TARGET_BUS_TYPE.equals(param)) {
+            return Arrays.asList(DiskData.TARGET_DEVICE, DiskData.SOURCE_FILE, DiskData.SOURCE_DEVICE);
+        }
+        return super.getParamsDependentOn(param);
+    }
+
     /** Returns access type of this parameter. */
     @Override
     protected AccessMode.Type getAccessType(final String param) {
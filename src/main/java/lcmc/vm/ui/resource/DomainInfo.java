@@ -2315,6 +2315,17 @@ public class DomainInfo extends EditableInfo {
         return DEFAULTS_MAP.get(param);
     }
 
+    /** The memory can't be lower than the current memory. */
+    @Override
+    protected Collection<String> getParamsDependentOn(final String param) {
+        if (VMParams.VM_PARAM_MEMORY.equals(param)) {
+            return Collections.singleton(VMParams.VM_PARAM_CURRENTMEMORY);
+        } else if (VMParams.VM_PARAM_CURRENTMEMORY.equals(param)) {
+            return Collections.singleton(VMParams.VM_PARAM_MEMORY);
+        }
+        return super.getParamsDependentOn(param);
+    }
+
     /** Returns true if the value of the parameter is ok. */
     @Override
     protected boolean checkParam(final String param, final Value newValue) {
@@ -445,6 +445,15 @@ public final class InterfaceInfo extends HardwareInfo {
         return AccessMode.ADMIN;
     }
 
+    /** Whether the source network or bridge is required depends on the type. */
+    @Override
+    protected Collection<String> getParamsDependentOn(final String param) {
+        if (InterfaceData.TYPE.equals(param)) {
+            return Arrays.asList(InterfaceData.SOURCE_NETWORK, InterfaceData.SOURCE_BRIDGE);
+        }
+        return super.getParamsDependentOn(param);
+    }
+
     /** Returns true if the value of the parameter is ok. */
     @Override
     protected boolean checkParam(final String param, final Value newValue) {
@@ -0,0 +1,145 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.eventbus.Subscribe;
+import lcmc.event.HwDrbdStatusChangedEvent;
+import lcmc.event.HwFileSystemsChangedEvent;
+import lcmc.host.domain.Host;
+import lombok.val;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class CoalescingEventBusTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    public void pendingEventsShouldBeReplacedByTheLatestOnes() throws InterruptedException {
+        val eventBus = new CoalescingEventBus("test-event-bus");
+        eventBus.setAsyncDispatch(true);
+        val host = mock(Host.class);
+        val subscriber = new Subscriber(3);
+        eventBus.register(subscriber);
+
+        eventBus.post(new HwDrbdStatusChangedEvent(host, false));
+        assertThat(subscriber.started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        eventBus.post(new HwFileSystemsChangedEvent(host, null));
+        eventBus.post(new HwDrbdStatusChangedEvent(host, false));
+        eventBus.post(new HwFileSystemsChangedEvent(host, null));
+        eventBus.post(new HwDrbdStatusChangedEvent(host, true));
+        assertThat(eventBus.getQueueDepth(), is(2));
+        subscriber.release.countDown();
+
+        assertThat(subscriber.delivered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(subscriber.getEvents(), is("drbd false, fs, drbd true"));
+        assertThat(eventBus.getPostedEvents(), is(5L));
+        assertThat(eventBus.getCoalescedEvents(), is(2L));
+        assertThat(eventBus.getQueueDepth(), is(0));
+    }
+
+    @Test
+    public void eventsShouldBeDeliveredInThePostingThreadByDefault() {
+        val eventBus = new CoalescingEventBus("test-event-bus");
+        val host = mock(Host.class);
+        val subscriber = new Subscriber(2);
+        subscriber.release.countDown();
+        eventBus.register(subscriber);
+
+        eventBus.post(new HwDrbdStatusChangedEvent(host, true));
+        eventBus.post(new HwDrbdStatusChangedEvent(host, false));
+
+        assertThat(subscriber.getEvents(), is("drbd true, drbd false"));
+        assertThat(eventBus.getPostedEvents(), is(0L));
+    }
+
+    @Test
+    public void awaitDeliveryShouldReturnWhenThePendingEventsAreDelivered() throws InterruptedException {
+        val eventBus = new CoalescingEventBus("test-event-bus");
+        eventBus.setAsyncDispatch(true);
+        val host = mock(Host.class);
+        val subscriber = new Subscriber(2);
+        eventBus.register(subscriber);
+
+        eventBus.post(new HwDrbdStatusChangedEvent(host, true));
+        assertThat(subscriber.started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        eventBus.post(new HwFileSystemsChangedEvent(host, null));
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (final InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+                subscriber.release.countDown();
+            }
+        }).start();
+        eventBus.awaitDelivery(host);
+
+        assertThat(subscriber.getEvents(), is("drbd true, fs"));
+        assertThat(eventBus.getQueueDepth(), is(0));
+    }
+
+    /** Waits in the first event till it is released. */
+    public static final class Subscriber {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch delivered;
+        private final List<String> events = new ArrayList<String>();
+
+        Subscriber(final int expectedEvents) {
+            delivered = new CountDownLatch(expectedEvents);
+        }
+
+        @Subscribe
+        public void onDrbdStatusChanged(final HwDrbdStatusChangedEvent event) throws InterruptedException {
+            add("drbd " + event.isDrbdStatusOk());
+        }
+
+        @Subscribe
+        public void onFileSystemsChanged(final HwFileSystemsChangedEvent event) throws InterruptedException {
+            add("fs");
+        }
+
+        private void add(final String event) throws InterruptedException {
+            started.countDown();
+            release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            synchronized (events) {
+                events.add(event);
+            }
+            delivered.countDown();
+        }
+
+        String getEvents() {
+            synchronized (events) {
+                return String.join(", ", events);
+            }
+        }
+    }
+}
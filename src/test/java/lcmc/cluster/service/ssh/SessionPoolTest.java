@@ -0,0 +1,43 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.cluster.service.ssh;
+
+import java.io.IOException;
+
+import lombok.val;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class SessionPoolTest {
+    @Test
+    public void acquireShouldFailAfterTheTimeoutIfNoSessionIsFree() throws IOException {
+        val sessionPool = new SessionPool(2);
+
+        assertThat(sessionPool.acquire(10), is(true));
+        assertThat(sessionPool.acquire(10), is(true));
+        assertThat(sessionPool.acquire(10), is(false));
+
+        sessionPool.release();
+        assertThat(sessionPool.acquire(10), is(true));
+    }
+}
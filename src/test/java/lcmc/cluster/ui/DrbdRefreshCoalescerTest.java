@@ -0,0 +1,73 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.cluster.ui;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import lcmc.drbd.ui.resource.BlockDevInfo;
+import lombok.val;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class DrbdRefreshCoalescerTest {
+    private static final long FRAME_INTERVAL = 200;
+    private static final long TIMEOUT_SECONDS = 10;
+    private final Semaphore refreshes = new Semaphore(0);
+    private final DrbdRefreshCoalescer drbdRefreshCoalescer = new DrbdRefreshCoalescer(
+            FRAME_INTERVAL,
+            new Runnable() {
+                @Override
+                public void run() {
+                    refreshes.release();
+                }
+            });
+
+    @Test
+    public void eventsInOneFrameShouldCauseOneRefresh() throws InterruptedException {
+        val bdi1 = mock(BlockDevInfo.class);
+        val bdi2 = mock(BlockDevInfo.class);
+        drbdRefreshCoalescer.eventsReceived(1);
+        drbdRefreshCoalescer.blockDevicesChanged(Collections.singletonList(bdi1));
+        assertThat(refreshes.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+
+        drbdRefreshCoalescer.eventsReceived(2);
+        drbdRefreshCoalescer.blockDevicesChanged(Arrays.asList(bdi1, bdi2));
+        drbdRefreshCoalescer.eventsReceived(3);
+        drbdRefreshCoalescer.blockDevicesChanged(Collections.singletonList(bdi2));
+        drbdRefreshCoalescer.eventsReceived(1);
+        assertThat(refreshes.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        Thread.sleep(FRAME_INTERVAL * 2);
+
+        assertThat(refreshes.availablePermits(), is(0));
+        assertThat(drbdRefreshCoalescer.getRefreshesPerformed(), is(2L));
+        assertThat(drbdRefreshCoalescer.getEventsReceived(), is(7L));
+        verify(bdi1, times(2)).updateInfo();
+        verify(bdi2, times(1)).updateInfo();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.common.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Optional;
+import lcmc.cluster.ui.widget.Check;
+import lcmc.cluster.ui.widget.Widget;
+import lcmc.common.domain.AccessMode;
+import lcmc.common.domain.ResourceValue;
+import lcmc.common.domain.Value;
+import lcmc.common.ui.utils.SwingUtils;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EditableInfoTest {
+    private static final String PARAM_A = "a";
+    private static final String PARAM_B = "b";
+    private static final String PARAM_C = "c";
+    private static final String[] PARAMS = {PARAM_A, PARAM_B, PARAM_C};
+    @Mock
+    private SwingUtils swingUtils;
+    @Mock
+    private Widget widgetA;
+    @Mock
+    private Widget widgetB;
+    @Mock
+    private Widget widgetC;
+    @InjectMocks
+    private TestInfo info = new TestInfo();
+
+    @Before
+    public void setUp() {
+        info.einit(Optional.of(new ResourceValue("test")), "test", null);
+        info.addWidget(PARAM_A, widgetA);
+        info.addWidget(PARAM_B, widgetB);
+        info.addWidget(PARAM_C, widgetC);
+    }
+
+    @Test
+    public void changesInTheCheckDelayShouldBeCheckedOnce() throws InterruptedException {
+        info.checkParameterFields(widgetA, null, PARAM_A, PARAMS, null);
+        info.checkParameterFields(widgetA, null, PARAM_A, PARAMS, null);
+        info.checkParameterFields(widgetB, null, PARAM_B, PARAMS, null);
+
+        assertThat(info.resourceChecksLatch.await(5, TimeUnit.SECONDS), is(true));
+        Thread.sleep(500);
+        assertThat(info.resourceChecks.get(), is(1));
+        assertThat(info.getCheckedParams(), is(Arrays.asList(PARAM_A, PARAM_B, PARAM_C)));
+    }
+
+    @Test
+    public void paramsDependentOnTheChangedOneShouldBeCheckedAgain() {
+        info.checkResourceFields(null, PARAMS);
+        info.correctValues.put(PARAM_B, false);
+        info.correctValues.put(PARAM_C, false);
+        info.getCheckedParams().clear();
+
+        val check = info.checkResourceFields(PARAM_A, PARAMS);
+
+        assertThat(info.getCheckedParams(), is(Arrays.asList(PARAM_A, PARAM_B)));
+        assertThat(check.isCorrect(), is(false));
+    }
+
+    /** Param b depends on param a. */
+    static class TestInfo extends EditableInfo {
+        private final Map<String, Boolean> correctValues = new HashMap<String, Boolean>();
+        private final List<String> checkedParams = Collections.synchronizedList(new ArrayList<String>());
+        private final AtomicInteger resourceChecks = new AtomicInteger(0);
+        private final CountDownLatch resourceChecksLatch = new CountDownLatch(1);
+
+        void addWidget(final String param, final Widget widget) {
+            widgetAdd(param, null, widget);
+        }
+
+        List<String> getCheckedParams() {
+            return checkedParams;
+        }
+
+        @Override
+        public Check checkResourceFields(final String param, final String[] params) {
+            final Check check = super.checkResourceFields(param, params);
+            resourceChecks.incrementAndGet();
+            resourceChecksLatch.countDown();
+            return check;
+        }
+
+        @Override
+        protected Collection<String> getParamsDependentOn(final String param) {
+            if (PARAM_A.equals(param)) {
+                return Collections.singleton(PARAM_B);
+            }
+            return super.getParamsDependentOn(param);
+        }
+
+        @Override
+        protected boolean checkParam(final String param, final Value newValue) {
+            checkedParams.add(param);
+            return !correctValues.containsKey(param) || correctValues.get(param);
+        }
+
+        @Override
+        protected String getSection(final String param) {
+            return null;
+        }
+
+        @Override
+        protected boolean isRequired(final String param) {
+            return false;
+        }
+
+        @Override
+        protected boolean isAdvanced(final String param) {
+            return false;
+        }
+
+        @Override
+        protected String isEnabled(final String param) {
+            return null;
+        }
+
+        @Override
+        protected AccessMode.Type getAccessType(final String param) {
+            return AccessMode.ADMIN;
+        }
+
+        @Override
+        protected AccessMode.Mode isEnabledOnlyInAdvancedMode(final String param) {
+            return AccessMode.NORMAL;
+        }
+
+        @Override
+        protected boolean isLabel(final String param) {
+            return false;
+        }
+
+        @Override
+        protected boolean isInteger(final String param) {
+            return false;
+        }
+
+        @Override
+        protected boolean isTimeType(final String param) {
+            return false;
+        }
+
+        @Override
+        protected boolean isCheckBox(final String param) {
+            return false;
+        }
+
+        @Override
+        protected String getParamType(final String param) {
+            return null;
+        }
+
+        @Override
+        protected Value[] getParamPossibleChoices(final String param) {
+            return null;
+        }
+
+        @Override
+        public String[] getParametersFromXML() {
+            return PARAMS;
+        }
+
+        @Override
+        protected Value getParamDefault(final String param) {
+            return null;
+        }
+
+        @Override
+        protected Value getParamPreferred(final String param) {
+            return null;
+        }
+
+        @Override
+        protected String getParamShortDesc(final String param) {
+            return param;
+        }
+
+        @Override
+        protected String getParamLongDesc(final String param) {
+            return param;
+        }
+    }
+}
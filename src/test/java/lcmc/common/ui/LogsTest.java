@@ -0,0 +1,46 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.common.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import lcmc.host.domain.parser.DistributionDetector;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class LogsTest {
+    @Test
+    public void grepPatternShouldBeInsertedLiterally() {
+        final DistributionDetector distributionDetector = new DistributionDetector(null);
+        distributionDetector.detect(ImmutableList.of("Linux", "x86_64", "3.16.0-4-amd64", "8.6", "debian"));
+        final Map<String, String> replaceHash = new HashMap<String, String>();
+        replaceHash.put("@GREPPATTERN@", '\'' + Logs.wordBoundary("lrmd") + ".*" + Logs.wordBoundary("ERROR") + '\'');
+
+        assertThat(distributionDetector.getDistCommand("Logs.hbLog", replaceHash),
+                   is("(grep '\\<lrmd\\>.*\\<ERROR\\>' /var/log/ha.log 2>/dev/null"
+                      + " || grep '\\<lrmd\\>.*\\<ERROR\\>' /var/log/syslog 2>/dev/null"
+                      + " || grep '\\<lrmd\\>.*\\<ERROR\\>' /var/log/messages)|tail -500"));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.common.ui;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+
+import lombok.val;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class TextLayoutCacheTest {
+    private final TextLayout textLayout =
+            new TextLayout("text", new Font(Font.DIALOG, Font.PLAIN, 12), new FontRenderContext(null, false, false));
+
+    @Test
+    public void layoutShouldBeFoundByFontSizeAndText() {
+        val cache = new TextLayoutCache(10);
+        cache.put(0.8, "text", textLayout);
+
+        assertThat(cache.get(0.8, "text"), is(sameInstance(textLayout)));
+        assertThat(cache.get(1, "text"), is(nullValue()));
+        assertThat(cache.get(0.8, "other"), is(nullValue()));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(2L));
+    }
+
+    @Test
+    public void leastRecentlyUsedLayoutShouldBeEvicted() {
+        val cache = new TextLayoutCache(2);
+        cache.put(1, "a", textLayout);
+        cache.put(1, "b", textLayout);
+        cache.get(1, "a");
+        cache.put(1, "c", textLayout);
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getEvictions(), is(1L));
+        assertThat(cache.get(1, "b"), is(nullValue()));
+        assertThat(cache.get(1, "a"), is(sameInstance(textLayout)));
+        assertThat(cache.get(1, "c"), is(sameInstance(textLayout)));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import lcmc.host.domain.Host;
+import lcmc.host.domain.parser.HostParser;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+/**
+ * Runs the DOM, the streaming and the incremental cib parsers on the same
+ * cibs and checks that they give the same results.
+ */
+@RunWith(JUnitParamsRunner.class)
+public class CibParserParityTest {
+    @InjectMocks
+    private CrmXml crmXml;
+    @Mock
+    private Host host;
+    @Mock
+    private HostParser hostParser;
+    private CibStaxParser cibStaxParser;
+
+    @Before
+    public void setUp() {
+        crmXml = new CrmXml();
+        MockitoAnnotations.initMocks(this);
+        given(host.getHostParser()).willReturn(hostParser);
+        given(hostParser.getPacemakerVersion()).willReturn("1.1.10");
+        cibStaxParser = new CibStaxParser(crmXml);
+    }
+
+    @Test
+    @Parameters({"cib/cib-two-nodes.xml", "cib/cib-no-status.xml"})
+    public void staxParserShouldParseTheSameCib(final String cibFile) {
+        val cib = readFile(cibFile);
+
+        assertSameCibQuery(cibStaxParser.parseCibQuery(cib), crmXml.parseCibQuery(cib));
+    }
+
+    @Test
+    @Parameters({"cib/cib-two-nodes.xml", "cib/cib-no-status.xml"})
+    public void incrementalParserShouldParseTheSameCib(final String cibFile) {
+        val cib = readFile(cibFile);
+        val incrementalParser = new IncrementalCibParser(crmXml, null);
+
+        assertSameCibQuery(incrementalParser.parse(cib), crmXml.parseCibQuery(cib));
+        assertSameCibQuery(incrementalParser.parse(cib), crmXml.parseCibQuery(cib));
+    }
+
+    @Test
+    @Parameters({"cib/cib-two-nodes.xml", "cib/cib-no-status.xml"})
+    public void incrementalStaxParserShouldParseTheSameCib(final String cibFile) {
+        val cib = readFile(cibFile);
+        val incrementalParser = new IncrementalCibParser(crmXml, cibStaxParser);
+
+        assertSameCibQuery(incrementalParser.parse(cib), crmXml.parseCibQuery(cib));
+        assertSameCibQuery(incrementalParser.parse(cib), crmXml.parseCibQuery(cib));
+    }
+
+    @Test
+    public void incrementalParsersShouldParseChangedStatus() {
+        val cib = readFile("cib/cib-two-nodes.xml");
+        val changedCib = cib.replace("<node_state id=\"168430083\" uname=\"node3\" in_ccm=\"false\" crmd=\"offline\""
+                                     + " join=\"pending\" expected=\"down\"/>",
+                                     "<node_state id=\"168430083\" uname=\"node3\" in_ccm=\"true\" crmd=\"online\""
+                                     + " join=\"member\" expected=\"member\"><lrm><lrm_resources>"
+                                     + "<lrm_resource id=\"res_Dummy_3\" type=\"Dummy\" class=\"ocf\""
+                                     + " provider=\"heartbeat\"/></lrm_resources></lrm></node_state>");
+        val domParser = new IncrementalCibParser(crmXml, null);
+        val staxParser = new IncrementalCibParser(crmXml, cibStaxParser);
+        domParser.parse(cib);
+        staxParser.parse(cib);
+
+        val expected = crmXml.parseCibQuery(changedCib);
+        assertThat(expected.getNodeOnline().get("node3"), is("yes"));
+        assertSameCibQuery(domParser.parse(changedCib), expected);
+        assertSameCibQuery(staxParser.parse(changedCib), expected);
+    }
+
+    @Test
+    public void incrementalParsersShouldParseChangedConfiguration() {
+        val cib = readFile("cib/cib-two-nodes.xml");
+        val changedCib = cib.replace("value=\"192.168.122.100\"", "value=\"192.168.122.101\"");
+        val domParser = new IncrementalCibParser(crmXml, null);
+        val staxParser = new IncrementalCibParser(crmXml, cibStaxParser);
+        domParser.parse(cib);
+        staxParser.parse(cib);
+
+        val expected = crmXml.parseCibQuery(changedCib);
+        assertThat(expected.getResourceParameters().get("res_IPaddr2_1").get("ip"), is("192.168.122.101"));
+        assertSameCibQuery(domParser.parse(changedCib), expected);
+        assertSameCibQuery(staxParser.parse(changedCib), expected);
+    }
+
+    @Test
+    @Parameters({"", "no resources defined!", "<pcmk><cib>", "<other/>"})
+    public void parsersShouldReturnEmptyCibQueryForWrongCib(final String cib) {
+        assertSameCibQuery(cibStaxParser.parseCibQuery(cib), crmXml.parseCibQuery(cib));
+        assertSameCibQuery(new IncrementalCibParser(crmXml, cibStaxParser).parse(cib), crmXml.parseCibQuery(cib));
+    }
+
+    @Test
+    public void staxParserShouldParseTheSameResStatus() {
+        val resStatus = readFile("cib/res-status.xml");
+
+        val expected = crmXml.parseResStatus(resStatus);
+        val actual = cibStaxParser.parseResStatus(resStatus);
+
+        assertThat(expected.size(), is(4));
+        assertThat(actual.keySet(), is(expected.keySet()));
+        for (final Map.Entry<String, CrmXml.ResourceStatus> entry : expected.entrySet()) {
+            val expectedStatus = entry.getValue();
+            val actualStatus = actual.get(entry.getKey());
+            assertThat(actualStatus.getRunningOnNodes(), is(expectedStatus.getRunningOnNodes()));
+            assertThat(actualStatus.getMasterOnNodes(), is(expectedStatus.getMasterOnNodes()));
+            assertThat(actualStatus.getSlaveOnNodes(), is(expectedStatus.getSlaveOnNodes()));
+            assertThat(actualStatus.getAllocationScores(), is(expectedStatus.getAllocationScores()));
+            assertThat(actualStatus.isManagedByCrm(), is(expectedStatus.isManagedByCrm()));
+        }
+    }
+
+    @Test
+    @Parameters({"", "<resource_status>", "<other/>"})
+    public void staxParserShouldNotParseWrongResStatus(final String resStatus) {
+        assertThat(crmXml.parseResStatus(resStatus), nullValue());
+        assertThat(cibStaxParser.parseResStatus(resStatus), nullValue());
+    }
+
+    private void assertSameCibQuery(final CibQuery actual, final CibQuery expected) {
+        assertThat(actual, notNullValue());
+        assertThat(actual.getCrmConfig(), is(expected.getCrmConfig()));
+        assertThat(actual.getDC(), is(expected.getDC()));
+        assertThat(actual.getFencedNodes(), is(expected.getFencedNodes()));
+        assertThat(actual.getNodeIds(), is(expected.getNodeIds()));
+        assertThat(actual.getNodeParameters(), is(expected.getNodeParameters()));
+        assertThat(actual.getResourceParameters(), is(expected.getResourceParameters()));
+        assertThat(actual.getResourceParametersNvpairsIds(), is(expected.getResourceParametersNvpairsIds()));
+        assertThat(actual.getResourceType(), is(expected.getResourceType()));
+        assertThat(actual.getResourceInstanceAttrId(), is(expected.getResourceInstanceAttrId()));
+        assertThat(actual.getGroupsToResources(), is(expected.getGroupsToResources()));
+        assertThat(actual.getCloneToResource(), is(expected.getCloneToResource()));
+        assertThat(actual.getMasterList(), is(expected.getMasterList()));
+        assertThat(actual.getColocationId().keySet(), is(expected.getColocationId().keySet()));
+        assertThat(actual.getColocationRsc().keySet(), is(expected.getColocationRsc().keySet()));
+        assertThat(actual.getOrderId().keySet(), is(expected.getOrderId().keySet()));
+        assertThat(actual.getOrderRsc().keySet(), is(expected.getOrderRsc().keySet()));
+        assertThat(actual.getOrderIdRscSets().keySet(), is(expected.getOrderIdRscSets().keySet()));
+        assertThat(actual.getColocationIdRscSets().keySet(), is(expected.getColocationIdRscSets().keySet()));
+        assertThat(actual.getRscSetConnections().toString(), is(expected.getRscSetConnections().toString()));
+        assertThat(actual.getLocations(), is(expected.getLocations()));
+        assertThat(actual.getPingLocations(), is(expected.getPingLocations()));
+        assertThat(actual.getLocationsId(), is(expected.getLocationsId()));
+        assertThat(actual.getResHostToLocId(), is(expected.getResHostToLocId()));
+        assertThat(actual.getResPingToLocId(), is(expected.getResPingToLocId()));
+        assertThat(actual.getOperations(), is(expected.getOperations()));
+        assertThat(actual.getOperationsId(), is(expected.getOperationsId()));
+        assertThat(actual.getOperationsRefs(), is(expected.getOperationsRefs()));
+        assertThat(actual.getMetaAttrsId(), is(expected.getMetaAttrsId()));
+        assertThat(actual.getMetaAttrsRefs(), is(expected.getMetaAttrsRefs()));
+        assertThat(actual.getResOpIds(), is(expected.getResOpIds()));
+        assertThat(actual.getRscDefaultsId(), is(expected.getRscDefaultsId()));
+        assertThat(actual.getRscDefaultsParams(), is(expected.getRscDefaultsParams()));
+        assertThat(actual.getOpDefaultsParams(), is(expected.getOpDefaultsParams()));
+        /* status */
+        assertThat(actual.getNodeOnline(), is(expected.getNodeOnline()));
+        assertThat(actual.getNodePending(), is(expected.getNodePending()));
+        assertThat(actual.getOrphaned(), is(expected.getOrphaned()));
+        assertThat(actual.getInLRM(), is(expected.getInLRM()));
+        assertThat(actual.getNodeFailedCount(), is(expected.getNodeFailedCount()));
+        assertThat(actual.getResourceFailedCloneIds(), is(expected.getResourceFailedCloneIds()));
+        assertThat(actual.getNodePingCount(), is(expected.getNodePingCount()));
+    }
+
+    private String readFile(final String resourceName) {
+        try {
+            return Resources.toString(Resources.getResource(resourceName), Charsets.UTF_8);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class CibSnapshotTest {
+    private static final String NODE4_STATE = "<node_state id=\"1\" uname=\"node4\" in_ccm=\"true\" crmd=\"online\""
+                                              + " join=\"member\"/>";
+    private String cib;
+
+    @Before
+    public void setUp() throws IOException {
+        cib = Resources.toString(Resources.getResource("cib/cib-two-nodes.xml"), Charsets.UTF_8);
+    }
+
+    @Test
+    public void versionShouldBeParsed() {
+        val cibSnapshot = CibSnapshot.fromCib(cib);
+
+        assertThat(cibSnapshot, notNullValue());
+        assertThat(cibSnapshot.getVersion(), is("0.32.11"));
+    }
+
+    @Test
+    public void cibWithoutStatusShouldNotBeSplit() throws IOException {
+        val cibNoStatus = Resources.toString(Resources.getResource("cib/cib-no-status.xml"), Charsets.UTF_8);
+
+        assertThat(CibSnapshot.fromCib(cibNoStatus), nullValue());
+    }
+
+    @Test
+    public void patchShouldBeApplied() {
+        val cibSnapshot = CibSnapshot.fromCib(cib);
+
+        val applied = cibSnapshot.applyPatch(asList(
+                "version 0.32.11 0.32.12",
+                "head",
+                "<pcmk>",
+                "<fenced></fenced><cib epoch=\"32\" num_updates=\"12\" admin_epoch=\"0\" dc-uuid=\"168430081\">",
+                ">>>head",
+                "node_state 168430083",
+                "<node_state id=\"168430083\" uname=\"node3\" in_ccm=\"true\" crmd=\"online\" join=\"member\">",
+                "</node_state>",
+                ">>>node_state",
+                "remove_node_state 1"));
+
+        assertThat(applied, is(true));
+        assertThat(cibSnapshot.getVersion(), is("0.32.12"));
+        val newCib = cibSnapshot.getCib();
+        assertThat(newCib, containsString("<fenced></fenced><cib epoch=\"32\" num_updates=\"12\""));
+        assertThat(newCib, containsString("<node_state id=\"168430083\" uname=\"node3\" in_ccm=\"true\""));
+        assertThat(newCib, containsString("<rsc_colocation id=\"col_res_IPaddr2_1_grp_1\""));
+        assertThat(newCib, containsString("<node_state id=\"168430082\""));
+        assertThat(newCib, not(containsString(NODE4_STATE)));
+        assertThat(CibSnapshot.fromCib(newCib).getCib(), is(newCib));
+    }
+
+    @Test
+    public void patchForOtherVersionShouldNotBeApplied() {
+        val cibSnapshot = CibSnapshot.fromCib(cib);
+
+        val applied = cibSnapshot.applyPatch(asList("version 0.32.10 0.32.12", "remove_node_state 1"));
+
+        assertThat(applied, is(false));
+        assertThat(cibSnapshot.getCib(), containsString(NODE4_STATE));
+    }
+
+    @Test
+    public void patchWithWrongResultVersionShouldNotBeApplied() {
+        val cibSnapshot = CibSnapshot.fromCib(cib);
+
+        assertThat(cibSnapshot.applyPatch(asList("version 0.32.11 0.32.12", "remove_node_state 1")), is(false));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import java.io.File;
+import java.io.IOException;
+
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class ResourceAgentMetaDataCacheTest {
+    private static final String XML = "<resource-agent name=\"IPaddr2\">\n</resource-agent>\n";
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void metaDataShouldBeLoadedOnlyWithTheSameChecksum() throws IOException {
+        val cacheFile = new File(folder.getRoot(), "dir/host.ra-cache");
+        val cache = new ResourceAgentMetaDataCache(cacheFile);
+        cache.put("heartbeat/IPaddr2", "100-2000", true, XML);
+        cache.put("heartbeat/Dummy", "100-3000", false, XML);
+        cache.save();
+
+        val loaded = new ResourceAgentMetaDataCache(cacheFile);
+        loaded.load();
+        loaded.retainAll(asList("heartbeat/IPaddr2"));
+
+        assertThat(loaded.get("heartbeat/IPaddr2", "100-2000").getXml(), is(XML));
+        assertThat(loaded.get("heartbeat/IPaddr2", "100-2000").isMasterSlave(), is(true));
+        assertThat(loaded.get("heartbeat/IPaddr2", "101-2000"), is(nullValue()));
+        assertThat(loaded.get("heartbeat/Dummy", "100-3000"), is(nullValue()));
+    }
+
+    @Test
+    public void onlySafeNamesShouldBeCached() {
+        assertThat(ResourceAgentMetaDataCache.getKey("linbit", "drbd"), is("linbit/drbd"));
+        assertThat(ResourceAgentMetaDataCache.getKey("heartbeat", "a;rm -rf"), is(nullValue()));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.domain;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class StatusFingerprintTest {
+    private static final String CIB_TAG = "<cib epoch=\"32\" num_updates=\"11\" admin_epoch=\"0\" dc-uuid=\"1\">";
+
+    @Test
+    public void cibFingerprintShouldNotDependOnTheRestOfTheCib() {
+        assertThat(StatusFingerprint.ofCib(asList("<pcmk>", "<fenced></fenced>", CIB_TAG, "<configuration/>")),
+                   is(StatusFingerprint.ofCib(asList("<pcmk>", "<fenced></fenced>", CIB_TAG, "<status/>"))));
+        assertThat(StatusFingerprint.ofCib(asList("<pcmk>", CIB_TAG)), startsWith("0.32.11:"));
+    }
+
+    @Test
+    public void cibFingerprintShouldChangeWithVersionOrFencedNodes() {
+        final String fingerprint = StatusFingerprint.ofCib(asList("<pcmk>", "<fenced></fenced>", CIB_TAG));
+
+        assertThat(StatusFingerprint.ofCib(asList("<pcmk>", "<fenced></fenced>",
+                                                  CIB_TAG.replace("\"11\"", "\"12\""))),
+                   not(fingerprint));
+        assertThat(StatusFingerprint.ofCib(asList("<pcmk>", "<fenced><node>node1</node></fenced>", CIB_TAG)),
+                   not(fingerprint));
+    }
+
+    @Test
+    public void cibWithoutVersionShouldBeHashedWhole() {
+        assertThat(StatusFingerprint.ofCib(asList("<pcmk>", "<cib>", "<a/>")),
+                   not(StatusFingerprint.ofCib(asList("<pcmk>", "<cib>", "<b/>"))));
+    }
+
+    @Test
+    public void cibFingerprintShouldBeTheSameAsOfTheSnapshotHead() {
+        final String cib = "<pcmk>\n<fenced></fenced>\n" + CIB_TAG + "\n<configuration>\n</configuration>\n"
+                           + "<status>\n</status>\n</cib>\n</pcmk>";
+
+        assertThat(StatusFingerprint.ofCib(asList(cib.split("\n"))),
+                   is(StatusFingerprint.ofCibHead(CibSnapshot.fromCib(cib).getHead())));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.crm.ui;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class ReachabilityIndexTest {
+    private DirectedSparseGraph<String, String> graph;
+    private ReachabilityIndex<String> index;
+
+    @Before
+    public void setUp() {
+        graph = new DirectedSparseGraph<String, String>();
+        index = new ReachabilityIndex<String>(graph);
+    }
+
+    @Test
+    public void ancestorInDiamondShouldBeFound() {
+        addEdge("a", "b");
+        addEdge("a", "c");
+        addEdge("b", "d");
+        addEdge("c", "d");
+        addEdge("x", "c");
+
+        assertThat(index.isReachable("x", "d"), is(true));
+        assertThat(index.isReachable("a", "d"), is(true));
+        assertThat(index.isReachable("d", "a"), is(false));
+        assertThat(index.isReachable("b", "c"), is(false));
+        assertThat(index.isReachable("d", "d"), is(true));
+    }
+
+    @Test
+    public void removedEdgeShouldNotBeFollowed() {
+        addEdge("a", "b");
+        addEdge("b", "c");
+        assertThat(index.isReachable("a", "c"), is(true));
+
+        graph.removeEdge("b-c");
+        index.invalidate();
+
+        assertThat(index.isReachable("a", "c"), is(false));
+        assertThat(index.isReachable("a", "b"), is(true));
+    }
+
+    @Test
+    public void indexShouldMatchDepthFirstSearch() {
+        val random = new Random(12);
+        val vertices = new ArrayList<String>();
+        for (int i = 0; i < 30; i++) {
+            vertices.add("v" + i);
+            graph.addVertex("v" + i);
+        }
+        for (int step = 0; step < 300; step++) {
+            val from = vertices.get(random.nextInt(vertices.size()));
+            val to = vertices.get(random.nextInt(vertices.size()));
+            if (random.nextInt(4) == 0 && graph.getEdgeCount() > 0) {
+                val edges = new ArrayList<String>(graph.getEdges());
+                graph.removeEdge(edges.get(random.nextInt(edges.size())));
+                index.invalidate();
+            } else if (!from.equals(to) && graph.findEdge(from, to) == null) {
+                addEdge(from, to);
+            }
+            for (final String v : vertices) {
+                for (final String p : vertices) {
+                    assertThat(v + " -> " + p, index.isReachable(v, p), is(isAncestor(v, p, new HashSet<String>())));
+                }
+            }
+        }
+    }
+
+    private void addEdge(final String from, final String to) {
+        graph.addEdge(from + '-' + to, from, to);
+        index.edgeAdded(from, to);
+    }
+
+    /** Walk over the predecessors, as CrmGraph did it before the index. */
+    private boolean isAncestor(final String v, final String p, final Set<String> visited) {
+        if (p.equals(v)) {
+            return true;
+        }
+        for (final String pre : graph.getPredecessors(p)) {
+            if (visited.add(pre) && isAncestor(v, pre, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
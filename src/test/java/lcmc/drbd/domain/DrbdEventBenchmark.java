@@ -0,0 +1,114 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.drbd.domain;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the throughput of the regexp and of the tokenizer drbd event
+ * parsing on the recorded events. It is not run with the tests, run it with:
+ *
+ * java -cp ... lcmc.drbd.domain.DrbdEventBenchmark [events-file]
+ *
+ * Every iteration parses all the lines and there are warmup iterations
+ * first, so that the JIT compiles both parsers.
+ */
+public final class DrbdEventBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_TIME_MS = 1000;
+    /** Results are added here, so that the JIT doesn't remove the parsing. */
+    private static int blackhole = 0;
+
+    private DrbdEventBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final List<String> lines = new ArrayList<String>();
+        final List<String> events;
+        if (args.length > 0) {
+            events = Resources.readLines(new File(args[0]).toURI().toURL(), Charsets.UTF_8);
+        } else {
+            events = Resources.readLines(Resources.getResource("drbd-events.txt"), Charsets.UTF_8);
+        }
+        for (final String event : events) {
+            lines.add(event.trim());
+        }
+        final double regexp = run("regexp", lines, new Parser() {
+            @Override
+            public void parse(final String line) {
+                final String event = RegexDrbdEventParser.parse(line);
+                if (event != null) {
+                    blackhole += event.length();
+                }
+            }
+        });
+        final double tokenizer = run("tokenizer", lines, new Parser() {
+            @Override
+            public void parse(final String line) {
+                final DrbdEvent event = DrbdEvent.parse(line);
+                if (event != null) {
+                    blackhole += event.getDevNr().length();
+                }
+            }
+        });
+        System.out.printf("speedup: %.1fx (%d)%n", tokenizer / regexp, blackhole & 1);
+    }
+
+    /** Returns parsed lines per second. */
+    private static double run(final String name, final List<String> lines, final Parser parser) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(lines, parser);
+        }
+        double sum = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            sum += iteration(lines, parser);
+        }
+        final double linesPerSecond = sum / MEASUREMENT_ITERATIONS;
+        System.out.printf("%-10s %,15.0f lines/s%n", name, linesPerSecond);
+        return linesPerSecond;
+    }
+
+    private static double iteration(final List<String> lines, final Parser parser) {
+        final long start = System.nanoTime();
+        final long end = start + ITERATION_TIME_MS * 1000000;
+        long count = 0;
+        long now;
+        do {
+            for (final String line : lines) {
+                parser.parse(line);
+            }
+            count += lines.size();
+            now = System.nanoTime();
+        } while (now < end);
+        return count * 1e9 / (now - start);
+    }
+
+    private interface Parser {
+        void parse(String line);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.drbd.domain;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import lombok.val;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class DrbdEventTest {
+
+    @Test
+    public void eventsShouldBeParsedLikeWithRegexps() throws IOException {
+        val events = Resources.readLines(Resources.getResource("drbd-events.txt"), Charsets.UTF_8);
+
+        for (final String event : events) {
+            val line = event.trim();
+            assertThat(line, RegexDrbdEventParser.toString(DrbdEvent.parse(line)),
+                       is(RegexDrbdEventParser.parse(line)));
+        }
+    }
+
+    @Test
+    public void stateEventShouldBeParsed() {
+        val event = DrbdEvent.parse(
+                   "3 ST 0,r0[0] { cs:SyncSource ro:Primary/Secondary ds:UpToDate/Inconsistent C r----- }");
+
+        assertThat(event.getType(), is(DrbdEvent.Type.STATE));
+        assertThat(event.getDevNr(), is("0"));
+        assertThat(event.getConnectionState(), is("SyncSource"));
+        assertThat(event.getNodeState(), is("Primary"));
+        assertThat(event.getNodeStateOther(), is("Secondary"));
+        assertThat(event.getDiskState(), is("UpToDate"));
+        assertThat(event.getDiskStateOther(), is("Inconsistent"));
+        assertThat(event.getFlags(), is("C"));
+    }
+
+    @Test
+    public void syncProgressShouldBeParsed() {
+        val event = DrbdEvent.parse("19 SP 1 16.9");
+
+        assertThat(event.getType(), is(DrbdEvent.Type.SYNC_PROGRESS));
+        assertThat(event.getDevNr(), is("1"));
+        assertThat(event.getSyncedProgress(), is("16.9"));
+    }
+
+    @Test
+    public void unknownEventShouldNotBeParsed() {
+        assertThat(DrbdEvent.parse("19 XX 1 16.9"), nullValue());
+        assertThat(DrbdEvent.parse(""), nullValue());
+    }
+}
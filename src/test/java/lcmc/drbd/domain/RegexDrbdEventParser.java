@@ -0,0 +1,81 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.drbd.domain;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regular expressions, that were used to parse the drbd events, before
+ * there was the DrbdEvent tokenizer. It returns the event as a string, so
+ * that the results of both parsers can be compared.
+ */
+final class RegexDrbdEventParser {
+    private RegexDrbdEventParser() {
+    }
+
+    static String parse(final String output) {
+        Pattern p = Pattern.compile("^(\\d+)\\s+ST\\s+(\\S+)\\s+\\{\\s+cs:(\\S+)\\s+"
+                                    + "(?:st|ro):(\\S+)/(\\S+)\\s+ds:(\\S+)/(\\S+)\\s+(\\S+).*?");
+        Matcher m = p.matcher(output);
+        final Pattern pDev = Pattern.compile("^(\\d+),(\\S+)\\[(\\d+)\\]$");
+        if (m.matches()) {
+            return "STATE " + getDevNr(pDev, m.group(2)) + ' ' + m.group(3) + ' ' + m.group(4) + ' ' + m.group(5)
+                   + ' ' + m.group(6) + ' ' + m.group(7) + ' ' + m.group(8);
+        }
+        p = Pattern.compile("^(\\d+)\\s+SP\\s+(\\S+)\\s(\\d+\\.\\d+).*");
+        m = p.matcher(output);
+        if (m.matches()) {
+            return "SYNC_PROGRESS " + getDevNr(pDev, m.group(2)) + ' ' + m.group(3);
+        }
+        p = Pattern.compile("^(\\d+)\\s+UH\\s+(\\S+)\\s([a-z-]+).*");
+        m = p.matcher(output);
+        if (m.matches()) {
+            return "USER_HELPER " + getDevNr(pDev, m.group(2)) + ' ' + m.group(3);
+        }
+        return null;
+    }
+
+    /** Returns the same string for the tokenized event. */
+    static String toString(final DrbdEvent event) {
+        if (event == null) {
+            return null;
+        }
+        switch (event.getType()) {
+            case STATE:
+                return "STATE " + event.getDevNr() + ' ' + event.getConnectionState() + ' ' + event.getNodeState()
+                       + ' ' + event.getNodeStateOther() + ' ' + event.getDiskState() + ' '
+                       + event.getDiskStateOther() + ' ' + event.getFlags();
+            case SYNC_PROGRESS:
+                return "SYNC_PROGRESS " + event.getDevNr() + ' ' + event.getSyncedProgress();
+            default:
+                return "USER_HELPER " + event.getDevNr() + ' ' + event.getHelper();
+        }
+    }
+
+    private static String getDevNr(final Pattern pDev, final String devNrString) {
+        final Matcher mDev = pDev.matcher(devNrString);
+        if (mDev.matches()) {
+            return mDev.group(1);
+        }
+        return devNrString;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.host.domain.parser;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import lcmc.configs.DistResource;
+
+/**
+ * Compares the DistResource lookups with a new resource bundle for every
+ * command and the placeholders replaced with regexps, the way it was done
+ * before, with the command templates. It is not run with the tests, run it
+ * with:
+ *
+ * java -cp ... lcmc.host.domain.parser.DistCommandBenchmark
+ *
+ * Every iteration looks up all the commands of all the DistResource_*
+ * tables and there are warmup iterations first, so that the JIT compiles
+ * both of them.
+ */
+public final class DistCommandBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_TIME_MS = 1000;
+    private static final String ARCH = "x86_64";
+    /** Results are added here, so that the JIT doesn't remove the lookups. */
+    private static int blackhole = 0;
+
+    private DistCommandBenchmark() {
+    }
+
+    public static void main(final String[] args) throws URISyntaxException {
+        final List<String[]> distVersions = getDistVersions();
+        final List<String> keys = new ArrayList<String>(ResourceBundle.getBundle("lcmc.configs.DistResource")
+                                                                      .keySet());
+        final Map<String, String> replaceHash = new HashMap<String, String>();
+        replaceHash.put("@ID@", "res1");
+        replaceHash.put("@HOST@", "host1");
+        replaceHash.put("@DOMAIN@", "domain1");
+        replaceHash.put("@OPTIONS@", "-v");
+        System.out.println(distVersions.size() + " tables, " + keys.size() + " commands");
+
+        final double bundle = run("bundle", distVersions, new Lookup() {
+            @Override
+            public int lookup(final String dist, final String version) {
+                int length = 0;
+                for (final String key : keys) {
+                    final String command = getBundleString(dist, version, key);
+                    if (command != null) {
+                        length += replaceAll(command, replaceHash).length();
+                    }
+                }
+                return length;
+            }
+        });
+        final Map<String, CommandTemplates> templates = new HashMap<String, CommandTemplates>();
+        for (final String[] distVersion : distVersions) {
+            templates.put(distVersion[0] + '_' + distVersion[1],
+                          new CommandTemplates(distVersion[0], distVersion[1], ARCH));
+        }
+        final double template = run("templates", distVersions, new Lookup() {
+            @Override
+            public int lookup(final String dist, final String version) {
+                final CommandTemplates commandTemplates = templates.get(dist + '_' + version);
+                int length = 0;
+                for (final String key : keys) {
+                    final String command = commandTemplates.getString(key);
+                    if (command != null) {
+                        length += commandTemplates.render(command, replaceHash).length();
+                    }
+                }
+                return length;
+            }
+        });
+        System.out.printf("speedup: %.1fx (%d)%n", template / bundle, blackhole & 1);
+    }
+
+    /** Returns the distribution and version of every DistResource_* class. */
+    private static List<String[]> getDistVersions() throws URISyntaxException {
+        final File dir = new File(DistResource.class.getResource("DistResource.class").toURI()).getParentFile();
+        final List<String[]> distVersions = new ArrayList<String[]>();
+        final String[] files = dir.list();
+        if (files == null) {
+            return distVersions;
+        }
+        for (final String file : files) {
+            if (!file.startsWith("DistResource_") || !file.endsWith(".class") || file.contains("$")) {
+                continue;
+            }
+            final String name = file.substring("DistResource_".length(), file.length() - ".class".length());
+            final int underscore = name.indexOf('_');
+            if (underscore < 0) {
+                distVersions.add(new String[]{name, ""});
+            } else {
+                distVersions.add(new String[]{name.substring(0, underscore), name.substring(underscore + 1)});
+            }
+        }
+        return distVersions;
+    }
+
+    /** The lookup, as it was done before the command templates. */
+    private static String getBundleString(final String dist, final String version, final String text) {
+        final ResourceBundle resourceString = ResourceBundle.getBundle("lcmc.configs.DistResource",
+                                                                       new Locale(dist, version));
+        try {
+            return resourceString.getString(text + '.' + ARCH);
+        } catch (final RuntimeException e) {
+            try {
+                return resourceString.getString(text);
+            } catch (final RuntimeException e2) {
+                return null;
+            }
+        }
+    }
+
+    private static String replaceAll(String command, final Map<String, String> replaceHash) {
+        for (final Map.Entry<String, String> tagValue : replaceHash.entrySet()) {
+            if (command.contains(tagValue.getKey())) {
+                command = command.replaceAll(tagValue.getKey(), tagValue.getValue());
+            }
+        }
+        return command;
+    }
+
+    /** Returns the commands looked up per second. */
+    private static double run(final String name, final List<String[]> distVersions, final Lookup lookup) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(distVersions, lookup);
+        }
+        double sum = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            sum += iteration(distVersions, lookup);
+        }
+        final double tablesPerSecond = sum / MEASUREMENT_ITERATIONS;
+        System.out.printf("%-10s %,15.0f tables/s%n", name, tablesPerSecond);
+        return tablesPerSecond;
+    }
+
+    private static double iteration(final List<String[]> distVersions, final Lookup lookup) {
+        final long start = System.nanoTime();
+        final long end = start + ITERATION_TIME_MS * 1000000;
+        long count = 0;
+        long now;
+        do {
+            for (final String[] distVersion : distVersions) {
+                blackhole += lookup.lookup(distVersion[0], distVersion[1]);
+            }
+            count += distVersions.size();
+            now = System.nanoTime();
+        } while (now < end);
+        return count * 1e9 / (now - start);
+    }
+
+    private interface Lookup {
+        int lookup(String dist, String version);
+    }
+}
@@ -26,7 +26,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 
@@ -35,6 +37,7 @@ import org.junit.runner.RunWith;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import lcmc.common.domain.ConvertCmdCallback;
+import lcmc.common.domain.util.Tools;
 
 @RunWith(JUnitParamsRunner.class)
 public class DistributionDetectorTest {
@@ -115,6 +118,41 @@ public class DistributionDetectorTest {
         assertNull(getDistCommand(null, null, true, true));
     }
 
+    @Test
+    public void placeholdersShouldBeReplaced() {
+        final DistributionDetector distributionDetector = new DistributionDetector(null);
+        distributionDetector.detect(ImmutableList.of("Linux", "x86_64", "3.16.0-4-amd64", "8.6", "debian"));
+        final Map<String, String> replaceHash = new HashMap<String, String>();
+        replaceHash.put("@ID@", "res$1");
+        replaceHash.put("@HOST@", null);
+
+        assertEquals(lcmc.configs.DistResource.SUDO + "/usr/sbin/crm_resource -C -r res$1 -H ; true",
+                     distributionDetector.getDistCommand("CRM.cleanupResource", replaceHash));
+    }
+
+    @Test
+    public void crmConfigShouldBeInsertedLiterally() {
+        final DistributionDetector distributionDetector = new DistributionDetector(null);
+        distributionDetector.detect(ImmutableList.of("Linux", "x86_64", "3.16.0-4-amd64", "8.6", "debian"));
+        final Map<String, String> replaceHash = new HashMap<String, String>();
+        /* the same as in CRM.crmConfigureCommit */
+        replaceHash.put("@CONFIG@", Tools.escapeQuotes("primitive p1 Dummy params $id=p1 path=\\a", 1));
+
+        assertEquals("EDITOR=\"echo 'primitive p1 Dummy params \\$id=p1 path=\\\\a'|cat>\" "
+                     + lcmc.configs.DistResource.SUDO + "crm configure edit",
+                     distributionDetector.getDistCommand("CRM.configureCommit", replaceHash));
+    }
+
+    @Test
+    public void onlyUpperCasePlaceholdersShouldBeReplaced() {
+        final Map<String, String> replaceHash = new HashMap<String, String>();
+        replaceHash.put("@ID@", "x");
+        replaceHash.put("@id@", "y");
+
+        assertEquals("a@b@x@@c@ID", CommandTemplate.parse("a@b@@ID@@@c@ID").render(replaceHash));
+        assertEquals("@ID@", CommandTemplate.parse("@ID@").render(new HashMap<String, String>()));
+    }
+
     private String getDistCommand(final String text,
                                   final ConvertCmdCallback convertCmdCallback,
                                   final boolean inBash,
@@ -0,0 +1,133 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.host.domain.parser;
+
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public class InfoFrameDecoderTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final InfoFrameDecoder decoder = new InfoFrameDecoder();
+
+    private void append(final String output) {
+        final byte[] bytes = output.getBytes(UTF8);
+        decoder.append(bytes, 0, bytes.length);
+    }
+
+    private String frame(final String type, final String payload) {
+        return "--info-frame-- " + type + " 1457000000000000000 " + payload.getBytes(UTF8).length + "\n"
+               + payload + "\n";
+    }
+
+    @Test
+    public void framesShouldBeDecoded() {
+        append("\n\n" + frame("hw", "net-info\neth0\n") + "\n" + frame("vm", "<vms/>\n"));
+
+        final InfoFrameDecoder.Frame hw = decoder.nextFrame();
+        assertThat(hw.getType(), is("hw"));
+        assertThat(hw.getPayload(), is("net-info\neth0\n"));
+        assertThat(hw.getTimestamp(), is(1457000000000000000.0));
+        final InfoFrameDecoder.Frame vm = decoder.nextFrame();
+        assertThat(vm.getType(), is("vm"));
+        assertThat(vm.getPayload(), is("<vms/>\n"));
+        assertThat(decoder.nextFrame(), nullValue());
+    }
+
+    @Test
+    public void splitFrameShouldBeDecodedWhenComplete() {
+        final String output = frame("drbd", "<config>č</config>\n");
+        final byte[] bytes = output.getBytes(UTF8);
+        for (int i = 0; i < bytes.length - 1; i++) {
+            decoder.append(bytes, i, 1);
+            assertThat(decoder.nextFrame(), nullValue());
+        }
+        decoder.append(bytes, bytes.length - 1, 1);
+
+        assertThat(decoder.nextFrame().getPayload(), is("<config>č</config>\n"));
+    }
+
+    @Test
+    public void bigFramesShouldBeDecoded() {
+        final StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            payload.append("<domain name=\"vm").append(i).append("\"/>\n");
+        }
+        for (int i = 0; i < 3; i++) {
+            append(frame("vm", payload.toString()));
+
+            assertThat(decoder.nextFrame().getPayload(), is(payload.toString()));
+        }
+    }
+
+    @Test
+    public void grownBufferShouldShrinkWhenDecoded() {
+        final StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            payload.append("<domain name=\"vm").append(i).append("\"/>\n");
+        }
+        append(frame("vm", payload.toString()));
+        final int grownSize = decoder.getBufferSize();
+
+        assertThat(decoder.nextFrame(), notNullValue());
+        assertThat(decoder.nextFrame(), nullValue());
+        assertThat(decoder.getBufferSize() < grownSize, is(true));
+
+        append(frame("hw", "net-info\n"));
+        assertThat(decoder.nextFrame().getPayload(), is("net-info\n"));
+    }
+
+    @Test
+    public void frameWithWrongLengthShouldBeSkipped() {
+        append("--info-frame-- hw 1 3\nabcd\n" + frame("hw", "net-info\n"));
+
+        final InfoFrameDecoder.Frame frame = decoder.nextFrame();
+        assertThat(frame, notNullValue());
+        assertThat(frame.getPayload(), is("net-info\n"));
+    }
+
+    @Test
+    public void frameWithTooBigLengthShouldBeSkipped() {
+        append("--info-frame-- hw 1 99999999\nabcd\n" + frame("hw", "net-info\n"));
+
+        final InfoFrameDecoder.Frame frame = decoder.nextFrame();
+        assertThat(frame, notNullValue());
+        assertThat(frame.getPayload(), is("net-info\n"));
+    }
+
+    @Test
+    public void frameCutOffByTheNextFrameShouldBeSkipped() {
+        append("--info-frame-- hw 1 1000000\nabcd\n");
+        assertThat(decoder.nextFrame(), nullValue());
+        append(frame("vm", "<vms/>\n"));
+
+        final InfoFrameDecoder.Frame frame = decoder.nextFrame();
+        assertThat(frame, notNullValue());
+        assertThat(frame.getType(), is("vm"));
+        assertThat(frame.getPayload(), is("<vms/>\n"));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2016, Rastislav Levrinc.
+ *
+ * The LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * The LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with LCMC; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import lombok.val;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.springframework.test.util.MatcherAssertionErrors.assertThat;
+
+public class LogRingBufferTest {
+    @Test
+    public void argumentsShouldBeFormattedOnRead() {
+        val logBuffer = new LogRingBuffer(4);
+
+        logBuffer.add("INFO    : ", null, "a {} b {} c", new Object[]{1, "x"}, true);
+        logBuffer.add("DEBUG   : ", "lcmc.Test", "more {} than {}", new Object[]{"args"}, true);
+
+        val messages = logBuffer.getLast(10);
+        assertThat(messages.get(0), is("INFO    : a 1 b x c"));
+        assertThat(messages.get(1), containsString("s] lcmc.Test: more args than {}"));
+    }
+
+    @Test
+    public void oldestMessagesShouldBeOverwritten() {
+        val logBuffer = new LogRingBuffer(4);
+
+        for (int i = 0; i < 6; i++) {
+            logBuffer.add("", null, "m" + i, null, true);
+        }
+
+        assertThat(logBuffer.getLast(10), is(asList("m2", "m3", "m4", "m5")));
+        assertThat(logBuffer.getLast(2), is(asList("m4", "m5")));
+    }
+
+    @Test
+    public void writerShouldPrintOnlyPrintableMessages() {
+        val logBuffer = new LogRingBuffer(4);
+        val out = new ByteArrayOutputStream();
+        val writer = new AsyncLogWriter(new PrintStream(out, true), 4);
+
+        assertThat(writer.add(logBuffer.add("", null, "printed", null, true)), is(true));
+        assertThat(writer.add(logBuffer.add("", null, "only kept", null, false)), is(true));
+
+        assertThat(writer.writePending(), is(true));
+        assertThat(writer.writePending(), is(false));
+        assertThat(out.toString(), is("printed" + System.lineSeparator()));
+        assertThat(logBuffer.getLast(2), is(asList("printed", "only kept")));
+    }
+
+    @Test
+    public void writerShouldCountDroppedMessages() {
+        val logBuffer = new LogRingBuffer(8);
+        val out = new ByteArrayOutputStream();
+        val writer = new AsyncLogWriter(new PrintStream(out, true), 4);
+
+        for (int i = 0; i < 6; i++) {
+            writer.add(logBuffer.add("", null, "m" + i, null, true));
+        }
+        writer.writePending();
+
+        assertThat(out.toString(), containsString("m0"));
+        assertThat(out.toString(), containsString("m3"));
+        assertThat(out.toString(), not(containsString("m4")));
+        assertThat(out.toString(), containsString("2 log messages dropped"));
+    }
+
+    @Test
+    public void stoppedWriterShouldNotTakeMessages() {
+        val logBuffer = new LogRingBuffer(4);
+        val writer = new AsyncLogWriter(new PrintStream(new ByteArrayOutputStream(), true), 4);
+
+        writer.stop();
+
+        assertThat(writer.add(logBuffer.add("", null, "m", null, true)), is(false));
+    }
+}
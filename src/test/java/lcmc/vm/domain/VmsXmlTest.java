@@ -21,9 +21,19 @@
 package lcmc.vm.domain;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashSet;
 
 import lcmc.common.domain.StringValue;
+import lcmc.host.domain.Host;
+import lcmc.host.domain.parser.HostParser;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
 public final class VmsXmlTest {
@@ -78,4 +88,57 @@ public final class VmsXmlTest {
         assertEquals(-1, VmsXml.convertToKilobytes(new StringValue("P")));
         assertEquals(-1, VmsXml.convertToKilobytes(new StringValue("-3")));
     }
+
+    @Test
+    public void incrementalVmInfoShouldBeMerged() {
+        final Host host = mock(Host.class);
+        when(host.getName()).thenReturn("host1");
+        when(host.getHostParser()).thenReturn(mock(HostParser.class));
+        final VmsXml vmsXml = newVmsXml(host);
+        assertTrue(vmsXml.parseXml("<vms md5=\"1\">" + vm("vm1", "a", "running") + vm("vm2", "b", "running")
+                                   + vm("vm3", "c", "running") + "</vms>"));
+        when(host.getVMInfoMD5()).thenReturn("1");
+
+        final VmsXml newVmsXml = newVmsXml(host);
+        assertTrue(newVmsXml.parseXml("<vms md5=\"2\" incremental=\"True\">" + vm("vm2", "d", "shut off")
+                                      + "<vm-removed name=\"vm3\"/></vms>", vmsXml));
+
+        assertEquals(new HashSet<String>(Arrays.asList("vm1", "vm2")),
+                     new HashSet<String>(newVmsXml.getDomainNames()));
+        assertTrue(newVmsXml.isRunning("vm1"));
+        assertFalse(newVmsXml.isRunning("vm2"));
+        assertTrue(newVmsXml.getDomainNode("vm1") != null);
+        assertEquals(2, newVmsXml.getConfigs().size());
+        assertEquals(new HashSet<String>(Arrays.asList("vm2", "vm3")),
+                     newVmsXml.getChangedDomainNames(vmsXml));
+        assertTrue(newVmsXml.getChangedDomainNames(newVmsXml).isEmpty());
+    }
+
+    @Test
+    public void incrementalVmInfoWithoutThePreviousOneShouldNeedFullInfo() {
+        final Host host = mock(Host.class);
+        when(host.getName()).thenReturn("host1");
+        when(host.getHostParser()).thenReturn(mock(HostParser.class));
+        final VmsXml vmsXml = newVmsXml(host);
+
+        assertFalse(vmsXml.parseXml("<vms md5=\"2\" incremental=\"True\">" + vm("vm2", "d", "shut off")
+                                    + "</vms>", null));
+
+        assertTrue(vmsXml.isFullInfoNeeded());
+        assertTrue(vmsXml.getDomainNames().isEmpty());
+    }
+
+    private VmsXml newVmsXml(final Host host) {
+        final VmsXml vmsXml = new VmsXml();
+        ReflectionTestUtils.setField(vmsXml, "vmParser", new VMParser());
+        ReflectionTestUtils.setField(vmsXml, "networkParser", new NetworkParser());
+        vmsXml.init(host);
+        return vmsXml;
+    }
+
+    private String vm(final String name, final String md5, final String state) {
+        return "<vm md5=\"" + md5 + "\" name=\"" + name + "\" autostart=\"False\">"
+               + "<info>\nName: " + name + "\nState: " + state + "\n</info>"
+               + "<config><domain type=\"kvm\"><name>" + name + "</name></domain></config></vm>";
+    }
 }